@@ -0,0 +1,142 @@
+package eu.toennies.javahttpobservatoryapi.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.toennies.javahttpobservatoryapi.ConsoleRenderer;
+import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
+
+/**
+ * Measures parsing a scan result, converting it for the console and
+ * rendering it, and matching the command line arguments.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsoleUtilitiesBenchmark {
+
+	private String scanResults;
+	private String assessment;
+	private JSONObject scanResultsJson;
+	private JSONArray testResultsArray;
+	private Map<String, Object> scanResultsMap;
+	private List<String> arguments;
+	private StringWriter rendered;
+	private ConsoleRenderer renderer;
+
+	@Setup
+	public void setup() throws IOException, JSONException {
+		scanResults = new String(Fixtures.load("getScanResults"), StandardCharsets.UTF_8);
+		assessment = new String(Fixtures.load("analyze"), StandardCharsets.UTF_8);
+		scanResultsJson = new JSONObject(scanResults);
+		testResultsArray = new JSONArray();
+		for (Iterator<?> it = scanResultsJson.keys(); it.hasNext();) {
+			testResultsArray.put(scanResultsJson.get((String) it.next()));
+		}
+		scanResultsMap = ConsoleUtilities.jsonToMap(scanResultsJson);
+		arguments = new ArrayList<String>(
+				Arrays.asList("-a", "-i", "host=www.example.com", "hidden", "rescan", "-p", "proxy=localhost:8080"));
+		rendered = new StringWriter();
+		renderer = new ConsoleRenderer(new PrintWriter(rendered));
+	}
+
+	@Benchmark
+	public JSONObject parse() throws JSONException {
+		return new JSONObject(scanResults);
+	}
+
+	@Benchmark
+	public Map<String, Object> jsonToMap() throws JSONException {
+		return ConsoleUtilities.jsonToMap(scanResultsJson);
+	}
+
+	@Benchmark
+	public Map<String, Object> toMap() throws JSONException {
+		return ConsoleUtilities.toMap(scanResultsJson);
+	}
+
+	@Benchmark
+	public List<Object> toList() throws JSONException {
+		return ConsoleUtilities.toList(testResultsArray);
+	}
+
+	@Benchmark
+	public String mapToConsoleOutput() {
+		return ConsoleUtilities.mapToConsoleOutput(scanResultsMap);
+	}
+
+	@Benchmark
+	public String parseAndRender() throws JSONException {
+		return ConsoleUtilities.mapToConsoleOutput(ConsoleUtilities.jsonToMap(new JSONObject(scanResults)));
+	}
+
+	@Benchmark
+	public int streamRender() throws JSONException {
+		rendered.getBuffer().setLength(0);
+		renderer.render(scanResultsJson);
+		return rendered.getBuffer().length();
+	}
+
+	@Benchmark
+	public int parseAndStreamRender() throws JSONException {
+		rendered.getBuffer().setLength(0);
+		renderer.render(new JSONObject(scanResults));
+		return rendered.getBuffer().length();
+	}
+
+	@Benchmark
+	public String listValueMatchRegex() {
+		return ConsoleUtilities.listValueMatchRegex(arguments, "proxy=(.+)");
+	}
+
+	@Benchmark
+	public String listValueMatchRegexMiss() {
+		return ConsoleUtilities.listValueMatchRegex(arguments, "max=(.+)");
+	}
+
+	@Benchmark
+	public String parsedArguments() {
+		return Arguments.parse(arguments).get("proxy");
+	}
+
+	@Benchmark
+	public Map<String, Object> assessmentAsMap() throws JSONException {
+		return ConsoleUtilities.jsonToMap(new JSONObject(assessment));
+	}
+
+	@Benchmark
+	public Assessment assessmentTyped() throws IOException {
+		return Assessment.read("www.example.com", new StringReader(assessment));
+	}
+}
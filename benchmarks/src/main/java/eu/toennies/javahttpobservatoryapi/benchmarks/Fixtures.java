@@ -0,0 +1,48 @@
+package eu.toennies.javahttpobservatoryapi.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads the API responses bundled with the stub server of the test jar, so
+ * the benchmarks work on realistic payloads.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+final class Fixtures {
+
+	/**
+	 * JVM arguments of forks running the stub server, which writes headers and
+	 * body separately and would otherwise wait for a delayed ack
+	 */
+	static final String STUB_JVM_ARGS = "-Dsun.net.httpserver.nodelay=true";
+
+	/**
+	 * Hidden constructor for utility class.
+	 */
+	private Fixtures() {
+	}
+
+	/**
+	 * @param endpoint
+	 *            - the api call, e.g. getScanResults
+	 * @return the raw response of the endpoint
+	 * @throws IOException
+	 */
+	static byte[] load(String endpoint) throws IOException {
+		try (InputStream is = Fixtures.class.getResourceAsStream("/stub/" + endpoint + ".json")) {
+			if (is == null) {
+				throw new IOException("Missing fixture for " + endpoint);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = is.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package eu.toennies.javahttpobservatoryapi.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+import eu.toennies.javahttpobservatoryapi.store.GradeHistory;
+import eu.toennies.javahttpobservatoryapi.store.GradeHistoryLog;
+
+/**
+ * Measures the queries of the grade history log. The log holds a fleet of
+ * hosts scanned in rounds, one row per host and round, with a round every
+ * hour. Larger logs can be measured with -p rows=100000000, the log files
+ * need 32 bytes per row.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradeHistoryBenchmark {
+
+	private static final long HOUR = 3600000L;
+	private static final long START = 1458683501000L;
+
+	@Param({ "10000000" })
+	public long rows;
+
+	@Param({ "10000" })
+	public int hosts;
+
+	private File directory;
+	private GradeHistoryLog log;
+	private long end;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("grade-history").toFile();
+		log = GradeHistoryLog.open(directory);
+		Grade[] grades = Grade.values();
+		long rounds = rows / hosts;
+		for (long round = 0; round < rounds; round++) {
+			for (int host = 0; host < hosts; host++) {
+				int score = (int) ((round + host) % 120);
+				log.append("site" + host + ".example.org", round * hosts + host + 1, START + round * HOUR, score,
+						grades[score % grades.length], 12 - score % 12, score % 12);
+			}
+		}
+		end = START + rounds * HOUR;
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		log.close();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				Files.delete(file.toPath());
+			}
+		}
+		Files.delete(directory.toPath());
+	}
+
+	/**
+	 * The score trajectory of a host over the last 90 days.
+	 */
+	@Benchmark
+	public GradeHistory hostLast90Days() throws IOException {
+		return log.query(randomHost(), end - 90 * 24 * HOUR, end);
+	}
+
+	/**
+	 * The score trajectory of a host over 90 days at the start of the log.
+	 */
+	@Benchmark
+	public GradeHistory hostFirst90Days() throws IOException {
+		return log.query(randomHost(), START, START + 90 * 24 * HOUR);
+	}
+
+	/**
+	 * All scans of one hour in the middle of the log.
+	 */
+	@Benchmark
+	public GradeHistory fleetOneHour() throws IOException {
+		long middle = START + (end - START) / 2;
+		return log.query(middle, middle + HOUR - 1);
+	}
+
+	private String randomHost() {
+		return "site" + ThreadLocalRandom.current().nextInt(hosts) + ".example.org";
+	}
+}
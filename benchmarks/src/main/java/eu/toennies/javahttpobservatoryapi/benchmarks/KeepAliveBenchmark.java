@@ -0,0 +1,71 @@
+package eu.toennies.javahttpobservatoryapi.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.Console;
+import eu.toennies.javahttpobservatoryapi.stub.ObservatoryStubServer;
+
+/**
+ * API requests against the local stub server over pooled keep-alive
+ * connections and over a fresh connection per request. The JDK reads
+ * http.keepAlive once, so the fresh connections run in their own fork.
+ *
+ * Every measurement sends a fixed batch of requests, so the closed
+ * connections can not use up the local ports.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = KeepAliveBenchmark.BATCH_SIZE)
+@Measurement(iterations = 5, batchSize = KeepAliveBenchmark.BATCH_SIZE)
+public class KeepAliveBenchmark {
+
+	/** the number of requests per measurement */
+	static final int BATCH_SIZE = 1000;
+
+	private ObservatoryStubServer stub;
+	private Api api;
+
+	@Setup
+	public void setup() throws IOException {
+		Console.getInstance();
+		stub = new ObservatoryStubServer().start();
+		Api.setApiUrl(stub.getUrl());
+		api = new Api();
+	}
+
+	@TearDown
+	public void tearDown() {
+		Api.setApiUrl(null);
+		stub.stop();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = Fixtures.STUB_JVM_ARGS)
+	public String keepAlive() throws IOException {
+		return api.sendApiGetRequest("getScannerStates", null);
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = { Fixtures.STUB_JVM_ARGS, "-Dhttp.keepAlive=false" })
+	public String freshConnection() throws IOException {
+		return api.sendApiGetRequest("getScannerStates", null);
+	}
+}
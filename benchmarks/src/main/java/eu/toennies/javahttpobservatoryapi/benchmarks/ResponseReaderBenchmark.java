@@ -0,0 +1,63 @@
+package eu.toennies.javahttpobservatoryapi.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.toennies.javahttpobservatoryapi.ResponseReader;
+
+/**
+ * Compares reading a response in bulk with the former byte by byte loop.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseReaderBenchmark {
+
+	@Param({ "getScanResults", "analyze", "getRecentScans" })
+	public String endpoint;
+
+	private byte[] payload;
+
+	@Setup
+	public void setup() throws IOException {
+		payload = Fixtures.load(endpoint);
+	}
+
+	@Benchmark
+	public String bulkRead() throws IOException {
+		return ResponseReader.read(new ByteArrayInputStream(payload), payload.length, StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public String byteAtATime() throws IOException {
+		InputStream is = new ByteArrayInputStream(payload);
+		int nextByteOfData = 0;
+		StringBuffer apiResponseBuffer = new StringBuffer();
+		while ((nextByteOfData = is.read()) != -1) {
+			apiResponseBuffer.append((char) nextByteOfData);
+		}
+		is.close();
+		return apiResponseBuffer.toString();
+	}
+}
@@ -0,0 +1,107 @@
+package eu.toennies.javahttpobservatoryapi.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.Console;
+import eu.toennies.javahttpobservatoryapi.stub.ObservatoryStubServer;
+
+/**
+ * Measures the time from launching a new console process until its first
+ * request arrives at the stub server, i.e. JVM startup, class loading and
+ * building the request. By default the console is run from the benchmark jar.
+ * The jar and the class data sharing archive built by the cli profile can be
+ * passed with -p classpath=path/to/java-http-observatory-api-cli.jar and
+ * -p archive=path/to/java-http-observatory-api-cli.jsa, an archive only works
+ * with the jar it was built for.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 1)
+@Measurement(iterations = 20, batchSize = 1)
+@Fork(value = 1, jvmArgsAppend = Fixtures.STUB_JVM_ARGS)
+public class StartupBenchmark {
+
+	/** the class path of the console, the benchmark jar if empty */
+	@Param({ "" })
+	public String classpath;
+
+	/** the class data sharing archive, none if empty */
+	@Param({ "" })
+	public String archive;
+
+	/** the console command */
+	@Param({ "-g" })
+	public String command;
+
+	private ObservatoryStubServer stub;
+	private Process process;
+
+	@Setup
+	public void setup() throws IOException {
+		stub = new ObservatoryStubServer().start();
+	}
+
+	@TearDown
+	public void tearDown() {
+		stub.stop();
+	}
+
+	@Benchmark
+	public long timeToFirstRequest() throws IOException {
+		long requests = stub.getRequestCount();
+		process = launch();
+		while (stub.getRequestCount() == requests) {
+			if (!process.isAlive()) {
+				throw new IllegalStateException("The console exited without sending a request.");
+			}
+			Thread.yield();
+		}
+		return stub.getRequestCount();
+	}
+
+	@TearDown(Level.Invocation)
+	public void awaitExit() throws InterruptedException {
+		if (process != null) {
+			process.waitFor();
+			process = null;
+		}
+	}
+
+	private Process launch() throws IOException {
+		List<String> commandLine = new ArrayList<String>();
+		commandLine.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		if (!archive.isEmpty()) {
+			commandLine.add("-XX:SharedArchiveFile=" + archive);
+		}
+		commandLine.add("-D" + Api.API_URL_PROPERTY + "=" + stub.getUrl());
+		commandLine.add("-cp");
+		commandLine.add(classpath.isEmpty() ? System.getProperty("java.class.path") : classpath);
+		commandLine.add(Console.class.getName());
+		commandLine.add(command);
+		// the output of a single command fits into the pipe buffer, it is not read
+		return new ProcessBuilder(commandLine).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+	}
+}
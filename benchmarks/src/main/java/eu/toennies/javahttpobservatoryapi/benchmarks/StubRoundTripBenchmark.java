@@ -0,0 +1,94 @@
+package eu.toennies.javahttpobservatoryapi.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.Console;
+import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
+import eu.toennies.javahttpobservatoryapi.commands.GradeDistributionCommand;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveAssessmentCommand;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveTestResultsCommand;
+import eu.toennies.javahttpobservatoryapi.results.ScanResultsReader;
+import eu.toennies.javahttpobservatoryapi.stub.ObservatoryStubServer;
+
+/**
+ * Full command round trips against the local stub server, from building the
+ * request to the rendered console output.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = Fixtures.STUB_JVM_ARGS)
+public class StubRoundTripBenchmark {
+
+	private ObservatoryStubServer stub;
+	private final List<String> hostArguments = Collections.singletonList("host=www.example.com");
+	private final List<String> scanArguments = Collections.singletonList("id=1");
+
+	@Setup
+	public void setup() throws IOException {
+		Console.getInstance();
+		stub = new ObservatoryStubServer().start();
+		Api.setApiUrl(stub.getUrl());
+	}
+
+	@TearDown
+	public void tearDown() {
+		Api.setApiUrl(null);
+		stub.stop();
+	}
+
+	@Benchmark
+	public JSONObject gradeDistribution() {
+		return new GradeDistributionCommand().run(null);
+	}
+
+	@Benchmark
+	public JSONObject retrieveAssessment() {
+		return new RetrieveAssessmentCommand().run(hostArguments);
+	}
+
+	@Benchmark
+	public JSONObject retrieveTestResults() {
+		return new RetrieveTestResultsCommand().run(scanArguments);
+	}
+
+	@Benchmark
+	public int streamTestResults() throws IOException, JSONException {
+		int count = 0;
+		try (ScanResultsReader reader = new RetrieveTestResultsCommand().streamTestResults(scanArguments)) {
+			while (reader.next() != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public String renderTestResults() throws JSONException {
+		return ConsoleUtilities
+				.mapToConsoleOutput(ConsoleUtilities.jsonToMap(new RetrieveTestResultsCommand().run(scanArguments)));
+	}
+}
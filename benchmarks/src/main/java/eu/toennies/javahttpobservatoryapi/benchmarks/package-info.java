@@ -0,0 +1,6 @@
+/**
+ * Provides the JMH benchmarks of the library.
+ * 
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.benchmarks;
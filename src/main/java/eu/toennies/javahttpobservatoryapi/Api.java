@@ -1,17 +1,22 @@
 package eu.toennies.javahttpobservatoryapi;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.InetSocketAddress;
-import java.net.Proxy;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
-import javax.net.ssl.HttpsURLConnection;
+import eu.toennies.javahttpobservatoryapi.jfr.ApiEvents;
+import eu.toennies.javahttpobservatoryapi.metrics.ApiMetrics;
+import eu.toennies.javahttpobservatoryapi.metrics.CommandMetrics;
+import eu.toennies.javahttpobservatoryapi.metrics.MeteredInputStream;
+import eu.toennies.javahttpobservatoryapi.transport.Transport;
+import eu.toennies.javahttpobservatoryapi.transport.TransportResponse;
+import eu.toennies.javahttpobservatoryapi.transport.UrlConnectionTransport;
 
 /**
  * This Java library provides basic access to Mozilla's Observatory API and is
@@ -21,21 +26,38 @@ import javax.net.ssl.HttpsURLConnection;
  * @author Sascha Tönnies <https://github.com/stoennies>
  */
 public class Api {
-	private static final String API_URL = "https://http-observatory.security.mozilla.org/api/v1";
-	private static Properties PROP = new Properties();
-	
-	static {
-		InputStream resourceAsStream = Api.class.getResourceAsStream("/version.properties");
-		try {
-			PROP.load(resourceAsStream);
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
+	/** the url of the public Observatory API */
+	public static final String DEFAULT_API_URL = "https://http-observatory.security.mozilla.org/api/v1";
+
+	/** the system property overriding the default api url */
+	public static final String API_URL_PROPERTY = "eu.toennies.javahttpobservatoryapi.apiUrl";
+
+	private static volatile String apiUrl = System.getProperty(API_URL_PROPERTY, DEFAULT_API_URL);
+	private static volatile Transport transport;
+
+	/**
+	 * Holder class for the version properties according to the
+	 * Initialization-on-demand holder idiom, they are only loaded when the
+	 * version is asked for.
+	 */
+	private static class VersionHolder {
+		private static final Properties PROP = loadVersion();
+
+		private static Properties loadVersion() {
+			Properties prop = new Properties();
+			InputStream resourceAsStream = Api.class.getResourceAsStream("/version.properties");
 			try {
-				resourceAsStream.close();
+				prop.load(resourceAsStream);
 			} catch (IOException e) {
 				e.printStackTrace();
+			} finally {
+				try {
+					resourceAsStream.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
 			}
+			return prop;
 		}
 	}
 
@@ -45,7 +67,50 @@ public class Api {
 	 * @return String
 	 */
 	public static String getVersion() {
-		return PROP.getProperty("version");
+		return VersionHolder.PROP.getProperty("version");
+	}
+
+	/**
+	 * The base url all API calls are sent to
+	 * 
+	 * @return String
+	 */
+	public static String getApiUrl() {
+		return apiUrl;
+	}
+
+	/**
+	 * Sets the base url all API calls are sent to, e.g. a local stub server.
+	 * The initial url can also be given by the system property
+	 * {@value #API_URL_PROPERTY}.
+	 * 
+	 * @param url
+	 *            - the base url or null for the public API
+	 */
+	public static void setApiUrl(String url) {
+		apiUrl = url == null ? DEFAULT_API_URL : url;
+	}
+
+	/**
+	 * The transport sending the requests. Unless a transport has been set,
+	 * requests go through a {@link UrlConnectionTransport} using the proxy of
+	 * the console.
+	 * 
+	 * @return Transport
+	 */
+	public static Transport getTransport() {
+		Transport current = transport;
+		return current != null ? current : new UrlConnectionTransport(Console.getInstance().getProxy());
+	}
+
+	/**
+	 * Sets the transport sending the requests.
+	 * 
+	 * @param newTransport
+	 *            - the transport or null for the default transport
+	 */
+	public static void setTransport(Transport newTransport) {
+		transport = newTransport;
 	}
 	
 	/**
@@ -57,74 +122,156 @@ public class Api {
 	 * @throws IOException
 	 */
 	public String sendApiGetRequest(String apiCall, Map<String, String> parameters) throws IOException {
-		URL url = new URL(API_URL + "/" + apiCall);
-
-		if (parameters != null) {
-			url = new URL(url.toString() + buildGetParameterString(parameters));
-		}
-
-		InputStream is;
-		if (Console.getInstance().getProxy() == null) {
-			is = url.openStream();
-		} else {
-			Proxy proxy = new Proxy(Proxy.Type.HTTP,
-					new InetSocketAddress(Console.getInstance().getProxy().split(":")[0],
-							Integer.parseInt(Console.getInstance().getProxy().split(":")[1])));
-			is = ((HttpURLConnection) url.openConnection(proxy)).getInputStream();
-		}
-
-		int nextByteOfData = 0;
-		StringBuffer apiResponseBuffer = new StringBuffer();
-		while ((nextByteOfData = is.read()) != -1) {
-			apiResponseBuffer.append((char) nextByteOfData);
-		}
-		is.close();
+		return readResponse(send("GET", apiCall, buildUrl(apiCall, parameters), null));
+	}
 
-		return apiResponseBuffer.toString();
+	/**
+	 * Sends an api request and returns a reader on the api response, so the
+	 * response can be parsed while it arrives. The caller has to close the
+	 * reader.
+	 * 
+	 * @param apiCall
+	 * @param parameters
+	 * @return Reader
+	 * @throws IOException
+	 */
+	public Reader openApiGetRequest(String apiCall, Map<String, String> parameters) throws IOException {
+		TransportResponse response = send("GET", apiCall, buildUrl(apiCall, parameters), null);
+		return new InputStreamReader(response.getBody(), ResponseReader.charsetOf(response.getContentType()));
 	}
 
 	public String sendApiPostRequest(String apiCall, Map<String, String> parameters) throws IOException {
-		URL url = new URL(API_URL + "/" + apiCall);
+		URL url = new URL(apiUrl + "/" + apiCall);
 
 		String urlParameters = buildGetParameterString(parameters);
 		byte[] postData = urlParameters.getBytes(StandardCharsets.UTF_8);
-		int postDataLength = postData.length;
 
-		HttpsURLConnection conn;
-		if (Console.getInstance().getProxy() == null) {
-			conn = (HttpsURLConnection) url.openConnection();
-		} else {
-			Proxy proxy = new Proxy(Proxy.Type.HTTP,
-					new InetSocketAddress(Console.getInstance().getProxy().split(":")[0],
-							Integer.parseInt(Console.getInstance().getProxy().split(":")[1])));
-			conn = (HttpsURLConnection) url.openConnection(proxy);
-		}
+		return readResponse(send("POST", apiCall, url, postData));
+	}
 
-		conn.setDoOutput(true);
-		conn.setInstanceFollowRedirects(false);
-		conn.setRequestMethod("POST");
-		conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-		conn.setRequestProperty("charset", "utf-8");
-		conn.setRequestProperty("Content-Length", Integer.toString(postDataLength));
-		conn.setUseCaches(false);
+	/**
+	 * Configures the connection pool shared by all API requests. The JDK keeps
+	 * idle HTTP connections in a process wide keep-alive cache and reads its
+	 * size once, so this has to be called before the first request is sent.
+	 * 
+	 * The idle timeout is only honoured from JDK 19 on. Older JDKs keep an
+	 * idle connection as long as the Keep-Alive header of the server allows,
+	 * or five seconds without that header.
+	 * 
+	 * @param maxIdleConnections
+	 *            - the maximum number of idle connections kept per destination
+	 * @param idleTimeoutSeconds
+	 *            - seconds an idle connection is kept before it is evicted
+	 * @see UrlConnectionTransport#configureConnectionPool(int, int)
+	 */
+	public static void configureConnectionPool(int maxIdleConnections, int idleTimeoutSeconds) {
+		UrlConnectionTransport.configureConnectionPool(maxIdleConnections, idleTimeoutSeconds);
+	}
 
-		try (DataOutputStream wr = new DataOutputStream(conn.getOutputStream())) {
-			wr.write(postData);
-		}
+	/**
+	 * Configures the connect and read timeouts of all API requests.
+	 * 
+	 * @param connectTimeout
+	 *            - the time to wait for a connection to be established
+	 * @param readTimeout
+	 *            - the time to wait for the next data of a response
+	 * @param unit
+	 *            - the unit of the timeouts
+	 * @see UrlConnectionTransport#configureTimeouts(long, long, TimeUnit)
+	 */
+	public static void configureTimeouts(long connectTimeout, long readTimeout, TimeUnit unit) {
+		UrlConnectionTransport.configureTimeouts(connectTimeout, readTimeout, unit);
+	}
 
-		InputStream is = conn.getInputStream();
-		int nextByteOfData = 0;
+	/**
+	 * Builds the url of an api call.
+	 * 
+	 * @param apiCall
+	 * @param parameters
+	 * @return URL
+	 * @throws IOException
+	 */
+	private URL buildUrl(String apiCall, Map<String, String> parameters) throws IOException {
+		String url = apiUrl + "/" + apiCall;
+		if (parameters != null) {
+			url += buildGetParameterString(parameters);
+		}
+		return new URL(url);
+	}
 
-		StringBuffer apiResponseBuffer = new StringBuffer();
+	/**
+	 * Reads the complete response. The stream is read to its end and closed so
+	 * the underlying connection can be reused by the next request.
+	 * 
+	 * @param response
+	 * @return String
+	 * @throws IOException
+	 */
+	private String readResponse(TransportResponse response) throws IOException {
+		try {
+			return ResponseReader.read(response.getBody(), response.getContentLength(),
+					ResponseReader.charsetOf(response.getContentType()));
+		} finally {
+			response.close();
+		}
+	}
 
-		while ((nextByteOfData = is.read()) != -1) {
-			apiResponseBuffer.append((char) nextByteOfData);
+	/**
+	 * Sends a request through the transport and records it in the metrics and
+	 * the flight recorder events of the api call. Fails on an error status,
+	 * the error body is consumed before the exception is thrown. The request
+	 * ends in the metrics when the returned body has been read or closed.
+	 * 
+	 * @param method
+	 *            - GET or POST
+	 * @param apiCall
+	 * @param url
+	 * @param postData
+	 *            - the form encoded body of a POST request
+	 * @return the response
+	 * @throws IOException
+	 */
+	private TransportResponse send(String method, String apiCall, URL url, byte[] postData) throws IOException {
+		CommandMetrics metrics = ApiMetrics.get(method, apiCall);
+		long bytesSent = postData == null ? 0 : postData.length;
+		final Object event = ApiEvents.beginCall(method, metrics.getCommand(), url, bytesSent);
+		long start = metrics.start();
+		TransportResponse response;
+		try {
+			response = postData == null ? getTransport().get(url)
+					: getTransport().post(url, postData, "application/x-www-form-urlencoded");
+		} catch (IOException e) {
+			metrics.failure(start, e.getClass().getSimpleName());
+			ApiEvents.endCall(event, 0, e.getClass().getSimpleName());
+			throw e;
+		} catch (RuntimeException e) {
+			metrics.failure(start, e.getClass().getSimpleName());
+			ApiEvents.endCall(event, 0, e.getClass().getSimpleName());
+			throw e;
 		}
+		ApiEvents.responseReceived(event, response.getStatusCode(), response.getConnectNanos(),
+				response.getFirstByteNanos());
 
-		is.close();
-		conn.disconnect();
+		if (response.getStatusCode() >= 400) {
+			metrics.failure(start, "HTTP " + response.getStatusCode());
+			response.discard();
+			ApiEvents.endCall(event, 0, "HTTP " + response.getStatusCode());
+			throw new ApiException("Server returned HTTP response code: " + response.getStatusCode());
+		}
 
-		return apiResponseBuffer.toString();
+		InputStream body;
+		if (event == null) {
+			body = new MeteredInputStream(response.getBody(), metrics, start, bytesSent);
+		} else {
+			body = new MeteredInputStream(response.getBody(), metrics, start, bytesSent) {
+				@Override
+				protected void ended(long bytesRead, IOException error) {
+					ApiEvents.endCall(event, bytesRead, error == null ? null : error.getClass().getSimpleName());
+				}
+			};
+		}
+		return new TransportResponse(response.getStatusCode(), response.getContentType(),
+				response.getContentLength(), body, response.getConnectNanos(), response.getFirstByteNanos());
 	}
 
 	/**
@@ -0,0 +1,169 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the asynchronous API calls. By default the calls run on
+ * virtual threads if the JDK supports them and on a fixed pool of daemon
+ * threads otherwise.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class ApiExecutors {
+
+	/** number of threads of the default pool on JDKs without virtual threads */
+	public static final int DEFAULT_POOL_SIZE = 32;
+
+	private static volatile Executor defaultExecutor;
+
+	/**
+	 * Holder class for the lazily created default executor according to the
+	 * Initialization-on-demand holder idiom.
+	 */
+	private static class Holder {
+		private static final ExecutorService INSTANCE = isVirtualThreadSupported() ? newVirtualThreadExecutor()
+				: newDaemonThreadPool(DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 * Holder class for the scheduler of the timeouts according to the
+	 * Initialization-on-demand holder idiom.
+	 */
+	private static class SchedulerHolder {
+		private static final ScheduledThreadPoolExecutor INSTANCE = newTimeoutScheduler();
+
+		private static ScheduledThreadPoolExecutor newTimeoutScheduler() {
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+				Thread thread = new Thread(runnable, "observatory-timeout");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.setRemoveOnCancelPolicy(true);
+			return scheduler;
+		}
+	}
+
+	/**
+	 * Hidden constructor for utility class.
+	 */
+	private ApiExecutors() {
+	}
+
+	/**
+	 * Completes a future exceptionally with a {@link TimeoutException} if it
+	 * is not completed before the timeout, like
+	 * {@code CompletableFuture.orTimeout} of Java 9.
+	 *
+	 * @param future
+	 *            - the future
+	 * @param timeout
+	 *            - the time to wait for the future
+	 * @param unit
+	 *            - the unit of the timeout
+	 * @param message
+	 *            - the message of the timeout exception
+	 * @return the given future
+	 */
+	public static <T> CompletableFuture<T> orTimeout(final CompletableFuture<T> future, long timeout, TimeUnit unit,
+			final String message) {
+		if (!future.isDone()) {
+			final ScheduledFuture<?> task = SchedulerHolder.INSTANCE.schedule(
+					() -> future.completeExceptionally(new TimeoutException(message)), timeout, unit);
+			future.whenComplete((result, t) -> task.cancel(false));
+		}
+		return future;
+	}
+
+	/**
+	 * Retrieve the executor used for asynchronous calls without an explicit
+	 * executor.
+	 *
+	 * @return the default executor
+	 */
+	public static Executor getDefaultExecutor() {
+		Executor executor = defaultExecutor;
+		return executor != null ? executor : Holder.INSTANCE;
+	}
+
+	/**
+	 * Sets the executor used for asynchronous calls without an explicit
+	 * executor.
+	 *
+	 * @param executor
+	 *            - the executor, null restores the default
+	 */
+	public static void setDefaultExecutor(Executor executor) {
+		defaultExecutor = executor;
+	}
+
+	/**
+	 * Does the running JDK support virtual threads?
+	 *
+	 * @return true if virtual threads are available
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return virtualThreadFactoryMethod() != null;
+	}
+
+	/**
+	 * Creates an executor starting a new virtual thread for each task.
+	 *
+	 * @return the executor
+	 * @throws UnsupportedOperationException
+	 *             if the JDK does not support virtual threads
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		Method method = virtualThreadFactoryMethod();
+		if (method == null) {
+			throw new UnsupportedOperationException("Virtual threads are not supported by this JDK.");
+		}
+
+		try {
+			return (ExecutorService) method.invoke(null);
+		} catch (IllegalAccessException e) {
+			throw new UnsupportedOperationException("Could not create virtual thread executor.", e);
+		} catch (InvocationTargetException e) {
+			throw new UnsupportedOperationException("Could not create virtual thread executor.", e.getCause());
+		}
+	}
+
+	/**
+	 * Creates a fixed thread pool of daemon threads, so pending calls do not
+	 * keep the JVM alive.
+	 *
+	 * @param threads
+	 *            - the number of threads
+	 * @return the executor
+	 */
+	public static ExecutorService newDaemonThreadPool(int threads) {
+		final AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "observatory-api-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private static Method virtualThreadFactoryMethod() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
@@ -9,15 +9,31 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import eu.toennies.javahttpobservatoryapi.bulk.BulkAssessment;
+import eu.toennies.javahttpobservatoryapi.bulk.FleetMonitor;
+import eu.toennies.javahttpobservatoryapi.bulk.GradeChange;
+import eu.toennies.javahttpobservatoryapi.bulk.HostAssessment;
+import eu.toennies.javahttpobservatoryapi.bulk.HostList;
 import eu.toennies.javahttpobservatoryapi.commands.ApiCommand;
 import eu.toennies.javahttpobservatoryapi.commands.ApiCommands;
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveTestResultsCommand;
+import eu.toennies.javahttpobservatoryapi.daemon.ConsoleDaemon;
+import eu.toennies.javahttpobservatoryapi.metrics.ApiMetrics;
+import eu.toennies.javahttpobservatoryapi.results.ScanDiff;
+import eu.toennies.javahttpobservatoryapi.results.TestResultSet;
 
 /**
  * The console class. Starting point for the programm.
@@ -76,50 +92,351 @@ public class Console {
 	 *            the console parameters given to the program
 	 */
 	public static void main(String[] args) {
-		List<String> arguments = Arrays.asList(args);
-		
-		if(arguments.contains(ApiCommand.DEFAULT_CMD_PREFIX + "h") || arguments.contains(ApiCommand.DEFAULT_LONG_CMD_PREFIX + "help")) {
-			printHelp();
+		Arguments arguments = Arguments.parse(args);
+
+		if(arguments.hasFlag(ApiCommand.DEFAULT_CMD_PREFIX + "d", ApiCommand.DEFAULT_LONG_CMD_PREFIX + "daemon")) {
+			runDaemon(arguments);
 			return;
 		}
+
+		// a single command line ends before anybody could look at the MBeans
+		if (System.getProperty(ApiMetrics.JMX_PROPERTY) == null) {
+			ApiMetrics.setJmxEnabled(false);
+		}
 		
 		PrintWriter pw = null;
+		PrintWriter err = null;
+		int status = 1;
 		try {
 			pw = new PrintWriter(new OutputStreamWriter(System.out, "UTF-8"));
-			for (ApiCommands cmds : ApiCommands.values()) {
-				ApiCommand cmd = cmds.getCommand();
-				if (cmd.shouldStart(arguments)) {
-					try {
-						JSONObject json = cmd.run(arguments);
-
-						pw.println(cmd.getHeader());
-						pw.println("");
-						pw.println(ConsoleUtilities.mapToConsoleOutput(ConsoleUtilities.jsonToMap(json)));
-						pw.flush();
-
-					} catch (JSONException e) {
-						System.err.println("Could not pars API response: " + e.getLocalizedMessage());
-					} catch (IllegalArgumentException ia) {
-						System.err.println(ia.getLocalizedMessage());
-					}
-				}
-			}
+			err = new PrintWriter(new OutputStreamWriter(System.err, "UTF-8"), true);
+			status = execute(arguments, pw, err);
 		} catch (UnsupportedEncodingException e) {
 			System.err.println("Could not write to System.out using UTF-8 encoding.");
 		} finally {
 			if (pw != null) {
 				pw.close();
 			}
+			if (err != null) {
+				err.flush();
+			}
+		}
+		if (status != 0) {
+			System.exit(status);
+		}
+	}
+
+	/**
+	 * Executes a command line, writing the results and the errors to the
+	 * given writers instead of System.out and System.err. The writers are
+	 * flushed but not closed.
+	 * 
+	 * @param arguments
+	 *            the console parameters
+	 * @param pw
+	 *            the writer to print the results to
+	 * @param err
+	 *            the writer to print the errors to
+	 * @return the exit status, 0 if every command succeeded and 1 if any
+	 *         command reported an error
+	 */
+	public static int execute(Arguments arguments, PrintWriter pw, PrintWriter err) {
+		int status = 0;
+		if(arguments.hasFlag(ApiCommand.DEFAULT_CMD_PREFIX + "h", ApiCommand.DEFAULT_LONG_CMD_PREFIX + "help")) {
+			new HelpFormatter(pw).printHelp(ApiCommands.values());
+		} else if(arguments.hasFlag(ApiCommand.DEFAULT_CMD_PREFIX + "b", ApiCommand.DEFAULT_LONG_CMD_PREFIX + "bulk")) {
+			status = runBulkAssessment(arguments, pw, err);
+		} else if(arguments.hasFlag(ApiCommand.DEFAULT_CMD_PREFIX + "w", ApiCommand.DEFAULT_LONG_CMD_PREFIX + "watch")) {
+			status = runFleetMonitor(arguments, pw, err);
+		} else if(arguments.hasFlag(ApiCommand.DEFAULT_CMD_PREFIX + "df", ApiCommand.DEFAULT_LONG_CMD_PREFIX + "diff")) {
+			status = runScanDiff(arguments, pw, err);
+		} else {
+			status = runCommands(arguments, pw, err);
+		}
+		pw.flush();
+		err.flush();
+		return status;
+	}
+
+	/**
+	 * Starts the daemon on the port given by the port argument. The process
+	 * keeps running until it is killed.
+	 * 
+	 * @param arguments
+	 *            the console parameters given to the program
+	 */
+	private static void runDaemon(Arguments arguments) {
+		try {
+			ConsoleDaemon daemon = new ConsoleDaemon(
+					(int) arguments.getLong("port", ConsoleDaemon.DEFAULT_PORT)).start();
+			System.err.println("Observatory daemon listening on port " + daemon.getPort());
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getLocalizedMessage());
+		} catch (IOException e) {
+			System.err.println("Could not start daemon: " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Runs all commands matching the arguments. If more than one command
+	 * matches, the commands are sent concurrently on the default executor,
+	 * except the commands reading the scan of the host, which wait until
+	 * {@link ApiCommands#INVOKE_ASSESSMENT} has completed. The results are
+	 * printed in the order of {@link ApiCommands}, each as soon as it and all
+	 * results before it are available.
+	 * 
+	 * @param arguments
+	 *            the console parameters given to the program
+	 * @param pw
+	 *            the writer to print the results to
+	 * @param err
+	 *            the writer to print the errors to
+	 * @return 0 if every command succeeded, 1 if a call failed or the API
+	 *         answered with an error
+	 */
+	static int runCommands(Arguments arguments, PrintWriter pw, PrintWriter err) {
+		List<ApiCommands> matched = new ArrayList<ApiCommands>();
+		List<ApiCommand> commands = new ArrayList<ApiCommand>();
+		for (ApiCommands cmds : ApiCommands.values()) {
+			if (cmds.shouldStart(arguments)) {
+				matched.add(cmds);
+				commands.add(cmds.getCommand());
+			}
 		}
+
+		List<CompletableFuture<JSONObject>> results = new ArrayList<CompletableFuture<JSONObject>>(commands.size());
+		if (commands.size() > 1) {
+			final Executor executor = ApiExecutors.getDefaultExecutor();
+			// INVOKE_ASSESSMENT is listed before the commands waiting for it
+			CompletableFuture<?> invoked = CompletableFuture.completedFuture(null);
+			for (int i = 0; i < commands.size(); i++) {
+				final ApiCommand cmd = commands.get(i);
+				CompletableFuture<JSONObject> result;
+				if (matched.get(i).readsInvokedScan()) {
+					// runs after the invoke even if it failed, the error of the invoke is printed on its own
+					result = invoked.handle((json, e) -> null)
+							.thenCompose(ignored -> cmd.executeAsync(arguments, executor));
+				} else {
+					result = cmd.executeAsync(arguments, executor);
+				}
+				if (matched.get(i) == ApiCommands.INVOKE_ASSESSMENT) {
+					invoked = result;
+				}
+				results.add(result);
+			}
+		}
+
+		int status = 0;
+		ConsoleRenderer renderer = new ConsoleRenderer(pw);
+		for (int i = 0; i < commands.size(); i++) {
+			ApiCommand cmd = commands.get(i);
+			try {
+				JSONObject json = results.isEmpty() ? cmd.request(arguments) : join(results.get(i));
+				if (json.has("error")) {
+					status = 1;
+				}
+
+				renderer.println(cmd.getHeader());
+				renderer.println("");
+				renderer.render(json);
+				pw.println();
+				pw.flush();
+
+			} catch (JSONException e) {
+				err.println("Could not parse API response: " + e.getLocalizedMessage());
+				status = 1;
+			} catch (IllegalArgumentException ia) {
+				err.println(ia.getLocalizedMessage());
+				status = 1;
+			} catch (IOException e) {
+				err.println("Could not send API request: " + e.getLocalizedMessage());
+				status = 1;
+			}
+		}
+		return status;
 	}
 
-	private static void printHelp() {
+	/**
+	 * Waits for an asynchronous command and rethrows its exception.
+	 * 
+	 * @param result
+	 *            the running command
+	 * @return the api response
+	 * @throws IOException
+	 *             if the call failed
+	 */
+	private static JSONObject join(CompletableFuture<JSONObject> result) throws IOException {
 		try {
-			HelpFormatter hf = new HelpFormatter(new PrintWriter(new OutputStreamWriter(System.out, "UTF-8")));
-			hf.printHelp(ApiCommands.values());
-		} catch(UnsupportedEncodingException e) {
-			e.printStackTrace();
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Assesses all hosts of the file given by the hosts argument, one host per
+	 * line.
+	 * 
+	 * @param arguments
+	 *            the console parameters given to the program
+	 * @param out
+	 *            the writer to print the results to
+	 * @param err
+	 *            the writer to print the errors and the progress to
+	 * @return 0 if every host has been assessed, 1 if a host could not be
+	 *         assessed in time or the bulk assessment failed
+	 */
+	private static int runBulkAssessment(Arguments arguments, final PrintWriter out, final PrintWriter err) {
+		String hostFile = arguments.get("hosts");
+		if (hostFile == null) {
+			err.println("The mandatory argument hosts is not given.");
+			return 1;
+		}
+
+		BulkAssessment bulk;
+		try {
+			bulk = new BulkAssessment(
+					(int) arguments.getLong("concurrency", BulkAssessment.DEFAULT_CONCURRENCY),
+					arguments.getLong("timeout", BulkAssessment.DEFAULT_HOST_TIMEOUT_SECONDS), TimeUnit.SECONDS);
+		} catch (IllegalArgumentException e) {
+			err.println(e.getLocalizedMessage());
+			return 1;
+		}
+		bulk.setRescan(arguments.hasFlag("rescan"));
+		bulk.setHidden(arguments.hasFlag("hidden"));
+
+		final AtomicBoolean failed = new AtomicBoolean();
+		try {
+			List<String> hosts = HostList.read(new File(hostFile)).getHosts();
+			final ConsoleRenderer renderer = new ConsoleRenderer(out);
+			bulk.assess(hosts, new BulkAssessment.Listener() {
+				@Override
+				public void onAssessment(HostAssessment assessment) {
+					if (assessment.getStatus() == HostAssessment.Status.ERROR
+							|| assessment.getStatus() == HostAssessment.Status.TIMEOUT) {
+						failed.set(true);
+					}
+					renderer.println(assessment.getHost() + " (" + assessment.getStatus() + ")");
+					renderer.println("");
+					try {
+						if (assessment.getError() != null) {
+							renderer.render("error", assessment.getError());
+						}
+						renderer.render(assessment.getAssessment());
+					} catch (JSONException e) {
+						err.println("Could not parse API response: " + e.getLocalizedMessage());
+						failed.set(true);
+					}
+					out.println();
+					out.flush();
+				}
+
+				@Override
+				public void onProgress(int completed, int total, double hostsPerSecond) {
+					err.println(String.format("%d/%d hosts assessed (%.2f hosts/s)", completed, total, hostsPerSecond));
+				}
+			});
+		} catch (IOException e) {
+			err.println("Could not read hosts file: " + e.getLocalizedMessage());
+			return 1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return 1;
+		}
+		return failed.get() ? 1 : 0;
+	}
+
+	/**
+	 * Watches all hosts of the file given by the hosts argument and prints
+	 * the changes of their grades until the thread is interrupted.
+	 * 
+	 * @param arguments
+	 *            the console parameters given to the program
+	 * @param out
+	 *            the writer to print the changes to
+	 * @param err
+	 *            the writer to print the errors to
+	 * @return 1, the monitor only ends on an error or when interrupted
+	 */
+	private static int runFleetMonitor(Arguments arguments, final PrintWriter out, final PrintWriter err) {
+		String hostFile = arguments.get("hosts");
+		if (hostFile == null) {
+			err.println("The mandatory argument hosts is not given.");
+			return 1;
+		}
+
+		try {
+			FleetMonitor monitor = new FleetMonitor(HostList.read(new File(hostFile)).getHosts(),
+					(int) arguments.getLong("concurrency", BulkAssessment.DEFAULT_CONCURRENCY),
+					arguments.getLong("interval", FleetMonitor.DEFAULT_INTERVAL_SECONDS), TimeUnit.SECONDS,
+					arguments.hasFlag("hidden"));
+			monitor.watch(new FleetMonitor.Listener() {
+				@Override
+				public void onChange(GradeChange change) {
+					out.println(change);
+					out.flush();
+				}
+
+				@Override
+				public void onError(String host, String error) {
+					err.println(host + ": " + error);
+				}
+			});
+		} catch (IllegalArgumentException e) {
+			err.println(e.getLocalizedMessage());
+		} catch (IOException e) {
+			err.println("Could not read hosts file: " + e.getLocalizedMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return 1;
+	}
+
+	/**
+	 * Prints the tests that changed between the scans given by the from and
+	 * to arguments.
+	 * 
+	 * @param arguments
+	 *            the console parameters given to the program
+	 * @param out
+	 *            the writer to print the changes to
+	 * @param err
+	 *            the writer to print the errors to
+	 * @return 0 if the scans have been compared, 1 otherwise
+	 */
+	private static int runScanDiff(Arguments arguments, PrintWriter out, PrintWriter err) {
+		String from = arguments.get("from");
+		String to = arguments.get("to");
+		if (from == null || to == null) {
+			err.println("The mandatory arguments from and to are not given.");
+			return 1;
+		}
+
+		try {
+			RetrieveTestResultsCommand command = (RetrieveTestResultsCommand) ApiCommands.RETRIEVE_TEST_RESULT
+					.getCommand();
+			TestResultSet before = command.getTestResults(Arguments.parse("id=" + from));
+			TestResultSet after = command.getTestResults(Arguments.parse("id=" + to));
+			ScanDiff diff = ScanDiff.compare(before, after);
+			if (diff.isEmpty()) {
+				out.println("No test has changed.");
+			} else {
+				out.print(diff);
+			}
+		} catch (IllegalArgumentException e) {
+			err.println(e.getLocalizedMessage());
+			return 1;
+		} catch (IOException e) {
+			err.println("Could not retrieve test results: " + e.getLocalizedMessage());
+			return 1;
 		}
+		return 0;
 	}
 
 	/**
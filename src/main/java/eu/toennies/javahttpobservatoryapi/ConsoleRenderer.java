@@ -0,0 +1,157 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import java.io.PrintWriter;
+import java.util.Iterator;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Writes api responses to the console, one "key = value" line per member.
+ * Nested objects and arrays are written like maps and lists, e.g.
+ * {name=cookies, pass=true}. The response is walked and written as it goes
+ * instead of being converted and built as a string first. The output is
+ * collected in a fixed buffer and handed to the writer, which is flushed,
+ * whenever the buffer is full, so the output starts immediately.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ConsoleRenderer {
+
+	/** default number of characters buffered between two flushes */
+	public static final int DEFAULT_FLUSH_INTERVAL = 8192;
+
+	private static final String NEW_LINE = "\n";
+
+	private final PrintWriter out;
+	private final char[] buffer;
+	private int buffered = 0;
+
+	/**
+	 * Constructor for a renderer flushing every
+	 * {@link #DEFAULT_FLUSH_INTERVAL} characters.
+	 *
+	 * @param out
+	 *            - the writer to render to
+	 */
+	public ConsoleRenderer(final PrintWriter out) {
+		this(out, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	/**
+	 * Constructor for a new renderer.
+	 *
+	 * @param out
+	 *            - the writer to render to
+	 * @param flushInterval
+	 *            - the number of characters buffered between two flushes
+	 */
+	public ConsoleRenderer(final PrintWriter out, final int flushInterval) {
+		if (flushInterval < 1) {
+			throw new IllegalArgumentException("The flush interval must be positive.");
+		}
+		this.out = out;
+		this.buffer = new char[flushInterval];
+	}
+
+	/**
+	 * Writes every member of the json object as a "key = value" line and
+	 * flushes the writer.
+	 *
+	 * @param json
+	 *            - the api response, nothing is written for null
+	 * @throws JSONException
+	 */
+	public void render(JSONObject json) throws JSONException {
+		if (json != null) {
+			for (Iterator<?> it = json.keys(); it.hasNext();) {
+				String key = (String) it.next();
+				render(key, json.get(key));
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Writes a single "key = value" line.
+	 *
+	 * @param key
+	 *            - the key
+	 * @param value
+	 *            - the value, a json object or array, or a plain value
+	 * @throws JSONException
+	 */
+	public void render(String key, Object value) throws JSONException {
+		write(key);
+		write(" = ");
+		writeValue(value);
+		write(NEW_LINE);
+	}
+
+	/**
+	 * Writes a line.
+	 *
+	 * @param line
+	 *            - the line
+	 */
+	public void println(String line) {
+		write(line);
+		write(NEW_LINE);
+	}
+
+	/**
+	 * Flushes everything written so far.
+	 */
+	public void flush() {
+		out.write(buffer, 0, buffered);
+		out.flush();
+		buffered = 0;
+	}
+
+	private void writeValue(Object value) throws JSONException {
+		if (value instanceof JSONObject) {
+			JSONObject object = (JSONObject) value;
+			write("{");
+			boolean first = true;
+			for (Iterator<?> it = object.keys(); it.hasNext();) {
+				String key = (String) it.next();
+				if (!first) {
+					write(", ");
+				}
+				first = false;
+				write(key);
+				write("=");
+				writeValue(object.get(key));
+			}
+			write("}");
+		} else if (value instanceof JSONArray) {
+			JSONArray array = (JSONArray) value;
+			write("[");
+			for (int i = 0; i < array.length(); i++) {
+				if (i > 0) {
+					write(", ");
+				}
+				writeValue(array.get(i));
+			}
+			write("]");
+		} else {
+			write(String.valueOf(value));
+		}
+	}
+
+	private void write(String s) {
+		int offset = 0;
+		int length = s.length();
+		while (offset < length) {
+			int count = Math.min(length - offset, buffer.length - buffered);
+			s.getChars(offset, offset + count, buffer, buffered);
+			buffered += count;
+			offset += count;
+			if (buffered == buffer.length) {
+				flush();
+			}
+		}
+	}
+}
@@ -156,7 +156,10 @@ public class HelpFormatter {
 	public void printHelp(ApiCommands[] commands) {
 		String jarName = "java-http-observatory-api-" + Api.getVersion() + ".jar";
 		String jarExecution = "java -jar " + jarName;
-		String footer = "If you need to use a proxy, please create a file called \"proxy\" in program directory and fill with one line containing proxy ip:port";
+		String footer = "To assess a list of hosts use -b, --bulk <hosts=file> [concurrency=n] [timeout=seconds] [rescan] [hidden], the file contains one host per line.\n"
+				+ "To print only the grade changes of a list of hosts use -w, --watch <hosts=file> [interval=seconds] [concurrency=n] [hidden].\n"
+				+ "To compare the test results of two scans use -df, --diff <from=scan_id> <to=scan_id>.\n"
+				+ "If you need to use a proxy, please create a file called \"proxy\" in program directory and fill with one line containing proxy ip:port";
 
 		printHelp(getWidth(), jarExecution, getHeader(), commands, footer);
 	}
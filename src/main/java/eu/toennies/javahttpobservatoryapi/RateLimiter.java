@@ -0,0 +1,174 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side rate limiter for the API. Every API endpoint can be limited by
+ * its own token bucket, endpoints without a limit are not throttled. In
+ * addition the limiter remembers hosts which have been rescanned recently, so
+ * a rescan the API would reject with rescan-attempt-too-soon is not sent at
+ * all.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class RateLimiter {
+
+	/** time between two rescans of the same host */
+	public static final long DEFAULT_RESCAN_COOLDOWN_SECONDS = 300;
+
+	/** the cooldown table is cleaned up when it grows beyond this size */
+	private static final int COOLDOWN_CLEANUP_SIZE = 10000;
+
+	/**
+	 * Holder class for singelton according to the Initialization-on-demand
+	 * holder idiom.
+	 */
+	private static class Holder {
+		private static final RateLimiter INSTANCE = new RateLimiter();
+	}
+
+	/**
+	 * A token bucket refilled continuously with a fixed rate. Tokens may be
+	 * borrowed from the future, callers then wait until their token has been
+	 * refilled. This keeps the order of the callers.
+	 */
+	private static class TokenBucket {
+		private final double permitsPerNano;
+		private final double capacity;
+		private double tokens;
+		private long lastRefill;
+
+		TokenBucket(double permitsPerSecond, int burst) {
+			this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+			this.capacity = burst;
+			this.tokens = burst;
+			this.lastRefill = System.nanoTime();
+		}
+
+		/**
+		 * Takes a token.
+		 *
+		 * @return the nanoseconds to wait until the token is available
+		 */
+		synchronized long reserve() {
+			long now = System.nanoTime();
+			tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+			lastRefill = now;
+
+			tokens -= 1;
+			return tokens >= 0 ? 0 : (long) (-tokens / permitsPerNano);
+		}
+	}
+
+	private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+	private final ConcurrentMap<String, Long> cooldowns = new ConcurrentHashMap<String, Long>();
+	private volatile long rescanCooldownMillis = TimeUnit.SECONDS.toMillis(DEFAULT_RESCAN_COOLDOWN_SECONDS);
+
+	/**
+	 * Get the rate limiter used by all API commands.
+	 *
+	 * @return the singelton rate limiter
+	 */
+	public static RateLimiter getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Limits the requests to an API endpoint.
+	 *
+	 * @param apiCommand
+	 *            - the API command, e.g. analyze or getScanResults
+	 * @param permitsPerSecond
+	 *            - the sustained number of requests per second
+	 * @param burst
+	 *            - the number of requests which may be sent at once
+	 */
+	public void setLimit(String apiCommand, double permitsPerSecond, int burst) {
+		if (permitsPerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("Rate and burst must be positive.");
+		}
+		buckets.put(apiCommand, new TokenBucket(permitsPerSecond, burst));
+	}
+
+	/**
+	 * Removes the limit of an API endpoint.
+	 *
+	 * @param apiCommand
+	 *            - the API command
+	 */
+	public void removeLimit(String apiCommand) {
+		buckets.remove(apiCommand);
+	}
+
+	/**
+	 * Blocks until a request to the API endpoint may be sent.
+	 *
+	 * @param apiCommand
+	 *            - the API command
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while waiting
+	 */
+	public void acquire(String apiCommand) throws InterruptedException {
+		TokenBucket bucket = buckets.get(apiCommand);
+		if (bucket == null) {
+			return;
+		}
+
+		long wait = bucket.reserve();
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+
+	/**
+	 * @param cooldown
+	 *            - the time between two rescans of the same host
+	 * @param unit
+	 *            - the unit of the cooldown
+	 */
+	public void setRescanCooldown(long cooldown, TimeUnit unit) {
+		this.rescanCooldownMillis = unit.toMillis(cooldown);
+	}
+
+	/**
+	 * Would a rescan of the host be rejected by the API?
+	 *
+	 * @param host
+	 *            - the host
+	 * @return true if the host has been rescanned within the cooldown
+	 */
+	public boolean isRescanCoolingDown(String host) {
+		Long until = cooldowns.get(host);
+		if (until == null) {
+			return false;
+		}
+		if (until.longValue() <= System.currentTimeMillis()) {
+			cooldowns.remove(host, until);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Remembers a rescan of the host.
+	 *
+	 * @param host
+	 *            - the rescanned host
+	 */
+	public void startRescanCooldown(String host) {
+		long now = System.currentTimeMillis();
+		if (cooldowns.size() > COOLDOWN_CLEANUP_SIZE) {
+			for (Iterator<Map.Entry<String, Long>> it = cooldowns.entrySet().iterator(); it.hasNext();) {
+				if (it.next().getValue().longValue() <= now) {
+					it.remove();
+				}
+			}
+		}
+		cooldowns.put(host, now + rescanCooldownMillis);
+	}
+}
@@ -0,0 +1,202 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+
+/**
+ * A bounded in-memory cache for API responses. Entries expire after a time to
+ * live depending on the scan state of the response: finished scans are kept
+ * long, scans still running only very briefly. When the cache is full the
+ * least recently used entry is evicted.
+ *
+ * The cached json objects are shared between all callers and must not be
+ * modified.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ResponseCache {
+
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/** time to live for responses without a scan state */
+	public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * A cached response.
+	 */
+	private static final class CachedResponse {
+		private final JSONObject value;
+		private final long expires;
+
+		CachedResponse(JSONObject value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+	}
+
+	private final Map<String, CachedResponse> entries;
+	private final Map<String, Long> stateTtls = new HashMap<String, Long>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private volatile long defaultTtlMillis = DEFAULT_TTL_MILLIS;
+
+	public ResponseCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Constructor for a new cache.
+	 *
+	 * @param maxEntries
+	 *            - the maximum number of cached responses
+	 */
+	public ResponseCache(final int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("The cache size must be positive.");
+		}
+		this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+			private static final long serialVersionUID = 4021537186346316163L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+				return size() > maxEntries;
+			}
+		};
+
+		setStateTtl("FINISHED", 1, TimeUnit.HOURS);
+		setStateTtl("FAILED", 5, TimeUnit.MINUTES);
+		setStateTtl("ABORTED", 5, TimeUnit.MINUTES);
+		setStateTtl("PENDING", 5, TimeUnit.SECONDS);
+		setStateTtl("STARTING", 5, TimeUnit.SECONDS);
+		setStateTtl("RUNNING", 5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Sets the time to live of responses with the given scan state.
+	 *
+	 * @param state
+	 *            - the scan state, e.g. FINISHED or RUNNING
+	 * @param ttl
+	 *            - the time to live, 0 disables caching for the state
+	 * @param unit
+	 *            - the unit of the time to live
+	 */
+	public synchronized void setStateTtl(String state, long ttl, TimeUnit unit) {
+		stateTtls.put(state, Long.valueOf(unit.toMillis(ttl)));
+	}
+
+	/**
+	 * Sets the time to live of responses without a scan state.
+	 *
+	 * @param ttl
+	 *            - the time to live, 0 disables caching of those responses
+	 * @param unit
+	 *            - the unit of the time to live
+	 */
+	public void setDefaultTtl(long ttl, TimeUnit unit) {
+		this.defaultTtlMillis = unit.toMillis(ttl);
+	}
+
+	/**
+	 * Retrieve a cached response.
+	 *
+	 * @param key
+	 *            - the request key
+	 * @return the response or null if nothing valid is cached
+	 */
+	public synchronized JSONObject get(String key) {
+		CachedResponse entry = entries.get(key);
+		if (entry != null && entry.expires > System.currentTimeMillis()) {
+			hits.incrementAndGet();
+			return entry.value;
+		}
+
+		if (entry != null) {
+			entries.remove(key);
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Caches a response. Error responses are never cached.
+	 *
+	 * @param key
+	 *            - the request key
+	 * @param apiCommand
+	 *            - the API command of the request
+	 * @param value
+	 *            - the response
+	 */
+	public synchronized void put(String key, String apiCommand, JSONObject value) {
+		long ttl = ttlOf(apiCommand, value);
+		if (ttl <= 0) {
+			entries.remove(key);
+			return;
+		}
+		entries.put(key, new CachedResponse(value, System.currentTimeMillis() + ttl));
+	}
+
+	/**
+	 * Removes a cached response.
+	 *
+	 * @param key
+	 *            - the request key
+	 */
+	public synchronized void invalidate(String key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return the number of cached responses, including expired ones not yet
+	 *         evicted
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of lookups answered from the cache
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of lookups not answered from the cache
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	private long ttlOf(String apiCommand, JSONObject value) {
+		if (value.has("error")) {
+			return 0;
+		}
+
+		String state = value.optString("state", null);
+		if (state == null && "getScanResults".equals(apiCommand)) {
+			// test results only exist for finished scans and never change
+			state = "FINISHED";
+		}
+		if (state == null) {
+			return defaultTtlMillis;
+		}
+
+		Long ttl = stateTtls.get(state);
+		return ttl != null ? ttl.longValue() : defaultTtlMillis;
+	}
+}
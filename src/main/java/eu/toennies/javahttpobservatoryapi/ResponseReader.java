@@ -0,0 +1,116 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads API responses in bulk. The read buffers are taken from a small pool
+ * shared by all threads, so reading a response usually allocates nothing but
+ * the resulting string. The pool is bounded by the number of processors, not
+ * by the number of threads, so thousands of virtual threads do not each keep
+ * a buffer.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class ResponseReader {
+
+	/** initial size of a read buffer */
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/** buffers growing beyond this size are not kept for the next response */
+	private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * a larger content length is not trusted, the buffer grows as the data
+	 * arrives
+	 */
+	private static final int MAX_INITIAL_BUFFER_SIZE = 1024 * 1024;
+
+	private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<byte[]>(
+			2 * Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Hidden constructor for utility class.
+	 */
+	private ResponseReader() {
+	}
+
+	/**
+	 * Reads the stream to its end and decodes it with the given charset. The
+	 * stream is not closed.
+	 *
+	 * @param is
+	 *            - the stream to read
+	 * @param contentLength
+	 *            - the expected length in bytes or -1 if unknown
+	 * @param charset
+	 *            - the charset of the response
+	 * @return the decoded response
+	 * @throws IOException
+	 */
+	public static String read(InputStream is, long contentLength, Charset charset) throws IOException {
+		byte[] buffer;
+		if (contentLength > MAX_POOLED_BUFFER_SIZE) {
+			// one byte more, so reading the end of the stream does not grow it
+			buffer = new byte[(int) Math.min(contentLength, MAX_INITIAL_BUFFER_SIZE) + 1];
+		} else {
+			buffer = BUFFERS.poll();
+			if (buffer == null) {
+				buffer = new byte[DEFAULT_BUFFER_SIZE];
+			}
+			if (contentLength >= buffer.length) {
+				BUFFERS.offer(buffer);
+				buffer = new byte[(int) contentLength + 1];
+			}
+		}
+
+		int length = 0;
+		int read;
+		while ((read = is.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+			if (length == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+		}
+
+		String response = new String(buffer, 0, length, charset);
+		if (buffer.length <= MAX_POOLED_BUFFER_SIZE) {
+			BUFFERS.offer(buffer);
+		}
+		return response;
+	}
+
+	/**
+	 * Retrieve the charset of a content type header. JSON defaults to UTF-8.
+	 *
+	 * @param contentType
+	 *            - the content type header, may be null
+	 * @return the charset
+	 */
+	public static Charset charsetOf(String contentType) {
+		if (contentType != null) {
+			for (String param : contentType.split(";")) {
+				String trimmed = param.trim();
+				if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+					String name = trimmed.substring(8).replace("\"", "").trim();
+					try {
+						return Charset.forName(name);
+					} catch (IllegalCharsetNameException e) {
+						break;
+					} catch (UnsupportedCharsetException e) {
+						break;
+					}
+				}
+			}
+		}
+		return StandardCharsets.UTF_8;
+	}
+}
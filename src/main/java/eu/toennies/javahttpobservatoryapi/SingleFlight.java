@@ -0,0 +1,70 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key. The first caller of a key runs
+ * the call, every caller arriving while it is in flight waits for it and gets
+ * the same result. Once the call has finished the next caller starts a new
+ * one.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ * @param <K>
+ *            the type of the keys
+ * @param <V>
+ *            the type of the results
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+	/**
+	 * Runs the call or joins the call already in flight for the key.
+	 *
+	 * @param key
+	 *            - the key identifying the call
+	 * @param call
+	 *            - the call to run
+	 * @return the result of the call
+	 */
+	public V execute(K key, Supplier<V> call) {
+		CompletableFuture<V> own = new CompletableFuture<V>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+		if (running != null) {
+			try {
+				return running.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		try {
+			V result = call.get();
+			own.complete(result);
+			return result;
+		} catch (RuntimeException e) {
+			own.completeExceptionally(e);
+			throw e;
+		} catch (Error e) {
+			own.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, own);
+		}
+	}
+
+	/**
+	 * @return the number of calls currently in flight
+	 */
+	public int size() {
+		return inFlight.size();
+	}
+}
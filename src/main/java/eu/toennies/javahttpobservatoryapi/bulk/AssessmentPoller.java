@@ -0,0 +1,275 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+import eu.toennies.javahttpobservatoryapi.ApiExecutors;
+import eu.toennies.javahttpobservatoryapi.commands.ApiCommand;
+import eu.toennies.javahttpobservatoryapi.commands.ApiCommands;
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+
+/**
+ * Tracks pending scans until they reach a final state. All scans share one
+ * scheduler thread, the polls themselves are sent on an executor. The poll
+ * interval depends on the state of the scan and grows while the state does
+ * not change.
+ *
+ * Final states are FINISHED, FAILED and ABORTED as reported by the scanner
+ * states call.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class AssessmentPoller {
+
+	/** first poll delay for scans in the PENDING or STARTING state */
+	public static final long DEFAULT_PENDING_DELAY_MILLIS = 10000;
+
+	/** first poll delay for scans in the RUNNING state */
+	public static final long DEFAULT_RUNNING_DELAY_MILLIS = 3000;
+
+	/** the poll delay never grows beyond this value */
+	public static final long DEFAULT_MAX_DELAY_MILLIS = 60000;
+
+	/** factor applied to the delay while a scan stays in the same state */
+	private static final double BACKOFF_FACTOR = 1.5;
+
+	/** number of failed polls in a row before a scan is given up */
+	private static final int MAX_FAILED_POLLS = 5;
+
+	/**
+	 * Holder class for the shared poller according to the
+	 * Initialization-on-demand holder idiom.
+	 */
+	private static class Holder {
+		private static final AssessmentPoller INSTANCE = new AssessmentPoller();
+	}
+
+	/**
+	 * A scan tracked by the poller.
+	 */
+	private static class PendingScan {
+		private final String host;
+		private final Arguments arguments;
+		private final long deadline;
+		private final CompletableFuture<JSONObject> future = new CompletableFuture<JSONObject>();
+		private Executor executor;
+		private String state;
+		private long delay;
+		private int failedPolls;
+		private IOException lastError;
+
+		PendingScan(String host, long deadline) {
+			this.host = host;
+			this.deadline = deadline;
+			this.arguments = Arguments.parse("host=" + host);
+		}
+	}
+
+	private final ScheduledThreadPoolExecutor scheduler;
+	private final Executor executor;
+	private final AtomicInteger pending = new AtomicInteger();
+	private volatile long pendingDelayMillis = DEFAULT_PENDING_DELAY_MILLIS;
+	private volatile long runningDelayMillis = DEFAULT_RUNNING_DELAY_MILLIS;
+	private volatile long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+
+	public AssessmentPoller() {
+		this(ApiExecutors.getDefaultExecutor());
+	}
+
+	/**
+	 * Constructor for a new poller.
+	 *
+	 * @param executor
+	 *            - the executor sending the poll requests
+	 */
+	public AssessmentPoller(final Executor executor) {
+		this.executor = executor;
+		this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "observatory-poller");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Get the shared poller.
+	 *
+	 * @return the poller shared by all callers
+	 */
+	public static AssessmentPoller getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Sets the poll delays.
+	 *
+	 * @param pendingDelay
+	 *            - first delay for PENDING and STARTING scans
+	 * @param runningDelay
+	 *            - first delay for RUNNING scans
+	 * @param maxDelay
+	 *            - upper bound of the growing delay
+	 * @param unit
+	 *            - the unit of the delays
+	 */
+	public void setDelays(long pendingDelay, long runningDelay, long maxDelay, TimeUnit unit) {
+		this.pendingDelayMillis = unit.toMillis(pendingDelay);
+		this.runningDelayMillis = unit.toMillis(runningDelay);
+		this.maxDelayMillis = unit.toMillis(maxDelay);
+	}
+
+	/**
+	 * Retrieve the number of scans currently tracked.
+	 *
+	 * @return the number of pending scans
+	 */
+	public int getPendingCount() {
+		return pending.get();
+	}
+
+	/**
+	 * Tracks the scan of a host until it reaches a final state.
+	 *
+	 * @param host
+	 *            - the scanned host
+	 * @param scan
+	 *            - the scan object returned by the invoke assessment call
+	 * @param timeout
+	 *            - the maximum time to wait for a final state
+	 * @param unit
+	 *            - the unit of the timeout
+	 * @return a future completed with the final scan object, or exceptionally
+	 *         with a TimeoutException or an ApiException
+	 */
+	public CompletableFuture<JSONObject> track(String host, JSONObject scan, long timeout, TimeUnit unit) {
+		return track(host, scan, timeout, unit, executor);
+	}
+
+	/**
+	 * Tracks the scan of a host until it reaches a final state, sending its
+	 * polls on the given executor.
+	 *
+	 * @param host
+	 *            - the scanned host
+	 * @param scan
+	 *            - the scan object returned by the invoke assessment call
+	 * @param timeout
+	 *            - the maximum time to wait for a final state
+	 * @param unit
+	 *            - the unit of the timeout
+	 * @param pollExecutor
+	 *            - the executor sending the poll requests of this scan
+	 * @return a future completed with the final scan object, or exceptionally
+	 *         with a TimeoutException or an ApiException
+	 */
+	public CompletableFuture<JSONObject> track(String host, JSONObject scan, long timeout, TimeUnit unit,
+			Executor pollExecutor) {
+		PendingScan pendingScan = new PendingScan(host, System.currentTimeMillis() + unit.toMillis(timeout));
+		pendingScan.executor = pollExecutor;
+		pending.incrementAndGet();
+		pendingScan.future.whenComplete((result, t) -> pending.decrementAndGet());
+
+		handle(pendingScan, scan);
+		return pendingScan.future;
+	}
+
+	/**
+	 * Stops the scheduler. Scans still tracked are never completed.
+	 */
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	private void handle(PendingScan scan, JSONObject json) {
+		if (json == null) {
+			if (++scan.failedPolls >= MAX_FAILED_POLLS) {
+				scan.future.completeExceptionally(
+						new ApiException("Could not retrieve assessment of " + scan.host, scan.lastError));
+				return;
+			}
+			schedule(scan, scan.state);
+			return;
+		}
+
+		if (json.has("error")) {
+			scan.future.completeExceptionally(new ApiException(json.optString("error")));
+			return;
+		}
+
+		String state = json.optString("state");
+		if ("FINISHED".equals(state) || "FAILED".equals(state) || "ABORTED".equals(state)) {
+			scan.future.complete(json);
+			return;
+		}
+
+		scan.failedPolls = 0;
+		schedule(scan, state);
+	}
+
+	private void schedule(final PendingScan scan, String state) {
+		long remaining = scan.deadline - System.currentTimeMillis();
+		if (remaining <= 0) {
+			scan.future.completeExceptionally(
+					new TimeoutException("Scan of " + scan.host + " still " + scan.state + " after timeout."));
+			return;
+		}
+
+		long delay = Math.min(nextDelay(scan, state), remaining);
+
+		try {
+			scheduler.schedule(() -> dispatch(scan), delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			scan.future.completeExceptionally(e);
+		}
+	}
+
+	private void dispatch(final PendingScan scan) {
+		try {
+			scan.executor.execute(() -> poll(scan));
+		} catch (RejectedExecutionException e) {
+			scan.future.completeExceptionally(e);
+		}
+	}
+
+	private void poll(PendingScan scan) {
+		try {
+			ApiCommand retrieve = ApiCommands.RETRIEVE_ASSESSMENT.getCommand();
+			JSONObject json;
+			try {
+				json = retrieve.request(scan.arguments);
+			} catch (IOException e) {
+				// retried until too many polls in a row have failed
+				scan.lastError = e;
+				json = null;
+			}
+			handle(scan, json);
+		} catch (RuntimeException e) {
+			scan.future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Calculates the delay until the next poll. The delay starts at the
+	 * initial delay of the state and grows while the state does not change.
+	 */
+	private long nextDelay(PendingScan scan, String state) {
+		if (scan.delay == 0 || state == null || !state.equals(scan.state)) {
+			scan.state = state;
+			scan.delay = "RUNNING".equals(state) ? runningDelayMillis : pendingDelayMillis;
+		} else {
+			scan.delay = Math.min(maxDelayMillis, (long) (scan.delay * BACKOFF_FACTOR));
+		}
+		return scan.delay;
+	}
+}
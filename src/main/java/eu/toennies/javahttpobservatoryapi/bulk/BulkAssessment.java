@@ -0,0 +1,241 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+
+import eu.toennies.javahttpobservatoryapi.ApiExecutors;
+import eu.toennies.javahttpobservatoryapi.bulk.HostAssessment.Status;
+import eu.toennies.javahttpobservatoryapi.commands.ApiCommands;
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.transport.UrlConnectionTransport;
+
+/**
+ * Assesses a list of hosts with a bounded number of concurrent assessments.
+ * Each host runs through invoke, poll and fetch test results using the
+ * existing API commands. Pending scans are polled by the shared
+ * {@link AssessmentPoller}. A host taking longer than the host timeout ends
+ * with the status TIMEOUT and frees its slot, even if one of its requests
+ * still hangs. The connect and read timeouts of the requests of a host are
+ * capped at the host timeout, without changing them for other callers.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class BulkAssessment {
+
+	public static final int DEFAULT_CONCURRENCY = 16;
+	public static final long DEFAULT_HOST_TIMEOUT_SECONDS = 300;
+	public static final long DEFAULT_PROGRESS_INTERVAL_SECONDS = 10;
+
+	/**
+	 * Receives the results of a bulk assessment. The calls are serialized, so
+	 * an implementation does not need to be thread-safe.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called once for every host when its assessment is done.
+		 *
+		 * @param assessment
+		 *            - the outcome of the host assessment
+		 */
+		void onAssessment(HostAssessment assessment);
+
+		/**
+		 * Called periodically and once at the end of the bulk assessment.
+		 *
+		 * @param completed
+		 *            - number of hosts done so far
+		 * @param total
+		 *            - number of hosts to assess
+		 * @param hostsPerSecond
+		 *            - throughput since the start of the bulk assessment
+		 */
+		void onProgress(int completed, int total, double hostsPerSecond);
+	}
+
+	private final int concurrency;
+	private final long hostTimeoutMillis;
+	private AssessmentPoller poller = AssessmentPoller.getInstance();
+	private long progressIntervalMillis = TimeUnit.SECONDS.toMillis(DEFAULT_PROGRESS_INTERVAL_SECONDS);
+	private Executor executor = ApiExecutors.getDefaultExecutor();
+	private boolean rescan = false;
+	private boolean hidden = false;
+
+	public BulkAssessment() {
+		this(DEFAULT_CONCURRENCY, DEFAULT_HOST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Constructor for a new bulk assessment.
+	 *
+	 * @param concurrency
+	 *            - the maximum number of hosts assessed at the same time
+	 * @param hostTimeout
+	 *            - the maximum time spent on a single host
+	 * @param unit
+	 *            - the unit of the host timeout
+	 */
+	public BulkAssessment(final int concurrency, final long hostTimeout, final TimeUnit unit) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("The concurrency must be positive.");
+		}
+		this.concurrency = concurrency;
+		this.hostTimeoutMillis = unit.toMillis(hostTimeout);
+	}
+
+	/**
+	 * @param poller
+	 *            - the poller tracking the pending scans
+	 */
+	public void setPoller(AssessmentPoller poller) {
+		this.poller = poller;
+	}
+
+	/**
+	 * @param progressInterval
+	 *            - the minimum time between two progress reports
+	 * @param unit
+	 *            - the unit of the progress interval
+	 */
+	public void setProgressInterval(long progressInterval, TimeUnit unit) {
+		this.progressIntervalMillis = unit.toMillis(progressInterval);
+	}
+
+	/**
+	 * @param executor
+	 *            - the executor running the host assessments
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * @param rescan
+	 *            - true if a fresh scan should be performed for every host
+	 */
+	public void setRescan(boolean rescan) {
+		this.rescan = rescan;
+	}
+
+	/**
+	 * @param hidden
+	 *            - true if the results should not show up in the recent scans
+	 */
+	public void setHidden(boolean hidden) {
+		this.hidden = hidden;
+	}
+
+	/**
+	 * Assesses all hosts and blocks until every host is done.
+	 *
+	 * @param hosts
+	 *            - the hosts to assess
+	 * @param listener
+	 *            - receives the result of every host and progress reports
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	public void assess(final List<String> hosts, final Listener listener) throws InterruptedException {
+		final Semaphore permits = new Semaphore(concurrency);
+		final AtomicInteger completed = new AtomicInteger();
+		final int total = hosts.size();
+		final long start = System.currentTimeMillis();
+		final long[] lastReport = { start };
+
+		for (final String host : hosts) {
+			permits.acquire();
+			assessHost(host).whenComplete((result, t) -> {
+				HostAssessment assessment = result != null ? result
+						: new HostAssessment(host, Status.ERROR, null, null, String.valueOf(t), 0);
+				try {
+					synchronized (listener) {
+						int done = completed.incrementAndGet();
+						listener.onAssessment(assessment);
+
+						long now = System.currentTimeMillis();
+						if (now - lastReport[0] >= progressIntervalMillis && done < total) {
+							lastReport[0] = now;
+							listener.onProgress(done, total, throughput(done, start, now));
+						}
+					}
+				} finally {
+					permits.release();
+				}
+			});
+		}
+
+		permits.acquire(concurrency);
+		permits.release(concurrency);
+
+		synchronized (listener) {
+			listener.onProgress(completed.get(), total, throughput(completed.get(), start, System.currentTimeMillis()));
+		}
+	}
+
+	/**
+	 * Runs invoke, poll and fetch test results for a single host. Pending
+	 * scans are handed to the poller, so no thread waits while a scan runs.
+	 *
+	 * @param host
+	 *            - the host to assess
+	 * @return a future completed with the outcome of the assessment
+	 */
+	CompletableFuture<HostAssessment> assessHost(final String host) {
+		final long start = System.currentTimeMillis();
+
+		final Arguments arguments = Arguments.parse("host=" + host, rescan ? "rescan" : null, hidden ? "hidden" : null);
+
+		// a single request must not use up the time of its host
+		final Executor requestExecutor = UrlConnectionTransport.withTimeouts(executor,
+				Math.min(UrlConnectionTransport.getConnectTimeoutMillis(), hostTimeoutMillis),
+				Math.min(UrlConnectionTransport.getReadTimeoutMillis(), hostTimeoutMillis), TimeUnit.MILLISECONDS);
+		CompletableFuture<HostAssessment> assessment = ApiCommands.INVOKE_ASSESSMENT.getCommand()
+				.executeAsync(arguments, requestExecutor)
+				.thenCompose(scan -> poller.track(host, scan, hostTimeoutMillis, TimeUnit.MILLISECONDS,
+						requestExecutor))
+				.thenApplyAsync(finalScan -> fetchTestResults(host, finalScan, start), requestExecutor);
+		return ApiExecutors.orTimeout(assessment, hostTimeoutMillis, TimeUnit.MILLISECONDS,
+				"Assessment of " + host + " did not finish within " + hostTimeoutMillis + "ms.").exceptionally(t -> {
+					Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+					Status status = cause instanceof TimeoutException || cause instanceof SocketTimeoutException
+							? Status.TIMEOUT : Status.ERROR;
+					return done(host, status, null, null, cause.getLocalizedMessage(), start);
+				});
+	}
+
+	private HostAssessment fetchTestResults(String host, JSONObject scan, long start) {
+		if (!"FINISHED".equals(scan.optString("state"))) {
+			return done(host, Status.FAILED, scan, null, null, start);
+		}
+
+		Arguments testArguments = Arguments.parse("id=" + scan.optLong("scan_id"), "host=" + host);
+		try {
+			JSONObject tests = ApiCommands.RETRIEVE_TEST_RESULT.getCommand().request(testArguments);
+			return done(host, Status.FINISHED, scan, tests, null, start);
+		} catch (IOException e) {
+			return done(host, e instanceof SocketTimeoutException ? Status.TIMEOUT : Status.ERROR, scan, null,
+					"Could not retrieve test results: " + e.getLocalizedMessage(), start);
+		}
+	}
+
+	private static HostAssessment done(String host, Status status, JSONObject scan, JSONObject tests, String error,
+			long start) {
+		return new HostAssessment(host, status, scan, tests, error, System.currentTimeMillis() - start);
+	}
+
+	private static double throughput(int completed, long start, long now) {
+		long elapsed = Math.max(1, now - start);
+		return completed * 1000d / elapsed;
+	}
+}
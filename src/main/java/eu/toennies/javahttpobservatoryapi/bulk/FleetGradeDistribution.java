@@ -0,0 +1,216 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+import eu.toennies.javahttpobservatoryapi.results.GradeDistribution;
+import eu.toennies.javahttpobservatoryapi.results.ScanState;
+import eu.toennies.javahttpobservatoryapi.store.GradeHistory;
+
+/**
+ * The grade distribution of our own hosts, in the shape of the
+ * getGradeDistribution call. Every host counts once with its latest grade.
+ *
+ * The counters are kept per grade ordinal for the whole fleet and for every
+ * tag of the host list, and are updated with every new grade of a host, so
+ * reading a distribution never looks at the hosts. A new grade costs one
+ * decrement and one increment per tag of the host.
+ *
+ * The distribution can be fed directly by a {@link FleetMonitor}, with
+ * assessments or with the latest rows of the grade history log.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class FleetGradeDistribution implements FleetMonitor.Listener {
+
+	private static final int GRADES = Grade.values().length;
+	private static final int[] NO_TAGS = new int[0];
+
+	private final Map<String, Integer> hostIds = new HashMap<String, Integer>();
+	/** the current grade ordinal of every host, -1 if none */
+	private byte[] grades = new byte[16];
+	/** the tag ids of every host */
+	private int[][] hostTags = new int[16][];
+	private int hostCount;
+
+	private final Map<String, Integer> tagIds = new LinkedHashMap<String, Integer>();
+	/** the counts of every tag indexed by the grade ordinal */
+	private final List<long[]> tagCounts = new ArrayList<long[]>();
+	private final long[] counts = new long[GRADES];
+
+	/**
+	 * Constructor for a distribution without tags. Hosts are added with their
+	 * first grade.
+	 */
+	public FleetGradeDistribution() {
+	}
+
+	/**
+	 * Constructor for a distribution grouped by the tags of a host list.
+	 * Hosts not in the list are counted without tags.
+	 *
+	 * @param hosts
+	 *            - the host list
+	 */
+	public FleetGradeDistribution(final HostList hosts) {
+		for (String host : hosts.getHosts()) {
+			List<String> tags = hosts.getTags(host);
+			int[] ids = new int[tags.size()];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = tagId(tags.get(i));
+			}
+			hostId(host, ids);
+		}
+	}
+
+	/**
+	 * Sets the grade of a host, replacing its previous grade.
+	 *
+	 * @param host
+	 *            - the host
+	 * @param grade
+	 *            - the latest grade, null removes the host from the
+	 *            distribution
+	 * @return true if the distribution has changed
+	 */
+	public synchronized boolean update(String host, Grade grade) {
+		Integer known = hostIds.get(host);
+		if (known == null && grade == null) {
+			return false;
+		}
+		int id = known != null ? known.intValue() : hostId(host, NO_TAGS);
+		int previous = grades[id];
+		int current = grade != null ? grade.ordinal() : -1;
+		if (previous == current) {
+			return false;
+		}
+
+		grades[id] = (byte) current;
+		if (previous >= 0) {
+			counts[previous]--;
+		}
+		if (current >= 0) {
+			counts[current]++;
+		}
+		for (int tag : hostTags[id]) {
+			long[] tagCount = tagCounts.get(tag);
+			if (previous >= 0) {
+				tagCount[previous]--;
+			}
+			if (current >= 0) {
+				tagCount[current]++;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the grade of the host of a finished assessment.
+	 *
+	 * @param assessment
+	 *            - the assessment
+	 * @return true if the distribution has changed
+	 */
+	public boolean update(Assessment assessment) {
+		if (assessment.getState() != ScanState.FINISHED) {
+			return false;
+		}
+		return update(assessment.getHost(), assessment.getGrade());
+	}
+
+	/**
+	 * Sets the grades of the rows in the order of the history, so the last
+	 * row of a host wins.
+	 *
+	 * @param history
+	 *            - e.g. the latest rows of the grade history log
+	 */
+	public void update(GradeHistory history) {
+		for (int i = 0; i < history.size(); i++) {
+			update(history.getHost(i), history.getGrade(i));
+		}
+	}
+
+	@Override
+	public void onChange(GradeChange change) {
+		update(change.getHost(), change.getGrade());
+	}
+
+	@Override
+	public void onError(String host, String error) {
+		// the last known grade is kept
+	}
+
+	/**
+	 * @return the grade distribution of all hosts
+	 */
+	public synchronized GradeDistribution getDistribution() {
+		return new GradeDistribution(counts);
+	}
+
+	/**
+	 * Retrieve the grade distribution of the hosts with a tag.
+	 *
+	 * @param tag
+	 *            - the tag of the host list
+	 * @return the grade distribution, empty if the tag is unknown
+	 */
+	public synchronized GradeDistribution getDistribution(String tag) {
+		Integer id = tagIds.get(tag);
+		return new GradeDistribution(id == null ? new long[GRADES] : tagCounts.get(id.intValue()));
+	}
+
+	/**
+	 * @return the grade distribution of every tag in the order of the host
+	 *         list
+	 */
+	public synchronized Map<String, GradeDistribution> groupByTag() {
+		Map<String, GradeDistribution> groups = new LinkedHashMap<String, GradeDistribution>();
+		for (Map.Entry<String, Integer> tag : tagIds.entrySet()) {
+			groups.put(tag.getKey(), new GradeDistribution(tagCounts.get(tag.getValue().intValue())));
+		}
+		return Collections.unmodifiableMap(groups);
+	}
+
+	/**
+	 * Retrieve the current grade of a host.
+	 *
+	 * @param host
+	 *            - the host
+	 * @return the grade or null if the host has none
+	 */
+	public synchronized Grade getGrade(String host) {
+		Integer id = hostIds.get(host);
+		return id == null || grades[id.intValue()] < 0 ? null : Grade.values()[grades[id.intValue()]];
+	}
+
+	private int hostId(String host, int[] tags) {
+		int id = hostCount++;
+		if (id == grades.length) {
+			grades = Arrays.copyOf(grades, id * 2);
+			hostTags = Arrays.copyOf(hostTags, id * 2);
+		}
+		grades[id] = -1;
+		hostTags[id] = tags;
+		hostIds.put(host, Integer.valueOf(id));
+		return id;
+	}
+
+	private int tagId(String tag) {
+		Integer id = tagIds.get(tag);
+		if (id != null) {
+			return id.intValue();
+		}
+		tagIds.put(tag, Integer.valueOf(tagCounts.size()));
+		tagCounts.add(new long[GRADES]);
+		return tagCounts.size() - 1;
+	}
+}
@@ -0,0 +1,290 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import eu.toennies.javahttpobservatoryapi.ApiExecutors;
+import eu.toennies.javahttpobservatoryapi.commands.ApiCommands;
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.commands.InvokeAssessmentCommand;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveAssessmentCommand;
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+import eu.toennies.javahttpobservatoryapi.results.ScanState;
+
+/**
+ * Watches a fixed set of hosts and reports only the changes of their grade,
+ * score and number of failed tests.
+ *
+ * Every refresh invokes the assessment of each host without a rescan, so the
+ * HTTP Observatory either returns its cached scan or starts a new one once the
+ * cached scan has expired. Hosts with a scan still running are polled with the
+ * retrieve assessment call instead. A scan with the scan id seen before is
+ * not compared again. The last known values of a host are replaced as a
+ * whole once a new scan has finished, so they can be read while a refresh is
+ * running.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class FleetMonitor {
+
+	public static final long DEFAULT_INTERVAL_SECONDS = 3600;
+
+	/** the values of a host without a finished scan */
+	private static final HostState NO_SCAN = new HostState(0, null, 0, 0);
+
+	/**
+	 * Receives the changes found by a refresh. The calls are serialized, so an
+	 * implementation does not need to be thread-safe.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called for every host seen the first time and for every host whose
+		 * grade, score or number of failed tests has changed.
+		 *
+		 * @param change
+		 *            - the change
+		 */
+		void onChange(GradeChange change);
+
+		/**
+		 * Called if the assessment of a host could not be retrieved. The last
+		 * known values of the host are kept.
+		 *
+		 * @param host
+		 *            - the host
+		 * @param error
+		 *            - the error message
+		 */
+		void onError(String host, String error);
+	}
+
+	private final String[] hosts;
+	private final Arguments[] arguments;
+	/** the last finished scan of each host */
+	private final Map<String, HostState> states = new ConcurrentHashMap<String, HostState>();
+	/** true while the last scan of the host is not done */
+	private final boolean[] running;
+	/** serializes the refreshes, every host is refreshed by one task at a time */
+	private final Object refreshLock = new Object();
+	private final int concurrency;
+	private final long intervalMillis;
+	private Executor executor = ApiExecutors.getDefaultExecutor();
+
+	/**
+	 * Constructor for a monitor with the default concurrency and interval.
+	 *
+	 * @param hosts
+	 *            - the hosts to watch
+	 */
+	public FleetMonitor(final List<String> hosts) {
+		this(hosts, BulkAssessment.DEFAULT_CONCURRENCY, DEFAULT_INTERVAL_SECONDS, TimeUnit.SECONDS, false);
+	}
+
+	/**
+	 * Constructor for a new monitor.
+	 *
+	 * @param hosts
+	 *            - the hosts to watch
+	 * @param concurrency
+	 *            - the maximum number of hosts refreshed at the same time
+	 * @param interval
+	 *            - the time between the starts of two refreshes
+	 * @param unit
+	 *            - the unit of the interval
+	 * @param hidden
+	 *            - true if new scans should not show up in the recent scans
+	 */
+	public FleetMonitor(final List<String> hosts, final int concurrency, final long interval, final TimeUnit unit,
+			final boolean hidden) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("The concurrency must be positive.");
+		}
+		if (interval < 0) {
+			throw new IllegalArgumentException("The interval must not be negative.");
+		}
+		int size = hosts.size();
+		this.hosts = hosts.toArray(new String[size]);
+		this.arguments = new Arguments[size];
+		for (int i = 0; i < size; i++) {
+			arguments[i] = Arguments.parse("host=" + this.hosts[i], hidden ? "hidden" : null);
+		}
+		this.running = new boolean[size];
+		this.concurrency = concurrency;
+		this.intervalMillis = unit.toMillis(interval);
+	}
+
+	/**
+	 * @param executor
+	 *            - the executor refreshing the hosts
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * @return the number of watched hosts
+	 */
+	public int size() {
+		return hosts.length;
+	}
+
+	/**
+	 * Retrieve the last known scan id of a host.
+	 *
+	 * @param host
+	 *            - the host
+	 * @return the scan id or 0 if no finished scan has been seen
+	 */
+	public long getScanId(String host) {
+		HostState state = states.get(host);
+		return state == null ? 0 : state.scanId;
+	}
+
+	/**
+	 * Retrieve the last known grade of a host.
+	 *
+	 * @param host
+	 *            - the host
+	 * @return the grade or null if no finished scan has been seen
+	 */
+	public Grade getGrade(String host) {
+		HostState state = states.get(host);
+		return state == null ? null : state.grade;
+	}
+
+	/**
+	 * Refreshes all hosts until the calling thread is interrupted.
+	 *
+	 * @param listener
+	 *            - receives the changes and the errors
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted
+	 */
+	public void watch(Listener listener) throws InterruptedException {
+		while (true) {
+			long start = System.currentTimeMillis();
+			refresh(listener);
+			long remaining = intervalMillis - (System.currentTimeMillis() - start);
+			if (remaining > 0) {
+				Thread.sleep(remaining);
+			} else if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	/**
+	 * Refreshes all hosts once and blocks until every host is done. A second
+	 * refresh waits until the running one is done.
+	 *
+	 * @param listener
+	 *            - receives the changes and the errors
+	 * @return the number of changes
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	public int refresh(final Listener listener) throws InterruptedException {
+		synchronized (refreshLock) {
+			final Semaphore permits = new Semaphore(concurrency);
+			final AtomicInteger changes = new AtomicInteger();
+
+			for (int i = 0; i < hosts.length; i++) {
+				final int index = i;
+				permits.acquire();
+				CompletableFuture.runAsync(() -> {
+					if (refreshHost(index, listener)) {
+						changes.incrementAndGet();
+					}
+				}, executor).whenComplete((result, t) -> {
+					if (t != null) {
+						synchronized (listener) {
+							listener.onError(hosts[index], String.valueOf(t));
+						}
+					}
+					permits.release();
+				});
+			}
+
+			permits.acquire(concurrency);
+			permits.release(concurrency);
+			return changes.get();
+		}
+	}
+
+	/**
+	 * Retrieves the current scan of a host and compares it to the last known
+	 * values. Every index is refreshed by one task at a time.
+	 *
+	 * @return true if a change has been reported
+	 */
+	private boolean refreshHost(int index, Listener listener) {
+		Assessment assessment;
+		try {
+			if (running[index]) {
+				RetrieveAssessmentCommand retrieve = (RetrieveAssessmentCommand) ApiCommands.RETRIEVE_ASSESSMENT
+						.getCommand();
+				assessment = retrieve.getAssessment(arguments[index]);
+			} else {
+				InvokeAssessmentCommand invoke = (InvokeAssessmentCommand) ApiCommands.INVOKE_ASSESSMENT.getCommand();
+				assessment = invoke.invokeAssessment(arguments[index]);
+			}
+		} catch (IOException e) {
+			synchronized (listener) {
+				listener.onError(hosts[index], e.getLocalizedMessage());
+			}
+			return false;
+		}
+
+		ScanState state = assessment.getState();
+		running[index] = state == null || !state.isDone();
+		HostState previous = states.getOrDefault(hosts[index], NO_SCAN);
+		if (state != ScanState.FINISHED || assessment.getScanId() == previous.scanId) {
+			// still running, failed or the scan seen before
+			return false;
+		}
+
+		HostState current = new HostState(assessment.getScanId(), assessment.getGrade(), assessment.getScore(),
+				assessment.getTestsFailed());
+		states.put(hosts[index], current);
+
+		if (previous.scanId != 0 && previous.grade == current.grade && previous.score == current.score
+				&& previous.testsFailed == current.testsFailed) {
+			return false;
+		}
+
+		GradeChange change = new GradeChange(hosts[index], previous.scanId, previous.grade, previous.score,
+				previous.testsFailed, current.scanId, current.grade, current.score, current.testsFailed);
+		synchronized (listener) {
+			listener.onChange(change);
+		}
+		return true;
+	}
+
+	/**
+	 * The values of the last finished scan of a host.
+	 */
+	private static final class HostState {
+
+		private final long scanId;
+		private final Grade grade;
+		private final int score;
+		private final int testsFailed;
+
+		HostState(final long scanId, final Grade grade, final int score, final int testsFailed) {
+			this.scanId = scanId;
+			this.grade = grade;
+			this.score = score;
+			this.testsFailed = testsFailed;
+		}
+	}
+}
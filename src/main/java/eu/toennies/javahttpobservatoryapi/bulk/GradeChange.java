@@ -0,0 +1,123 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+
+/**
+ * A change of the grade, the score or the number of failed tests of a host
+ * watched by the {@link FleetMonitor}.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class GradeChange {
+
+	private final String host;
+	private final long previousScanId;
+	private final Grade previousGrade;
+	private final int previousScore;
+	private final int previousTestsFailed;
+	private final long scanId;
+	private final Grade grade;
+	private final int score;
+	private final int testsFailed;
+
+	GradeChange(final String host, final long previousScanId, final Grade previousGrade, final int previousScore,
+			final int previousTestsFailed, final long scanId, final Grade grade, final int score,
+			final int testsFailed) {
+		this.host = host;
+		this.previousScanId = previousScanId;
+		this.previousGrade = previousGrade;
+		this.previousScore = previousScore;
+		this.previousTestsFailed = previousTestsFailed;
+		this.scanId = scanId;
+		this.grade = grade;
+		this.score = score;
+		this.testsFailed = testsFailed;
+	}
+
+	/**
+	 * @return the watched host
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return true if the host has not been seen before
+	 */
+	public boolean isFirstSeen() {
+		return previousScanId == 0;
+	}
+
+	/**
+	 * @return the scan id seen before or 0 if the host is seen the first time
+	 */
+	public long getPreviousScanId() {
+		return previousScanId;
+	}
+
+	/**
+	 * @return the grade seen before, may be null
+	 */
+	public Grade getPreviousGrade() {
+		return previousGrade;
+	}
+
+	/**
+	 * @return the score seen before
+	 */
+	public int getPreviousScore() {
+		return previousScore;
+	}
+
+	/**
+	 * @return the number of failed tests seen before
+	 */
+	public int getPreviousTestsFailed() {
+		return previousTestsFailed;
+	}
+
+	/**
+	 * @return the scan id of the change
+	 */
+	public long getScanId() {
+		return scanId;
+	}
+
+	/**
+	 * @return the new grade, may be null
+	 */
+	public Grade getGrade() {
+		return grade;
+	}
+
+	/**
+	 * @return the new score
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return the new number of failed tests
+	 */
+	public int getTestsFailed() {
+		return testsFailed;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(host).append(": ");
+		if (!isFirstSeen()) {
+			builder.append(label(previousGrade)).append(" (").append(previousScore).append(", ")
+					.append(previousTestsFailed).append(" failed) -> ");
+		}
+		builder.append(label(grade)).append(" (").append(score).append(", ").append(testsFailed)
+				.append(" failed), scan ").append(scanId);
+		return builder.toString();
+	}
+
+	private static String label(Grade grade) {
+		return grade != null ? grade.getLabel() : "-";
+	}
+}
@@ -0,0 +1,85 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import org.json.JSONObject;
+
+/**
+ * The outcome of the assessment of a single host within a bulk assessment.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class HostAssessment {
+
+	/**
+	 * The final status of a host assessment.
+	 */
+	public enum Status {
+		/** the scan has finished and the test results are available */
+		FINISHED,
+		/** the scan has failed or has been aborted by the HTTP Observatory */
+		FAILED,
+		/** the scan did not finish within the host timeout or the API did not answer in time */
+		TIMEOUT,
+		/** the API could not be called or returned an error */
+		ERROR
+	}
+
+	private final String host;
+	private final Status status;
+	private final JSONObject assessment;
+	private final JSONObject testResults;
+	private final String error;
+	private final long durationMillis;
+
+	HostAssessment(final String host, final Status status, final JSONObject assessment, final JSONObject testResults,
+			final String error, final long durationMillis) {
+		this.host = host;
+		this.status = status;
+		this.assessment = assessment;
+		this.testResults = testResults;
+		this.error = error;
+		this.durationMillis = durationMillis;
+	}
+
+	/**
+	 * @return the assessed host
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return the final status
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the last scan object retrieved for the host, may be null
+	 */
+	public JSONObject getAssessment() {
+		return assessment;
+	}
+
+	/**
+	 * @return the test results if the scan has finished, null otherwise
+	 */
+	public JSONObject getTestResults() {
+		return testResults;
+	}
+
+	/**
+	 * @return the error message if the status is ERROR or TIMEOUT
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * @return the time spent on this host in milliseconds
+	 */
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+}
@@ -0,0 +1,119 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A list of hosts with optional tags, one host per line followed by its tags,
+ * separated by whitespace. Empty lines and lines starting with # are ignored.
+ *
+ * Example host list
+ *
+ * <pre>
+ * # host      tags
+ * www.example.com   prod eu
+ * dev.example.com   dev
+ * </pre>
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class HostList {
+
+	private static final String[] NO_TAGS = new String[0];
+
+	/** the tags of every host in the order of the list */
+	private final Map<String, String[]> tags;
+
+	private HostList(final Map<String, String[]> tags) {
+		this.tags = tags;
+	}
+
+	/**
+	 * Reads a host list from a file.
+	 *
+	 * @param file
+	 *            - the host list
+	 * @return the host list
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public static HostList read(File file) throws IOException {
+		try (Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8")) {
+			return read(reader);
+		}
+	}
+
+	/**
+	 * Reads a host list. A host listed more than once gets the tags of all
+	 * its lines.
+	 *
+	 * @param reader
+	 *            - the host list
+	 * @return the host list
+	 * @throws IOException
+	 *             if the host list could not be read
+	 */
+	public static HostList read(Reader reader) throws IOException {
+		Map<String, String[]> tags = new LinkedHashMap<String, String[]>();
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		while ((line = lines.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			String[] tokens = line.split("\\s+");
+			String[] hostTags = Arrays.copyOfRange(tokens, 1, tokens.length);
+			String[] known = tags.get(tokens[0]);
+			if (known != null && known.length > 0) {
+				List<String> merged = new ArrayList<String>(Arrays.asList(known));
+				for (String tag : hostTags) {
+					if (!merged.contains(tag)) {
+						merged.add(tag);
+					}
+				}
+				hostTags = merged.toArray(new String[merged.size()]);
+			}
+			tags.put(tokens[0], hostTags.length == 0 ? NO_TAGS : hostTags);
+		}
+		return new HostList(tags);
+	}
+
+	/**
+	 * @return the hosts in the order of the list
+	 */
+	public List<String> getHosts() {
+		return Collections.unmodifiableList(new ArrayList<String>(tags.keySet()));
+	}
+
+	/**
+	 * Retrieve the tags of a host.
+	 *
+	 * @param host
+	 *            - the host
+	 * @return the tags, empty if the host has none or is not listed
+	 */
+	public List<String> getTags(String host) {
+		String[] hostTags = tags.get(host);
+		return hostTags == null ? Collections.<String> emptyList() : Collections.unmodifiableList(Arrays.asList(hostTags));
+	}
+
+	/**
+	 * @return the number of hosts
+	 */
+	public int size() {
+		return tags.size();
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * Provides the classes to assess a large number of hosts within one JVM.
+ * 
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.bulk;
@@ -1,15 +1,31 @@
 package eu.toennies.javahttpobservatoryapi.commands;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.ApiException;
+import eu.toennies.javahttpobservatoryapi.ApiExecutors;
+import eu.toennies.javahttpobservatoryapi.RateLimiter;
+import eu.toennies.javahttpobservatoryapi.ResponseCache;
+import eu.toennies.javahttpobservatoryapi.SingleFlight;
+import eu.toennies.javahttpobservatoryapi.jfr.ApiEvents;
+import eu.toennies.javahttpobservatoryapi.metrics.ApiMetrics;
 
 public abstract class ApiCommand {
 
@@ -23,6 +39,21 @@ public abstract class ApiCommand {
 	private String description;
 	private List<CommandArgument> commandArguments = new ArrayList<CommandArgument>();
 
+	private static volatile ResponseCache responseCache;
+
+	/** requests currently in flight, shared by all commands */
+	private static final SingleFlight<String, JSONObject> IN_FLIGHT = new SingleFlight<String, JSONObject>();
+
+	/**
+	 * Reads a typed result from an api response.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 */
+	protected interface ResultParser<T> {
+		T read(Reader reader) throws IOException;
+	}
+
 	/**
 	 * Constructor for new API command.
 	 * 
@@ -44,9 +75,93 @@ public abstract class ApiCommand {
 	
 	/**
 	 * @param arguments
-	 * @return the api response as a map
+	 * @return the api response as a map or null if the call failed
+	 */
+	public JSONObject run(List<String> arguments) throws IllegalArgumentException {
+		return execute(Arguments.parse(arguments));
+	}
+
+	/**
+	 * Runs the command with arguments parsed before, so they can be shared by
+	 * all commands. A failed call is logged.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments
+	 * @return the api response or null if the call failed
+	 * @throws IllegalArgumentException
+	 *             if a mandatory argument is missing
+	 * @see #request(Arguments)
+	 */
+	public JSONObject execute(Arguments arguments) throws IllegalArgumentException {
+		try {
+			return request(arguments);
+		} catch (IOException e) {
+			Logger.getGlobal().severe("Could not send API request: " + e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Runs the command with arguments parsed before and reports a failed call
+	 * to the caller.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments
+	 * @return the api response, an error of the API is returned as its json
+	 *         object
+	 * @throws IOException
+	 *             if the request failed or the response could not be parsed
+	 * @throws IllegalArgumentException
+	 *             if a mandatory argument is missing
+	 */
+	public abstract JSONObject request(Arguments arguments) throws IOException, IllegalArgumentException;
+
+	/**
+	 * Runs the command asynchronously on the default executor.
+	 * 
+	 * @param arguments
+	 * @return a future completed with the api response
+	 * @see ApiExecutors#setDefaultExecutor(Executor)
 	 */
-	public abstract JSONObject run(List<String> arguments) throws IllegalArgumentException;
+	public CompletableFuture<JSONObject> runAsync(List<String> arguments) {
+		return runAsync(arguments, ApiExecutors.getDefaultExecutor());
+	}
+
+	/**
+	 * Runs the command asynchronously on the given executor.
+	 * 
+	 * @param arguments
+	 * @param executor
+	 *            - the executor sending the request
+	 * @return a future completed with the api response or exceptionally with
+	 *         an IllegalArgumentException if the arguments are invalid or the
+	 *         IOException of a failed call
+	 */
+	public CompletableFuture<JSONObject> runAsync(final List<String> arguments, Executor executor) {
+		return executeAsync(Arguments.parse(arguments), executor);
+	}
+
+	/**
+	 * Runs the command asynchronously on the given executor.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments
+	 * @param executor
+	 *            - the executor sending the request
+	 * @return a future completed with the api response or exceptionally with
+	 *         an IllegalArgumentException if the arguments are invalid or the
+	 *         IOException of a failed call
+	 * @see #request(Arguments)
+	 */
+	public CompletableFuture<JSONObject> executeAsync(final Arguments arguments, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return request(arguments);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
 	
 	
 	/**
@@ -93,17 +208,188 @@ public abstract class ApiCommand {
 		return this.header;
 	}
 	
-	public JSONObject callApiCommand(Map<String, String> parameters) {
-		JSONObject apiInfo = null;
+	/**
+	 * Sends the API command and parses the response. A failed call is logged.
+	 * 
+	 * @param parameters
+	 *            - the GET parameters, may be null
+	 * @return the api response or null if the call failed
+	 * @see #requestApiCommand(Map)
+	 */
+	public JSONObject callApiCommand(final Map<String, String> parameters) {
 		try {
-			Api api = new Api();
-			apiInfo = new JSONObject(api.sendApiGetRequest(getApiCommand(), parameters));
-		} catch (JSONException e) {
-			Logger.getGlobal().severe("Could not build result: " + e.getLocalizedMessage());
+			return requestApiCommand(parameters);
 		} catch (IOException e) {
 			Logger.getGlobal().severe("Could not send API request: " + e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Sends the API command and parses the response. Concurrent calls with
+	 * the same parameters share one request and its result, so the returned
+	 * json object must not be modified.
+	 * 
+	 * @param parameters
+	 *            - the GET parameters, may be null
+	 * @return the api response
+	 * @throws IOException
+	 *             if the request failed or the response could not be parsed
+	 */
+	protected JSONObject requestApiCommand(final Map<String, String> parameters) throws IOException {
+		final String key = requestKey(parameters);
+		final ResponseCache cache = responseCache;
+		if (cache != null) {
+			JSONObject cached = cache.get(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		try {
+			return IN_FLIGHT.execute(key, () -> {
+				try {
+					JSONObject apiInfo = fetchApiCommand(parameters);
+					if (cache != null) {
+						cache.put(key, getApiCommand(), apiInfo);
+					}
+					return apiInfo;
+				} catch (IOException e) {
+					// carried through the callers waiting for the same request
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private JSONObject fetchApiCommand(Map<String, String> parameters) throws IOException {
+		try (Reader reader = openApiCommand(parameters)) {
+			Object event = ApiEvents.beginParse(getApiCommand(), hostOf(parameters));
+			try {
+				JSONObject apiInfo = new JSONObject(new JSONTokener(reader));
+				ApiEvents.endParse(event, apiInfo, null);
+				return apiInfo;
+			} catch (JSONException e) {
+				ApiEvents.endParse(event, null, e);
+				ApiMetrics.get("GET", getApiCommand()).error(e.getClass().getSimpleName());
+				throw new ApiException("Could not build result: " + e.getLocalizedMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Sends the API command and reads the typed result directly from the
+	 * response, without building a json object first. With a response cache
+	 * set, the response is parsed into a json object and cached, so it can be
+	 * read by both the typed and the json object commands, and concurrent
+	 * calls with the same parameters share one request. Without a cache every
+	 * call parses its own response while it arrives and sends its own request.
+	 * 
+	 * @param parameters
+	 *            - the GET parameters, may be null
+	 * @param parser
+	 *            - reads the result from the response
+	 * @return the result
+	 * @throws IOException
+	 *             if the request failed or the API returned an error
+	 */
+	protected <T> T readApiCommand(Map<String, String> parameters, ResultParser<T> parser) throws IOException {
+		if (responseCache != null) {
+			return parser.read(new StringReader(requestApiCommand(parameters).toString()));
+		}
+
+		try (Reader reader = openApiCommand(parameters)) {
+			Object event = ApiEvents.beginParse(getApiCommand(), hostOf(parameters));
+			try {
+				T result = parser.read(reader);
+				ApiEvents.endParse(event, result, null);
+				return result;
+			} catch (IOException e) {
+				ApiEvents.endParse(event, null, e);
+				throw e;
+			} catch (RuntimeException e) {
+				ApiEvents.endParse(event, null, e);
+				throw e;
+			}
+		}
+	}
+
+	private static String hostOf(Map<String, String> parameters) {
+		return parameters == null ? null : parameters.get("host");
+	}
+
+	/**
+	 * Builds the key identifying a request of this command. Parameters without
+	 * a value are not sent and therefore ignored.
+	 * 
+	 * @param parameters
+	 *            - the request parameters, may be null
+	 * @return the request key
+	 */
+	protected String requestKey(Map<String, String> parameters) {
+		StringBuilder key = new StringBuilder(getApiCommand());
+		if (parameters != null) {
+			char separator = '?';
+			for (Map.Entry<String, String> param : new TreeMap<String, String>(parameters).entrySet()) {
+				if (param.getValue() == null) {
+					continue;
+				}
+				key.append(separator).append(param.getKey()).append('=').append(param.getValue());
+				separator = '&';
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Retrieve the cache used by all API commands.
+	 * 
+	 * @return the response cache or null if responses are not cached
+	 */
+	public static ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * Sets the cache used by all API commands. Caching is disabled by default.
+	 * 
+	 * @param cache
+	 *            - the response cache, null disables caching
+	 */
+	public static void setResponseCache(ResponseCache cache) {
+		responseCache = cache;
+	}
+
+	/**
+	 * Sends the API command and returns a reader on the response, so it can be
+	 * parsed while it arrives. The caller has to close the reader.
+	 * 
+	 * @param parameters
+	 *            - the GET parameters, may be null
+	 * @return a reader on the api response
+	 * @throws IOException
+	 */
+	public Reader openApiCommand(Map<String, String> parameters) throws IOException {
+		acquirePermit();
+		Api api = new Api();
+		return api.openApiGetRequest(getApiCommand(), parameters);
+	}
+
+	/**
+	 * Waits until the rate limiter allows a request to the API command.
+	 * 
+	 * @throws InterruptedIOException
+	 *             if the thread is interrupted while waiting
+	 */
+	protected void acquirePermit() throws InterruptedIOException {
+		try {
+			RateLimiter.getInstance().acquire(getApiCommand());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the rate limiter.");
 		}
-		return apiInfo;
 	}
 
 	public String getHelp() {
@@ -146,4 +432,15 @@ public abstract class ApiCommand {
 	public boolean shouldStart(List<String> arguments) {
 		return arguments.contains(getConsoleCommand()) || arguments.contains(getConsoleShortCommand());
 	}
+
+	/**
+	 * Is the command requested by the arguments?
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments
+	 * @return true if the short or long console command is given
+	 */
+	public boolean shouldStart(Arguments arguments) {
+		return arguments.hasFlag(getConsoleShortCommand(), getConsoleCommand());
+	}
 }
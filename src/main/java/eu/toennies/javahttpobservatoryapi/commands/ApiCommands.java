@@ -1,35 +1,129 @@
 package eu.toennies.javahttpobservatoryapi.commands;
 
 /**
- * Enumaration for available API commands.
+ * Enumaration for available API commands. The commands are only created when
+ * they are used, a command line only creates the commands it asks for. The
+ * console commands are the constants of the command classes, which are inlined
+ * and do not load the command classes.
  * 
  * @author Sascha Tönnies <https://github.com/stoennies>
  *
  */
 public enum ApiCommands {
-	GRADE_DISTRIBUTION(new GradeDistributionCommand()),
-	SCANNER_STATES(new ScannerStatesCommand()),
-	RECENT_SCANS(new RecentScansCommand()),
-	INVOKE_ASSESSMENT(new InvokeAssessmentCommand()),
-	RETRIEVE_ASSESSMENT(new RetrieveAssessmentCommand()),
-	RETRIEVE_TEST_RESULT(new RetrieveTestResultsCommand());
+	GRADE_DISTRIBUTION(GradeDistributionCommand.CONSOLE_COMMAND, GradeDistributionCommand.CONSOLE_SHORT_COMMAND) {
+		@Override
+		ApiCommand create() {
+			return new GradeDistributionCommand();
+		}
+	},
+	SCANNER_STATES(ScannerStatesCommand.CONSOLE_COMMAND, ScannerStatesCommand.CONSOLE_SHORT_COMMAND) {
+		@Override
+		ApiCommand create() {
+			return new ScannerStatesCommand();
+		}
+	},
+	RECENT_SCANS(RecentScansCommand.CONSOLE_COMMAND, RecentScansCommand.CONSOLE_SHORT_COMMAND) {
+		@Override
+		ApiCommand create() {
+			return new RecentScansCommand();
+		}
+	},
+	INVOKE_ASSESSMENT(InvokeAssessmentCommand.CONSOLE_COMMAND, InvokeAssessmentCommand.CONSOLE_SHORT_COMMAND) {
+		@Override
+		ApiCommand create() {
+			return new InvokeAssessmentCommand();
+		}
+	},
+	RETRIEVE_ASSESSMENT(RetrieveAssessmentCommand.CONSOLE_COMMAND, RetrieveAssessmentCommand.CONSOLE_SHORT_COMMAND,
+			true) {
+		@Override
+		ApiCommand create() {
+			return new RetrieveAssessmentCommand();
+		}
+	},
+	RETRIEVE_TEST_RESULT(RetrieveTestResultsCommand.CONSOLE_COMMAND, RetrieveTestResultsCommand.CONSOLE_SHORT_COMMAND,
+			true) {
+		@Override
+		ApiCommand create() {
+			return new RetrieveTestResultsCommand();
+		}
+	};
 
 
-	private ApiCommand apiCommand;
+	private final String consoleCommand;
+	private final String consoleShortCommand;
+	private final boolean readsInvokedScan;
+	private volatile ApiCommand apiCommand;
 
 	/**
 	 * Constructor for new API command.
 	 * 
-	 * @param apiCommand - the original API command as listed in the API documentation of Mozilla's HTTP Observatory
 	 * @param console - the command for the console
 	 * @param consoleShort - the short version of the console command
 	 */
-	ApiCommands(final ApiCommand command) {
-		this.apiCommand = command;
+	ApiCommands(final String console, final String consoleShort) {
+		this(console, consoleShort, false);
 	}
-	
+
+	/**
+	 * Constructor for new API command.
+	 * 
+	 * @param console - the command for the console
+	 * @param consoleShort - the short version of the console command
+	 * @param readsInvokedScan - true if the command reads the scan started by {@link #INVOKE_ASSESSMENT}
+	 */
+	ApiCommands(final String console, final String consoleShort, final boolean readsInvokedScan) {
+		this.consoleCommand = ApiCommand.DEFAULT_LONG_CMD_PREFIX + console;
+		this.consoleShortCommand = ApiCommand.DEFAULT_CMD_PREFIX + consoleShort;
+		this.readsInvokedScan = readsInvokedScan;
+	}
+
+	/**
+	 * Creates the command.
+	 * 
+	 * @return a new command
+	 */
+	abstract ApiCommand create();
+
+	/**
+	 * Retrieve the command, it is created on first use.
+	 * 
+	 * @return the command
+	 */
 	public ApiCommand getCommand() {
-		return apiCommand;
+		ApiCommand command = apiCommand;
+		if (command == null) {
+			synchronized (this) {
+				command = apiCommand;
+				if (command == null) {
+					command = create();
+					apiCommand = command;
+				}
+			}
+		}
+		return command;
+	}
+
+	/**
+	 * Is the command requested by the arguments? The command is not created
+	 * to answer this.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments
+	 * @return true if the short or long console command is given
+	 */
+	public boolean shouldStart(Arguments arguments) {
+		return arguments.hasFlag(consoleShortCommand, consoleCommand);
+	}
+
+	/**
+	 * Does the command read the scan started by {@link #INVOKE_ASSESSMENT}?
+	 * On the same command line it has to wait until the scan is invoked.
+	 * 
+	 * @return true if the command reads the scan of the host
+	 */
+	public boolean readsInvokedScan() {
+		return readsInvokedScan;
 	}
 
 }
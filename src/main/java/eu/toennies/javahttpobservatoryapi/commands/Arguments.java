@@ -0,0 +1,171 @@
+package eu.toennies.javahttpobservatoryapi.commands;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parsed program arguments. Every argument is either a key=value pair,
+ * e.g. host=www.mozilla.org, or a flag, e.g. -a or rescan. The arguments are
+ * parsed once and can then be shared by all commands, a lookup does not scan
+ * the argument list again.
+ *
+ * Instances are immutable. If a key is given more than once the first value
+ * wins, a key without a value is ignored.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class Arguments {
+
+	/** no arguments at all */
+	public static final Arguments EMPTY = new Arguments(Collections.<String> emptySet(),
+			Collections.<String, String> emptyMap());
+
+	private final Set<String> flags;
+	private final Map<String, String> values;
+
+	private Arguments(final Set<String> flags, final Map<String, String> values) {
+		this.flags = flags;
+		this.values = values;
+	}
+
+	/**
+	 * Parses the program arguments.
+	 *
+	 * @param arguments
+	 *            - the arguments, may be null
+	 * @return the parsed arguments
+	 */
+	public static Arguments parse(List<String> arguments) {
+		if (arguments == null || arguments.isEmpty()) {
+			return EMPTY;
+		}
+
+		Set<String> flags = new HashSet<String>();
+		Map<String, String> values = new HashMap<String, String>();
+		for (String argument : arguments) {
+			if (argument == null) {
+				continue;
+			}
+			int separator = argument.indexOf('=');
+			if (separator > 0) {
+				String key = argument.substring(0, separator);
+				if (separator + 1 < argument.length() && !values.containsKey(key)) {
+					values.put(key, argument.substring(separator + 1));
+				}
+			} else {
+				flags.add(argument);
+			}
+		}
+		return new Arguments(Collections.unmodifiableSet(flags), Collections.unmodifiableMap(values));
+	}
+
+	/**
+	 * Parses the program arguments.
+	 *
+	 * @param arguments
+	 *            - the arguments
+	 * @return the parsed arguments
+	 */
+	public static Arguments parse(String... arguments) {
+		return parse(Arrays.asList(arguments));
+	}
+
+	/**
+	 * Is the flag given?
+	 *
+	 * @param flag
+	 *            - the flag, e.g. rescan or -h
+	 * @return true if the flag is given
+	 */
+	public boolean hasFlag(String flag) {
+		return flags.contains(flag);
+	}
+
+	/**
+	 * Is any of the flags given?
+	 *
+	 * @param flag
+	 *            - the flag
+	 * @param alternative
+	 *            - another spelling of the flag, e.g. the long version
+	 * @return true if one of the flags is given
+	 */
+	public boolean hasFlag(String flag, String alternative) {
+		return flags.contains(flag) || flags.contains(alternative);
+	}
+
+	/**
+	 * Retrieve the value of a key=value argument.
+	 *
+	 * @param key
+	 *            - the key
+	 * @return the value or null if the key is not given
+	 */
+	public String get(String key) {
+		return values.get(key);
+	}
+
+	/**
+	 * Retrieve the numeric value of a key=value argument.
+	 *
+	 * @param key
+	 *            - the key
+	 * @param defaultValue
+	 *            - the value used if the key is not given
+	 * @return the value
+	 * @throws IllegalArgumentException
+	 *             if the value is not a number
+	 */
+	public long getLong(String key, long defaultValue) throws IllegalArgumentException {
+		String value = values.get(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("The argument " + key + " is not a number.");
+		}
+	}
+
+	/**
+	 * @return all flags
+	 */
+	public Set<String> getFlags() {
+		return flags;
+	}
+
+	/**
+	 * @return all key=value arguments
+	 */
+	public Map<String, String> getValues() {
+		return values;
+	}
+
+	/**
+	 * Checks that all mandatory arguments of the command are given.
+	 *
+	 * @param command
+	 *            - the command to check the arguments for
+	 * @throws IllegalArgumentException
+	 *             if a mandatory argument is missing
+	 */
+	public void validate(ApiCommand command) throws IllegalArgumentException {
+		for (CommandArgument argument : command.getCommandArguments()) {
+			if (argument.isMandatory() && !values.containsKey(argument.getKey())) {
+				throw new IllegalArgumentException("The mandatory argument " + argument.getKey() + " is not given.");
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Arguments [flags=" + flags + ", values=" + values + "]";
+	}
+}
@@ -1,6 +1,6 @@
 package eu.toennies.javahttpobservatoryapi.commands;
 
-import java.util.List;
+import java.io.IOException;
 
 import org.json.JSONObject;
 
@@ -11,8 +11,8 @@ public class GetCommandWithoutParameter extends ApiCommand {
 	}
 
 	@Override
-	public JSONObject run(List<String> arguments) {
-		return super.callApiCommand();
+	public JSONObject request(Arguments arguments) throws IOException {
+		return super.requestApiCommand(null);
 	}
 
 }
@@ -1,5 +1,9 @@
 package eu.toennies.javahttpobservatoryapi.commands;
 
+import java.io.IOException;
+
+import eu.toennies.javahttpobservatoryapi.results.GradeDistribution;
+
 /**
  * This returns each possible grade in the HTTP Observatory, as well as how many
  * scans have fallen into that grade.
@@ -14,9 +18,25 @@ package eu.toennies.javahttpobservatoryapi.commands;
  */
 public class GradeDistributionCommand extends GetCommandWithoutParameter {
 
+	/** the long console command, without prefix */
+	public static final String CONSOLE_COMMAND = "gradeDistribution";
+	/** the short console command, without prefix */
+	public static final String CONSOLE_SHORT_COMMAND = "g";
+
 	public GradeDistributionCommand() {
-		super("getGradeDistribution", "gradeDistribution", "g", "Grade distribution",
+		super("getGradeDistribution", CONSOLE_COMMAND, CONSOLE_SHORT_COMMAND, "Grade distribution",
 				"Returns each possible grade in the HTTP Observatory, as well as how many scans have fallen into that grade.");
 	}
 
+	/**
+	 * Retrieve the grade distribution.
+	 * 
+	 * @return the number of scans per grade
+	 * @throws IOException
+	 *             if the request failed
+	 */
+	public GradeDistribution getGradeDistribution() throws IOException {
+		return readApiCommand(null, GradeDistribution::read);
+	}
+
 }
\ No newline at end of file
@@ -2,7 +2,6 @@ package eu.toennies.javahttpobservatoryapi.commands;
 
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -10,7 +9,12 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import eu.toennies.javahttpobservatoryapi.Api;
-import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
+import eu.toennies.javahttpobservatoryapi.ApiException;
+import eu.toennies.javahttpobservatoryapi.RateLimiter;
+import eu.toennies.javahttpobservatoryapi.ResponseCache;
+import eu.toennies.javahttpobservatoryapi.jfr.ApiEvents;
+import eu.toennies.javahttpobservatoryapi.metrics.ApiMetrics;
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
 
 /**
  * This is used to retrieve the results of an existing, ongoing, or completed
@@ -28,8 +32,15 @@ import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
  */
 public class InvokeAssessmentCommand extends ApiCommand {
 
+	/** the long console command, without prefix */
+	public static final String CONSOLE_COMMAND = "invokeAssessment";
+	/** the short console command, without prefix */
+	public static final String CONSOLE_SHORT_COMMAND = "ia";
+
+	private static final String RESCAN_ATTEMPT_TOO_SOON = "rescan-attempt-too-soon";
+
 	public InvokeAssessmentCommand() {
-		super("analyze", "retrieveAssessment", "ia", "Invoke assessment",
+		super("analyze", CONSOLE_COMMAND, CONSOLE_SHORT_COMMAND, "Invoke assessment",
 				"Used to invoke a new scan of a website. By default, the HTTP Observatory will return a cached site result if the site has been scanned anytime in the previous 24 hours.");
 
 		CommandArgument param1 = new CommandArgument("host", "hostname to scan", true);
@@ -43,38 +54,85 @@ public class InvokeAssessmentCommand extends ApiCommand {
 	}
 
 	@Override
-	public JSONObject run(List<String> arguments) throws IllegalArgumentException {
-		if(arguments == null || ConsoleUtilities.listValueMatchRegex(arguments, "host=(.+)") == null) {
-			throw new IllegalArgumentException("The mandatory argument host is not given.");
-		}
+	public JSONObject request(Arguments arguments) throws IOException, IllegalArgumentException {
+		arguments.validate(this);
 
 		JSONObject json = null;
 		try {
+			boolean rescan = arguments.hasFlag("rescan");
+			String host = arguments.get("host");
+
+			Map<String, String> hostParameter = new HashMap<String, String>();
+			hostParameter.put("host", host);
+			String key = requestKey(hostParameter);
+			ResponseCache cache = getResponseCache();
+			if (!rescan && cache != null) {
+				json = cache.get(key);
+				if (json != null) {
+					return json;
+				}
+			}
+
+			RateLimiter limiter = RateLimiter.getInstance();
+			if (rescan && limiter.isRescanCoolingDown(host)) {
+				// the API would reject the rescan, do not waste a request on it
+				json = new JSONObject();
+				json.put("error", RESCAN_ATTEMPT_TOO_SOON);
+				checkForError(json);
+				return json;
+			}
+
+			acquirePermit();
 			Api api = new Api();
 			
 			Map<String, String> postParameters = new HashMap<String, String>();
-			postParameters.put("rescan", arguments.contains("rescan") ? "true" : "false");
-			postParameters.put("hidden", arguments.contains("hidden") ? "true" : "false");
+			postParameters.put("rescan", rescan ? "true" : "false");
+			postParameters.put("hidden", arguments.hasFlag("hidden") ? "true" : "false");
 			
-			String host = ConsoleUtilities.listValueMatchRegex(arguments, "host=(.+)");
 			final String commandUrl = getApiCommand() + "?host=" + host;
 
-			json = new JSONObject(api.sendApiPostRequest(commandUrl, postParameters));
+			String response = api.sendApiPostRequest(commandUrl, postParameters);
+			Object event = ApiEvents.beginParse(getApiCommand(), host);
+			try {
+				json = new JSONObject(response);
+				ApiEvents.endParse(event, json, null);
+			} catch (JSONException e) {
+				ApiEvents.endParse(event, null, e);
+				throw e;
+			}
+			if ((rescan && !json.has("error")) || RESCAN_ATTEMPT_TOO_SOON.equals(json.optString("error"))) {
+				limiter.startRescanCooldown(host);
+			}
+			if (cache != null) {
+				cache.put(key, getApiCommand(), json);
+			}
 			checkForError(json);
 		} catch (JSONException e) {
-			Logger.getGlobal().severe("Could not build result: " + e.getLocalizedMessage());
-		} catch (IOException e) {
-			Logger.getGlobal().severe("Could not send API request: " + e.getLocalizedMessage());
+			ApiMetrics.get("POST", getApiCommand()).error(e.getClass().getSimpleName());
+			throw new ApiException("Could not build result: " + e.getLocalizedMessage(), e);
 		}
 
 		return json;
 	}
 
-	private void checkForError(JSONObject json) throws IOException, JSONException {
+	/**
+	 * Invokes the assessment of a host.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments, host is mandatory
+	 * @return the assessment, usually not finished yet
+	 * @throws IOException
+	 *             if the request failed or the API returned an error
+	 */
+	public Assessment invokeAssessment(Arguments arguments) throws IOException {
+		return Assessment.fromJson(arguments.get("host"), request(arguments));
+	}
+
+	private void checkForError(JSONObject json) throws JSONException {
 		if (json.has("error")) {
 			String error = json.getString("error");
-			if ("rescan-attempt-too-soon".equals(error)) {
-				throw new IOException(
+			if (RESCAN_ATTEMPT_TOO_SOON.equals(error)) {
+				Logger.getGlobal().warning(
 						"A resacan attempt to soon. Try calling without \"rescan\" or wait 5 minutes.");
 			}
 		}
@@ -1,12 +1,12 @@
 package eu.toennies.javahttpobservatoryapi.commands;
 
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.json.JSONObject;
 
-import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
+import eu.toennies.javahttpobservatoryapi.results.RecentScans;
 
 /**
  * Retrieve the ten most recent scans that fall within a given score range. Maps
@@ -24,8 +24,13 @@ import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
  */
 public class RecentScansCommand extends ApiCommand {
 
+	/** the long console command, without prefix */
+	public static final String CONSOLE_COMMAND = "recentScans";
+	/** the short console command, without prefix */
+	public static final String CONSOLE_SHORT_COMMAND = "r";
+
 	public RecentScansCommand() {
-		super("getRecentScans", "recentScans", "r", "Recent scans",
+		super("getRecentScans", CONSOLE_COMMAND, CONSOLE_SHORT_COMMAND, "Recent scans",
 				"Retrieve the ten most recent scans that fall within a given score range.");
 
 		CommandArgument param1 = new CommandArgument("max", "maximum score", false);
@@ -35,16 +40,27 @@ public class RecentScansCommand extends ApiCommand {
 	}
 
 	@Override
-	public JSONObject run(List<String> arguments) {
-		Map<String, String> parameters = new HashMap<String, String>();
-		if(arguments != null) {
-			String max = ConsoleUtilities.listValueMatchRegex(arguments, "max=(.+)");
-			String min = ConsoleUtilities.listValueMatchRegex(arguments, "min=(.+)");
+	public JSONObject request(Arguments arguments) throws IOException {
+		return super.requestApiCommand(buildParameters(arguments));
+	}
 
-			parameters.put("max", max);
-			parameters.put("min", min);
-		}
+	/**
+	 * Retrieve the recent scans.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments, min and max are optional
+	 * @return the recent scans
+	 * @throws IOException
+	 *             if the request failed
+	 */
+	public RecentScans getRecentScans(Arguments arguments) throws IOException {
+		return readApiCommand(buildParameters(arguments), RecentScans::read);
+	}
 
-		return super.callApiCommand(parameters);
+	private Map<String, String> buildParameters(Arguments arguments) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("max", arguments.get("max"));
+		parameters.put("min", arguments.get("min"));
+		return parameters;
 	}
 }
\ No newline at end of file
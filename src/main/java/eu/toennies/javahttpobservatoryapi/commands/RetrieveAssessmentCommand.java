@@ -1,12 +1,14 @@
 package eu.toennies.javahttpobservatoryapi.commands;
 
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.logging.Logger;
 
 import org.json.JSONObject;
 
-import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
+import eu.toennies.javahttpobservatoryapi.store.GradeHistoryLog;
 
 /**
  * This is used to retrieve the results of an existing, ongoing, or completed
@@ -24,8 +26,15 @@ import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
  */
 public class RetrieveAssessmentCommand extends ApiCommand {
 
+	/** the long console command, without prefix */
+	public static final String CONSOLE_COMMAND = "retrieveAssessment";
+	/** the short console command, without prefix */
+	public static final String CONSOLE_SHORT_COMMAND = "ra";
+
+	private static volatile GradeHistoryLog historyLog;
+
 	public RetrieveAssessmentCommand() {
-		super("analyze", "retrieveAssessment", "ra",
+		super("analyze", CONSOLE_COMMAND, CONSOLE_SHORT_COMMAND,
 				"Retrieve assessment", "This is used to retrieve the results of an existing, ongoing, or completed scan. ");
 
 		CommandArgument param1 = new CommandArgument("host", "hostname to scan", true);
@@ -34,15 +43,67 @@ public class RetrieveAssessmentCommand extends ApiCommand {
 	}
 
 	@Override
-	public JSONObject run(List<String> arguments) throws IllegalArgumentException {
-		if (arguments == null || ConsoleUtilities.listValueMatchRegex(arguments, "host=(.+)") == null) {
-			throw new IllegalArgumentException("The mandatory argument host is not given.");
+	public JSONObject request(Arguments arguments) throws IOException, IllegalArgumentException {
+		JSONObject json = super.requestApiCommand(buildParameters(arguments));
+		GradeHistoryLog log = historyLog;
+		if (log != null && "FINISHED".equals(json.optString("state"))) {
+			try {
+				log.append(Assessment.fromJson(arguments.get("host"), json));
+			} catch (IOException e) {
+				Logger.getGlobal().warning("Could not log grade: " + e.getLocalizedMessage());
+			}
 		}
+		return json;
+	}
 
-		String host = ConsoleUtilities.listValueMatchRegex(arguments, "host=(.+)");
-		Map<String, String> parameters = new HashMap<String, String>();
-		parameters.put("host", host);
+	/**
+	 * Retrieve the assessment of a host.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments, host is mandatory
+	 * @return the assessment
+	 * @throws IOException
+	 *             if the request failed or the API returned an error
+	 */
+	public Assessment getAssessment(Arguments arguments) throws IOException {
+		final String host = arguments.get("host");
+		Assessment assessment = readApiCommand(buildParameters(arguments), reader -> Assessment.read(host, reader));
+		GradeHistoryLog log = historyLog;
+		if (log != null) {
+			try {
+				log.append(assessment);
+			} catch (IOException e) {
+				Logger.getGlobal().warning("Could not log grade: " + e.getLocalizedMessage());
+			}
+		}
+		return assessment;
+	}
 
-		return super.callApiCommand(parameters);
+	/**
+	 * Retrieve the log the grades are appended to.
+	 * 
+	 * @return the grade history log or null if grades are not logged
+	 */
+	public static GradeHistoryLog getHistoryLog() {
+		return historyLog;
+	}
+
+	/**
+	 * Sets the log the grades are appended to. Every finished assessment
+	 * retrieved is appended, a scan already logged is ignored.
+	 * 
+	 * @param log
+	 *            - the grade history log, null disables logging
+	 */
+	public static void setHistoryLog(GradeHistoryLog log) {
+		historyLog = log;
+	}
+
+	private Map<String, String> buildParameters(Arguments arguments) {
+		arguments.validate(this);
+
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("host", arguments.get("host"));
+		return parameters;
 	}
 }
\ No newline at end of file
@@ -1,12 +1,21 @@
 package eu.toennies.javahttpobservatoryapi.commands;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Logger;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
+import eu.toennies.javahttpobservatoryapi.results.ScanResultsReader;
+import eu.toennies.javahttpobservatoryapi.results.ScanState;
+import eu.toennies.javahttpobservatoryapi.results.TestResultSet;
+import eu.toennies.javahttpobservatoryapi.store.ScanResultStore;
 
 /**
  * Each scan consists of a variety of subtests, including Content Security
@@ -18,24 +27,197 @@ import eu.toennies.javahttpobservatoryapi.ConsoleUtilities;
  */
 public class RetrieveTestResultsCommand extends ApiCommand {
 
+	/** the long console command, without prefix */
+	public static final String CONSOLE_COMMAND = "retrieveTestResult";
+	/** the short console command, without prefix */
+	public static final String CONSOLE_SHORT_COMMAND = "t";
+
+	private static volatile ScanResultStore resultStore;
+
 	public RetrieveTestResultsCommand() {
-		super("getScanResults", "retrieveTestResult", "t", "Test results",
+		super("getScanResults", CONSOLE_COMMAND, CONSOLE_SHORT_COMMAND, "Test results",
 				"Retrieves the results of the test with the given id.");
 
 		CommandArgument param1 = new CommandArgument("id", "scan_id number from a scan object", true);
 		super.addCommandArgument(param1);
+		CommandArgument param2 = new CommandArgument("host",
+				"hostname of the scan, the results are only stored once its scan is FINISHED", false);
+		super.addCommandArgument(param2);
 	}
 
 	@Override
-	public JSONObject run(List<String> arguments) {
-		if(arguments == null || ConsoleUtilities.listValueMatchRegex(arguments, "id=(.+)") == null) {
-			throw new IllegalArgumentException("The mandantory argument id is not given.");
+	public JSONObject request(Arguments arguments) throws IOException {
+		Map<String, String> parameters = buildParameters(arguments);
+		ScanResultStore store = resultStore;
+		if (store == null) {
+			return super.requestApiCommand(parameters);
 		}
 
-		String id = ConsoleUtilities.listValueMatchRegex(arguments, "id=(.+)");
-		Map<String, String> parameters = new HashMap<String, String>();
-		parameters.put("scan", id);
+		long scanId = scanIdOf(parameters);
+		String stored = readStored(store, scanId);
+		if (stored != null) {
+			try {
+				return new JSONObject(stored);
+			} catch (JSONException e) {
+				Logger.getGlobal().warning("Could not read stored test results: " + e.getLocalizedMessage());
+			}
+		}
+
+		JSONObject json = super.requestApiCommand(parameters);
+		if (json.length() > 0 && !json.has("error") && isFinished(arguments.get("host"), scanId)) {
+			writeStored(store, scanId, json.toString());
+		}
+		return json;
+	}
+
+	/**
+	 * Retrieves the test results one at a time instead of building the whole
+	 * result object. The caller has to close the returned reader.
+	 * 
+	 * @param arguments
+	 *            - the command arguments, id is mandatory
+	 * @return a reader on the test results
+	 * @throws IOException
+	 */
+	public ScanResultsReader streamTestResults(List<String> arguments) throws IOException {
+		return streamTestResults(Arguments.parse(arguments));
+	}
+
+	/**
+	 * Retrieves the test results one at a time instead of building the whole
+	 * result object. The caller has to close the returned reader. Results
+	 * which are going to be stored are read completely before they are
+	 * returned.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments, id is mandatory
+	 * @return a reader on the test results
+	 * @throws IOException
+	 */
+	public ScanResultsReader streamTestResults(Arguments arguments) throws IOException {
+		Map<String, String> parameters = buildParameters(arguments);
+		ScanResultStore store = resultStore;
+		if (store == null) {
+			return new ScanResultsReader(super.openApiCommand(parameters));
+		}
+
+		long scanId = scanIdOf(parameters);
+		String stored = readStored(store, scanId);
+		if (stored != null) {
+			return new ScanResultsReader(new StringReader(stored));
+		}
+		if (!isFinished(arguments.get("host"), scanId)) {
+			return new ScanResultsReader(super.openApiCommand(parameters));
+		}
+
+		String results = readFully(super.openApiCommand(parameters));
+		try {
+			JSONObject json = new JSONObject(results);
+			if (json.length() > 0 && !json.has("error")) {
+				writeStored(store, scanId, results);
+			}
+		} catch (JSONException e) {
+			Logger.getGlobal().warning("Could not store test results: " + e.getLocalizedMessage());
+		}
+		return new ScanResultsReader(new StringReader(results));
+	}
+
+	/**
+	 * Retrieves the test results of a scan sorted by test name, e.g. for
+	 * comparing two scans with the ScanDiff.
+	 * 
+	 * @param arguments
+	 *            - the parsed arguments, id is mandatory
+	 * @return the test results
+	 * @throws IOException
+	 *             if the request failed or the API returned an error
+	 */
+	public TestResultSet getTestResults(Arguments arguments) throws IOException {
+		return TestResultSet.read(streamTestResults(arguments));
+	}
+
+	/**
+	 * Retrieve the store used for test results.
+	 * 
+	 * @return the result store or null if test results are not stored
+	 */
+	public static ScanResultStore getResultStore() {
+		return resultStore;
+	}
 
-		return super.callApiCommand(parameters);
+	/**
+	 * Sets the store used for test results. Stored results are returned
+	 * without calling the API. Results downloaded are added to the store if
+	 * the host argument is given and the host's scan with this id is
+	 * FINISHED, the results of a pending or aborted scan may still change.
+	 * 
+	 * @param store
+	 *            - the result store, null disables storing
+	 */
+	public static void setResultStore(ScanResultStore store) {
+		resultStore = store;
+	}
+
+	/**
+	 * Checks the state of a scan. The API only knows the state of the latest
+	 * scan of a host, so a scan without host is never considered finished.
+	 */
+	private static boolean isFinished(String host, long scanId) {
+		if (host == null) {
+			return false;
+		}
+		try {
+			Assessment assessment = new RetrieveAssessmentCommand().getAssessment(Arguments.parse("host=" + host));
+			return assessment.getState() == ScanState.FINISHED && assessment.getScanId() == scanId;
+		} catch (IOException e) {
+			Logger.getGlobal().warning("Could not check the state of scan " + scanId + ": " + e.getLocalizedMessage());
+			return false;
+		}
+	}
+
+	private static String readStored(ScanResultStore store, long scanId) {
+		try {
+			return store.get(scanId);
+		} catch (IOException e) {
+			Logger.getGlobal().warning("Could not read stored test results: " + e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	private static void writeStored(ScanResultStore store, long scanId, String results) {
+		try {
+			store.put(scanId, results);
+		} catch (IOException e) {
+			Logger.getGlobal().warning("Could not store test results: " + e.getLocalizedMessage());
+		}
+	}
+
+	private static String readFully(Reader reader) throws IOException {
+		try {
+			StringBuilder builder = new StringBuilder();
+			char[] buffer = new char[8192];
+			for (int read = reader.read(buffer); read != -1; read = reader.read(buffer)) {
+				builder.append(buffer, 0, read);
+			}
+			return builder.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static long scanIdOf(Map<String, String> parameters) {
+		try {
+			return Long.parseLong(parameters.get("scan").trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("The argument id is not a number.");
+		}
+	}
+
+	private Map<String, String> buildParameters(Arguments arguments) {
+		arguments.validate(this);
+
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("scan", arguments.get("id"));
+		return parameters;
 	}
 }
\ No newline at end of file
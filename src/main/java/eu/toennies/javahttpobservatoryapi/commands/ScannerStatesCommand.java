@@ -1,5 +1,9 @@
 package eu.toennies.javahttpobservatoryapi.commands;
 
+import java.io.IOException;
+
+import eu.toennies.javahttpobservatoryapi.results.ScannerStates;
+
 /**
  * This returns the state of the scanner. It can be useful for determining how
  * busy the HTTP Observatory is.
@@ -14,7 +18,23 @@ package eu.toennies.javahttpobservatoryapi.commands;
  */
 public class ScannerStatesCommand extends GetCommandWithoutParameter {
 
+	/** the long console command, without prefix */
+	public static final String CONSOLE_COMMAND = "scannerStates";
+	/** the short console command, without prefix */
+	public static final String CONSOLE_SHORT_COMMAND = "s";
+
 	public ScannerStatesCommand() {
-		super("getScannerStates", "scannerStates", "s", "Scanner states", "Retrieve scanner states");
+		super("getScannerStates", CONSOLE_COMMAND, CONSOLE_SHORT_COMMAND, "Scanner states", "Retrieve scanner states");
+	}
+
+	/**
+	 * Retrieve the scanner states.
+	 * 
+	 * @return the number of scans per state
+	 * @throws IOException
+	 *             if the request failed
+	 */
+	public ScannerStates getScannerStates() throws IOException {
+		return readApiCommand(null, ScannerStates::read);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,285 @@
+package eu.toennies.javahttpobservatoryapi.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import eu.toennies.javahttpobservatoryapi.Console;
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+
+/**
+ * A long running console. The daemon accepts command lines from
+ * {@link DaemonClient} and executes them like {@link Console#main(String[])}
+ * would, so the loaded classes, the compiled code, the open connections and
+ * the caches are reused by all command lines instead of starting a new JVM
+ * for each of them.
+ *
+ * The daemon only listens on the loopback interface. On start it writes a
+ * random token to a file in the token directory that only its user can read,
+ * and a client has to send this token before its command line, so other local
+ * users cannot run commands with the rights of the daemon.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ConsoleDaemon {
+
+	/** the port used if none is given */
+	public static final int DEFAULT_PORT = 7407;
+
+	/**
+	 * the system property naming the directory of the token files, the home
+	 * directory of the user if not set
+	 */
+	public static final String TOKEN_DIRECTORY_PROPERTY = "eu.toennies.javahttpobservatoryapi.daemon.tokenDirectory";
+
+	/** the time a client has to send its command line */
+	private static final int READ_TIMEOUT_MILLIS = 10000;
+
+	private final int port;
+	private final File tokenDirectory;
+	private ServerSocket serverSocket;
+	private ExecutorService executor;
+	private File tokenFile;
+
+	/**
+	 * Constructor for a daemon on the given port, writing its token to the
+	 * default token directory.
+	 *
+	 * @param port
+	 *            - the port or 0 for an ephemeral port
+	 */
+	public ConsoleDaemon(final int port) {
+		this(port, getDefaultTokenDirectory());
+	}
+
+	/**
+	 * Constructor for a daemon on the given port.
+	 *
+	 * @param port
+	 *            - the port or 0 for an ephemeral port
+	 * @param tokenDirectory
+	 *            - the directory of the token file
+	 */
+	public ConsoleDaemon(final int port, final File tokenDirectory) {
+		if (port < 0 || port > 65535) {
+			throw new IllegalArgumentException("The port " + port + " is not valid.");
+		}
+		this.port = port;
+		this.tokenDirectory = tokenDirectory;
+	}
+
+	/**
+	 * @return the directory given by {@link #TOKEN_DIRECTORY_PROPERTY} or the
+	 *         home directory of the user
+	 */
+	public static File getDefaultTokenDirectory() {
+		return new File(System.getProperty(TOKEN_DIRECTORY_PROPERTY, System.getProperty("user.home")));
+	}
+
+	/**
+	 * Starts accepting command lines. The accepting thread keeps the JVM
+	 * alive until the daemon is stopped.
+	 *
+	 * @return this daemon
+	 * @throws IOException
+	 *             if the port could not be bound or the token file could not
+	 *             be written
+	 */
+	public synchronized ConsoleDaemon start() throws IOException {
+		if (serverSocket != null) {
+			throw new IllegalStateException("The daemon is already running.");
+		}
+
+		final ServerSocket socket = new ServerSocket();
+		socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		File file = DaemonProtocol.tokenFile(tokenDirectory, socket.getLocalPort());
+		final String token;
+		try {
+			token = DaemonProtocol.createToken(file);
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+		tokenFile = file;
+		// the daemon usually ends by being killed
+		file.deleteOnExit();
+		final AtomicInteger count = new AtomicInteger();
+		final ExecutorService pool = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "observatory-daemon-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		serverSocket = socket;
+		executor = pool;
+
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				accept(socket, pool, token);
+			}
+		}, "observatory-daemon");
+		acceptor.start();
+		return this;
+	}
+
+	/**
+	 * Stops accepting command lines and deletes the token file. Command lines
+	 * already running are interrupted.
+	 */
+	public synchronized void stop() {
+		if (serverSocket == null) {
+			return;
+		}
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			Logger.getGlobal().warning("Could not close daemon socket: " + e.getLocalizedMessage());
+		}
+		serverSocket = null;
+		executor.shutdownNow();
+		executor = null;
+		if (!tokenFile.delete()) {
+			Logger.getGlobal().warning("Could not delete token file " + tokenFile);
+		}
+		tokenFile = null;
+	}
+
+	/**
+	 * @return the port the daemon listens on
+	 */
+	public synchronized int getPort() {
+		if (serverSocket == null) {
+			throw new IllegalStateException("The daemon is not running.");
+		}
+		return serverSocket.getLocalPort();
+	}
+
+	private void accept(ServerSocket socket, ExecutorService pool, final String token) {
+		while (!socket.isClosed()) {
+			final Socket client;
+			try {
+				client = socket.accept();
+			} catch (SocketException e) {
+				// closed by stop
+				return;
+			} catch (IOException e) {
+				Logger.getGlobal().warning("Could not accept client: " + e.getLocalizedMessage());
+				continue;
+			}
+			pool.execute(new Runnable() {
+				@Override
+				public void run() {
+					handle(client, token, pool);
+				}
+			});
+		}
+	}
+
+	private void handle(Socket client, String expected, ExecutorService pool) {
+		try (Socket socket = client) {
+			socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			PrintWriter pw = new PrintWriter(new DaemonProtocol.FrameWriter(out, DaemonProtocol.OUT));
+			PrintWriter err = new PrintWriter(new DaemonProtocol.FrameWriter(out, DaemonProtocol.ERR), true);
+			int exitCode = 0;
+			if (!DaemonProtocol.isValidToken(expected, DaemonProtocol.readToken(in))) {
+				err.println("The daemon token is not valid.");
+				exitCode = 2;
+			} else {
+				List<String> args = DaemonProtocol.readArguments(in);
+				socket.setSoTimeout(0);
+				HangupWatcher hangup = new HangupWatcher(in, Thread.currentThread());
+				pool.execute(hangup);
+				try {
+					exitCode = Console.execute(Arguments.parse(args), pw, err);
+				} catch (RuntimeException e) {
+					err.println(e.toString());
+					exitCode = 1;
+				} finally {
+					hangup.done();
+				}
+				if (hangup.isHungUp()) {
+					return;
+				}
+			}
+			pw.flush();
+			err.flush();
+			synchronized (out) {
+				out.writeByte(DaemonProtocol.EXIT);
+				out.writeInt(exitCode);
+				out.flush();
+			}
+		} catch (IOException e) {
+			Logger.getGlobal().warning("Could not serve client: " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Interrupts the thread running a command line when the client closes the
+	 * connection, so a watch or a bulk assessment does not keep running for
+	 * nobody. The client sends nothing after its command line, so any read
+	 * ends with the connection.
+	 */
+	private static final class HangupWatcher implements Runnable {
+
+		private final DataInputStream in;
+		private final Thread worker;
+		private boolean done;
+		private boolean hungUp;
+
+		HangupWatcher(final DataInputStream in, final Thread worker) {
+			this.in = in;
+			this.worker = worker;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (in.read() >= 0) {
+					// nothing is expected from the client
+				}
+			} catch (IOException e) {
+				// closed by the client or by the daemon
+			}
+			synchronized (this) {
+				if (!done) {
+					hungUp = true;
+					worker.interrupt();
+				}
+			}
+		}
+
+		/**
+		 * Called by the worker when the command line has ended, afterwards
+		 * the worker is never interrupted.
+		 */
+		void done() {
+			synchronized (this) {
+				done = true;
+			}
+			// an interrupt for this command line must not hit the next one
+			Thread.interrupted();
+		}
+
+		synchronized boolean isHungUp() {
+			return hungUp;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package eu.toennies.javahttpobservatoryapi.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A thin client sending its command line to a running {@link ConsoleDaemon}
+ * and printing the response. It takes the same arguments as the console, the
+ * port of the daemon is given by port=. The token of the daemon is read from
+ * the default token directory, so the client has to run as the user of the
+ * daemon.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class DaemonClient {
+
+	/**
+	 * Hidden constructor for utility class.
+	 */
+	private DaemonClient() {
+	}
+
+	/**
+	 * Sends a command line to the daemon and copies its output. The token is
+	 * read from the default token directory.
+	 *
+	 * @param port
+	 *            - the port of the daemon
+	 * @param args
+	 *            - the console parameters
+	 * @param out
+	 *            - receives the standard output of the command line
+	 * @param err
+	 *            - receives the error output of the command line
+	 * @return the exit code, 0 on success, 1 if a command reported an error and 2
+	 *         if the daemon refused the command line
+	 * @throws IOException
+	 *             if the daemon is not running or the connection broke
+	 * @see ConsoleDaemon#getDefaultTokenDirectory()
+	 */
+	public static int execute(int port, List<String> args, OutputStream out, OutputStream err) throws IOException {
+		return execute(port, ConsoleDaemon.getDefaultTokenDirectory(), args, out, err);
+	}
+
+	/**
+	 * Sends a command line to the daemon and copies its output.
+	 *
+	 * @param port
+	 *            - the port of the daemon
+	 * @param tokenDirectory
+	 *            - the directory the daemon wrote its token to
+	 * @param args
+	 *            - the console parameters
+	 * @param out
+	 *            - receives the standard output of the command line
+	 * @param err
+	 *            - receives the error output of the command line
+	 * @return the exit code, 0 on success, 1 if a command reported an error and 2
+	 *         if the daemon refused the command line
+	 * @throws IOException
+	 *             if the daemon is not running, its token could not be read
+	 *             or the connection broke
+	 */
+	public static int execute(int port, File tokenDirectory, List<String> args, OutputStream out, OutputStream err)
+			throws IOException {
+		File tokenFile = DaemonProtocol.tokenFile(tokenDirectory, port);
+		String token;
+		try {
+			token = DaemonProtocol.readToken(tokenFile);
+		} catch (IOException e) {
+			throw new IOException("Could not read the daemon token " + tokenFile + ": " + e.getLocalizedMessage(), e);
+		}
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			socket.setTcpNoDelay(true);
+			DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			FrameReader response = new FrameReader(
+					new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+			DaemonProtocol.writeArguments(request, token, resolveFiles(args));
+			return response.copy(out, err);
+		}
+	}
+
+	/**
+	 * Files are opened by the daemon, so relative paths are resolved against
+	 * the working directory of the client.
+	 */
+	private static List<String> resolveFiles(List<String> args) {
+		List<String> resolved = new ArrayList<String>(args.size());
+		for (String arg : args) {
+			if (arg.startsWith("hosts=")) {
+				arg = "hosts=" + new File(arg.substring("hosts=".length())).getAbsolutePath();
+			}
+			resolved.add(arg);
+		}
+		return resolved;
+	}
+
+	/**
+	 * Reads the frames of a response.
+	 */
+	private static final class FrameReader {
+
+		private final DataInputStream in;
+
+		FrameReader(final DataInputStream in) {
+			this.in = in;
+		}
+
+		int copy(OutputStream out, OutputStream err) throws IOException {
+			byte[] buffer = new byte[8192];
+			while (true) {
+				int type;
+				try {
+					type = in.readUnsignedByte();
+				} catch (EOFException e) {
+					throw new IOException("The daemon closed the connection.");
+				}
+				if (type == DaemonProtocol.EXIT) {
+					out.flush();
+					err.flush();
+					return in.readInt();
+				}
+				OutputStream target = type == DaemonProtocol.ERR ? err : out;
+				int remaining = in.readInt();
+				while (remaining > 0) {
+					int read = in.read(buffer, 0, Math.min(buffer.length, remaining));
+					if (read < 0) {
+						throw new IOException("The daemon closed the connection.");
+					}
+					target.write(buffer, 0, read);
+					remaining -= read;
+				}
+				if (type == DaemonProtocol.ERR) {
+					err.flush();
+				} else {
+					out.flush();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sends the command line to the daemon.
+	 *
+	 * @param args
+	 *            the console parameters
+	 */
+	public static void main(String[] args) {
+		List<String> arguments = new ArrayList<String>();
+		int port = ConsoleDaemon.DEFAULT_PORT;
+		for (String arg : args) {
+			if (arg.startsWith("port=")) {
+				try {
+					port = Integer.parseInt(arg.substring("port=".length()).trim());
+				} catch (NumberFormatException e) {
+					System.err.println("The argument port is not a number.");
+					System.exit(2);
+				}
+			} else {
+				arguments.add(arg);
+			}
+		}
+
+		int exitCode;
+		try {
+			exitCode = execute(port, arguments, System.out, System.err);
+		} catch (IOException e) {
+			System.err.println("Could not reach daemon on port " + port + ": " + e.getLocalizedMessage());
+			exitCode = 2;
+		}
+		System.exit(exitCode);
+	}
+}
@@ -0,0 +1,245 @@
+package eu.toennies.javahttpobservatoryapi.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The protocol between {@link DaemonClient} and {@link ConsoleDaemon}. The
+ * client sends the token of the daemon, then the number of arguments followed
+ * by the arguments. The token is a random secret the daemon writes to a file
+ * only its user can read, so only that user can send commands. The daemon
+ * answers with frames, each starting with its type: output and error frames
+ * carry a length and UTF-8 text, the exit frame carries the exit code and
+ * ends the response.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+final class DaemonProtocol {
+
+	/** the frame ending the response */
+	static final int EXIT = 0;
+
+	/** a frame of the standard output */
+	static final int OUT = 1;
+
+	/** a frame of the error output */
+	static final int ERR = 2;
+
+	/** the maximum number of arguments of a command line */
+	static final int MAX_ARGUMENTS = 1024;
+
+	/** the number of random bytes of a token */
+	private static final int TOKEN_BYTES = 32;
+
+	/**
+	 * Hidden constructor for utility class.
+	 */
+	private DaemonProtocol() {
+	}
+
+	/**
+	 * Retrieve the file holding the token of the daemon on a port.
+	 *
+	 * @param directory
+	 *            - the directory of the token files
+	 * @param port
+	 *            - the port of the daemon
+	 * @return the token file
+	 */
+	static File tokenFile(File directory, int port) {
+		return new File(directory, ".observatory-daemon-" + port);
+	}
+
+	/**
+	 * Creates a new random token and writes it to a file only the owner can
+	 * read and write. An existing file is replaced.
+	 *
+	 * @param file
+	 *            - the token file
+	 * @return the token
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	static String createToken(File file) throws IOException {
+		byte[] random = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(random);
+		StringBuilder token = new StringBuilder(TOKEN_BYTES * 2);
+		for (byte b : random) {
+			token.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+
+		Path path = file.getAbsoluteFile().toPath();
+		Files.deleteIfExists(path);
+		if (Files.getFileStore(path.getParent()).supportsFileAttributeView("posix")) {
+			Files.createFile(path, PosixFilePermissions.asFileAttribute(
+					EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+		} else {
+			Files.createFile(path);
+			if (!(file.setReadable(false, false) && file.setReadable(true, true) && file.setWritable(false, false)
+					&& file.setWritable(true, true))) {
+				throw new IOException("Could not restrict the access to " + file);
+			}
+		}
+		Files.write(path, token.toString().getBytes(StandardCharsets.US_ASCII));
+		return token.toString();
+	}
+
+	/**
+	 * Reads the token of a daemon.
+	 *
+	 * @param file
+	 *            - the token file
+	 * @return the token
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	static String readToken(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim();
+	}
+
+	/**
+	 * Compares the token sent by a client in constant time.
+	 *
+	 * @param expected
+	 *            - the token of the daemon
+	 * @param actual
+	 *            - the token sent by the client
+	 * @return true if the tokens are equal
+	 */
+	static boolean isValidToken(String expected, String actual) {
+		return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+				actual.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Writes a command line.
+	 *
+	 * @param out
+	 *            - the stream to the daemon
+	 * @param token
+	 *            - the token of the daemon
+	 * @param args
+	 *            - the arguments
+	 * @throws IOException
+	 */
+	static void writeArguments(DataOutputStream out, String token, List<String> args) throws IOException {
+		out.writeUTF(token);
+		out.writeInt(args.size());
+		for (String arg : args) {
+			out.writeUTF(arg);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads the token sent by the client.
+	 *
+	 * @param in
+	 *            - the stream from the client
+	 * @return the token
+	 * @throws IOException
+	 *             if the token is malformed
+	 */
+	static String readToken(DataInputStream in) throws IOException {
+		return in.readUTF();
+	}
+
+	/**
+	 * Reads a command line following the token.
+	 *
+	 * @param in
+	 *            - the stream from the client
+	 * @return the arguments
+	 * @throws IOException
+	 *             if the command line is malformed
+	 */
+	static List<String> readArguments(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > MAX_ARGUMENTS) {
+			throw new IOException("Invalid number of arguments " + count);
+		}
+		List<String> args = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			args.add(in.readUTF());
+		}
+		return args;
+	}
+
+	/**
+	 * A writer sending everything written to it as frames of one type. Text
+	 * is collected until the writer is flushed or the buffer is full.
+	 */
+	static final class FrameWriter extends Writer {
+
+		private final DataOutputStream out;
+		private final int type;
+		private final StringBuilder buffer = new StringBuilder(8192);
+
+		/**
+		 * Constructor for a new frame writer.
+		 *
+		 * @param out
+		 *            - the stream to the client, shared by the writers of all
+		 *            types
+		 * @param type
+		 *            - the frame type
+		 */
+		FrameWriter(final DataOutputStream out, final int type) {
+			this.out = out;
+			this.type = type;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			synchronized (out) {
+				buffer.append(cbuf, off, len);
+				if (buffer.length() >= 8192) {
+					send();
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			synchronized (out) {
+				send();
+				out.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+
+		private void send() throws IOException {
+			int length = buffer.length();
+			if (length > 0 && Character.isHighSurrogate(buffer.charAt(length - 1))) {
+				// keep the pair together
+				length--;
+			}
+			if (length == 0) {
+				return;
+			}
+			byte[] bytes = buffer.substring(0, length).getBytes(StandardCharsets.UTF_8);
+			buffer.delete(0, length);
+			out.writeByte(type);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+}
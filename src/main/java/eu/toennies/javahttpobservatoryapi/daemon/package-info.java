@@ -0,0 +1,7 @@
+/**
+ * Provides a long running console and its client, so command lines do not
+ * have to start a new JVM.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.daemon;
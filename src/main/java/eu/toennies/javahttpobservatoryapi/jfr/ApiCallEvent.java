@@ -0,0 +1,70 @@
+package eu.toennies.javahttpobservatoryapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a request sent to the API. The event lasts from
+ * sending the request until its response body has been read or closed. It is
+ * disabled by default and has to be enabled in the settings of the
+ * recording, e.g. with
+ * recording.enable("eu.toennies.javahttpobservatoryapi.ApiCall").
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+@Name(ApiEvents.API_CALL)
+@Label("Observatory API Call")
+@Category("Observatory API")
+@Description("A request sent to the Observatory API")
+@Enabled(false)
+@StackTrace(false)
+public final class ApiCallEvent extends jdk.jfr.Event {
+
+	@Label("Method")
+	String method;
+
+	@Label("Command")
+	String command;
+
+	@Label("Host")
+	String host;
+
+	@Label("Status")
+	int status;
+
+	@Label("Error")
+	String error;
+
+	@Label("Bytes Sent")
+	@DataAmount
+	long bytesSent;
+
+	@Label("Bytes Read")
+	@DataAmount
+	long bytesRead;
+
+	@Label("Connect")
+	@Description("Time to connect, including the TLS handshake")
+	@Timespan
+	long connectTime = -1;
+
+	@Label("First Byte")
+	@Description("Time from the connection until the response status arrived")
+	@Timespan
+	long firstByteTime = -1;
+
+	@Label("Body")
+	@Description("Time from the response status until the body was read")
+	@Timespan
+	long bodyTime = -1;
+
+	/** when the response status arrived, not recorded */
+	transient long responseTicks;
+}
@@ -0,0 +1,183 @@
+package eu.toennies.javahttpobservatoryapi.jfr;
+
+import java.net.URL;
+
+/**
+ * Emits the flight recorder events of the API calls. All methods accept and
+ * return null: no event is created if the JDK has no flight recorder, if the
+ * flight recorder has not been started or if the event is not enabled in any
+ * running recording, so an API call without a recording only pays for two
+ * boolean checks and the flight recorder is not initialized by the API.
+ *
+ * The events are compiled for Java 11, on older JDKs no events are emitted.
+ * The returned events are opaque and only passed back to this class.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class ApiEvents {
+
+	/** the name of the {@link ApiCallEvent} */
+	public static final String API_CALL = "eu.toennies.javahttpobservatoryapi.ApiCall";
+
+	/** the name of the {@link JsonParseEvent} */
+	public static final String JSON_PARSE = "eu.toennies.javahttpobservatoryapi.JsonParse";
+
+	private static final String RECORDER_CLASS = "eu.toennies.javahttpobservatoryapi.jfr.FlightRecorderEvents";
+
+	private static final EventRecorder RECORDER = loadRecorder();
+
+	/**
+	 * Hidden constructor for utility class.
+	 */
+	private ApiEvents() {
+	}
+
+	/**
+	 * Does the running JDK support flight recorder events?
+	 *
+	 * @return true if events can be emitted
+	 */
+	public static boolean isAvailable() {
+		return RECORDER != null;
+	}
+
+	private static boolean isRecording() {
+		return RECORDER != null && RECORDER.isRecording();
+	}
+
+	/**
+	 * Begins the event of an API call.
+	 *
+	 * @param method
+	 *            - GET or POST
+	 * @param command
+	 *            - the api command
+	 * @param url
+	 *            - the url of the request, the host is taken from its query
+	 * @param bytesSent
+	 *            - the request body bytes
+	 * @return the event or null if it is not recorded
+	 */
+	public static Object beginCall(String method, String command, URL url, long bytesSent) {
+		if (!isRecording()) {
+			return null;
+		}
+		return RECORDER.beginCall(method, command, hostOf(url.getQuery()), bytesSent);
+	}
+
+	/**
+	 * Adds the status and the timings of the response to the event of an API
+	 * call.
+	 *
+	 * @param event
+	 *            - the event, may be null
+	 * @param status
+	 *            - the HTTP status
+	 * @param connectNanos
+	 *            - the time to connect or -1 if unknown
+	 * @param firstByteNanos
+	 *            - the time until the response status arrived or -1 if
+	 *            unknown
+	 */
+	public static void responseReceived(Object event, int status, long connectNanos, long firstByteNanos) {
+		if (event == null) {
+			return;
+		}
+		RECORDER.responseReceived(event, status, connectNanos, firstByteNanos);
+	}
+
+	/**
+	 * Ends and commits the event of an API call.
+	 *
+	 * @param event
+	 *            - the event, may be null
+	 * @param bytesRead
+	 *            - the response body bytes
+	 * @param error
+	 *            - the type of the error or null if the call succeeded
+	 */
+	public static void endCall(Object event, long bytesRead, String error) {
+		if (event == null) {
+			return;
+		}
+		RECORDER.endCall(event, bytesRead, error);
+	}
+
+	/**
+	 * Begins the event of parsing an API response.
+	 *
+	 * @param command
+	 *            - the api command
+	 * @param host
+	 *            - the host or null
+	 * @return the event or null if it is not recorded
+	 */
+	public static Object beginParse(String command, String host) {
+		if (!isRecording()) {
+			return null;
+		}
+		return RECORDER.beginParse(command, host);
+	}
+
+	/**
+	 * Ends and commits the event of parsing an API response.
+	 *
+	 * @param event
+	 *            - the event, may be null
+	 * @param result
+	 *            - the parsed response or null if parsing failed
+	 * @param error
+	 *            - the error or null if the response was parsed
+	 */
+	public static void endParse(Object event, Object result, Throwable error) {
+		if (event == null) {
+			return;
+		}
+		RECORDER.endParse(event, result == null ? null : result.getClass().getSimpleName(),
+				error == null ? null : error.getClass().getSimpleName());
+	}
+
+	/**
+	 * Retrieve the host parameter of a query string.
+	 *
+	 * @param query
+	 *            - the query, may be null
+	 * @return the host or null
+	 */
+	static String hostOf(String query) {
+		if (query == null) {
+			return null;
+		}
+		int start;
+		if (query.startsWith("host=")) {
+			start = "host=".length();
+		} else {
+			start = query.indexOf("&host=");
+			if (start < 0) {
+				return null;
+			}
+			start += "&host=".length();
+		}
+		int end = query.indexOf('&', start);
+		return end < 0 ? query.substring(start) : query.substring(start, end);
+	}
+
+	/**
+	 * Loads the recorder if the JDK has a flight recorder and can load classes
+	 * compiled for Java 11.
+	 *
+	 * @return the recorder or null
+	 */
+	private static EventRecorder loadRecorder() {
+		ClassLoader loader = ApiEvents.class.getClassLoader();
+		try {
+			Class.forName("jdk.jfr.Event", false, loader);
+			return (EventRecorder) Class.forName(RECORDER_CLASS, true, loader).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			return null;
+		} catch (LinkageError e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package eu.toennies.javahttpobservatoryapi.jfr;
+
+/**
+ * Creates and commits the flight recorder events. The implementation is
+ * compiled for Java 11 and only loaded if the running JDK has a flight
+ * recorder, so the rest of the library does not depend on jdk.jfr. The
+ * events are passed around as opaque objects.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+interface EventRecorder {
+
+	/**
+	 * @return true if the flight recorder has been started
+	 */
+	boolean isRecording();
+
+	/**
+	 * @return the begun event or null if it is not enabled
+	 */
+	Object beginCall(String method, String command, String host, long bytesSent);
+
+	void responseReceived(Object event, int status, long connectNanos, long firstByteNanos);
+
+	void endCall(Object event, long bytesRead, String error);
+
+	/**
+	 * @return the begun event or null if it is not enabled
+	 */
+	Object beginParse(String command, String host);
+
+	void endParse(Object event, String result, String error);
+}
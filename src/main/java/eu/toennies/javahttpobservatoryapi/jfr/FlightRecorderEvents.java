@@ -0,0 +1,76 @@
+package eu.toennies.javahttpobservatoryapi.jfr;
+
+/**
+ * The recorder of the {@link ApiCallEvent} and the {@link JsonParseEvent}.
+ * Loaded by {@link ApiEvents} through reflection.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+final class FlightRecorderEvents implements EventRecorder {
+
+	@Override
+	public boolean isRecording() {
+		return jdk.jfr.FlightRecorder.isInitialized();
+	}
+
+	@Override
+	public Object beginCall(String method, String command, String host, long bytesSent) {
+		ApiCallEvent event = new ApiCallEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		event.method = method;
+		event.command = command;
+		event.host = host;
+		event.bytesSent = bytesSent;
+		return event;
+	}
+
+	@Override
+	public void responseReceived(Object event, int status, long connectNanos, long firstByteNanos) {
+		ApiCallEvent call = (ApiCallEvent) event;
+		call.status = status;
+		call.connectTime = connectNanos;
+		call.firstByteTime = firstByteNanos;
+		call.responseTicks = System.nanoTime();
+	}
+
+	@Override
+	public void endCall(Object event, long bytesRead, String error) {
+		ApiCallEvent call = (ApiCallEvent) event;
+		call.end();
+		if (call.shouldCommit()) {
+			if (call.responseTicks != 0) {
+				call.bodyTime = System.nanoTime() - call.responseTicks;
+			}
+			call.bytesRead = bytesRead;
+			call.error = error;
+			call.commit();
+		}
+	}
+
+	@Override
+	public Object beginParse(String command, String host) {
+		JsonParseEvent event = new JsonParseEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		event.command = command;
+		event.host = host;
+		return event;
+	}
+
+	@Override
+	public void endParse(Object event, String result, String error) {
+		JsonParseEvent parse = (JsonParseEvent) event;
+		parse.end();
+		if (parse.shouldCommit()) {
+			parse.result = result;
+			parse.error = error;
+			parse.commit();
+		}
+	}
+}
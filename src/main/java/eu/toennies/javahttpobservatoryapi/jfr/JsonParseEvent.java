@@ -0,0 +1,38 @@
+package eu.toennies.javahttpobservatoryapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of parsing an API response. Responses are parsed
+ * while they arrive, so the event overlaps the body phase of the
+ * {@link ApiCallEvent} of the same request. It is disabled by default.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+@Name(ApiEvents.JSON_PARSE)
+@Label("Observatory API Response Parsing")
+@Category("Observatory API")
+@Description("Parsing of an Observatory API response")
+@Enabled(false)
+@StackTrace(false)
+public final class JsonParseEvent extends jdk.jfr.Event {
+
+	@Label("Command")
+	String command;
+
+	@Label("Host")
+	String host;
+
+	@Label("Result")
+	@Description("The type the response was parsed into")
+	String result;
+
+	@Label("Error")
+	String error;
+}
@@ -0,0 +1,6 @@
+/**
+ * Provides the flight recorder events of the API calls.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.jfr;
@@ -0,0 +1,144 @@
+package eu.toennies.javahttpobservatoryapi.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The metrics of all API commands. The metrics of a command are created with
+ * its first request and registered at the platform MBean server as
+ * eu.toennies.javahttpobservatoryapi:type=ApiCommand,method=GET,name=analyze
+ *
+ * Starting the MBean server takes a few hundred milliseconds, which is most of
+ * the run time of a single console command. Registration can therefore be
+ * switched off with the system property {@value #JMX_PROPERTY} or
+ * {@link #setJmxEnabled(boolean)}, the metrics are collected anyway.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class ApiMetrics {
+
+	/** the JMX domain of the MBeans */
+	public static final String DOMAIN = "eu.toennies.javahttpobservatoryapi";
+
+	/** the system property switching the registration of the MBeans */
+	public static final String JMX_PROPERTY = "eu.toennies.javahttpobservatoryapi.jmx";
+
+	private static final ConcurrentHashMap<String, CommandMetrics> METRICS = new ConcurrentHashMap<String, CommandMetrics>();
+
+	private static volatile boolean jmxEnabled = Boolean.parseBoolean(System.getProperty(JMX_PROPERTY, "true"));
+
+	/**
+	 * Hidden constructor for utility class.
+	 */
+	private ApiMetrics() {
+	}
+
+	/**
+	 * Retrieve the metrics of an API command.
+	 *
+	 * @param method
+	 *            - the http method, GET or POST
+	 * @param apiCall
+	 *            - the api command, a query string is ignored
+	 * @return the metrics
+	 */
+	public static CommandMetrics get(String method, String apiCall) {
+		int query = apiCall.indexOf('?');
+		String command = query < 0 ? apiCall : apiCall.substring(0, query);
+		String key = method + " " + command;
+
+		CommandMetrics metrics = METRICS.get(key);
+		if (metrics == null) {
+			CommandMetrics created = new CommandMetrics(method, command);
+			metrics = METRICS.putIfAbsent(key, created);
+			if (metrics == null) {
+				metrics = created;
+				if (jmxEnabled) {
+					register(created);
+				}
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * @return the metrics of all commands sent so far
+	 */
+	public static Collection<CommandMetrics> getAll() {
+		return new ArrayList<CommandMetrics>(METRICS.values());
+	}
+
+	/**
+	 * @return true if the metrics are registered as MBeans
+	 */
+	public static boolean isJmxEnabled() {
+		return jmxEnabled;
+	}
+
+	/**
+	 * Switches the registration of the metrics as MBeans. Metrics created
+	 * while the registration was switched off are registered when it is
+	 * switched on, switching it off does not unregister anything.
+	 *
+	 * @param enabled
+	 *            - true to register the metrics
+	 */
+	public static void setJmxEnabled(boolean enabled) {
+		jmxEnabled = enabled;
+		if (enabled) {
+			for (CommandMetrics metrics : METRICS.values()) {
+				register(metrics);
+			}
+		}
+	}
+
+	/**
+	 * Resets the metrics of all commands.
+	 */
+	public static void reset() {
+		for (CommandMetrics metrics : METRICS.values()) {
+			metrics.reset();
+		}
+	}
+
+	/**
+	 * Builds the name of the MBean of an API command.
+	 *
+	 * @param metrics
+	 *            - the metrics of the command
+	 * @return the object name
+	 * @throws JMException
+	 *             if the command is not a valid name
+	 */
+	public static ObjectName objectNameOf(CommandMetrics metrics) throws JMException {
+		return new ObjectName(DOMAIN + ":type=ApiCommand,method=" + metrics.getMethod() + ",name="
+				+ ObjectName.quote(metrics.getCommand()));
+	}
+
+	private static void register(CommandMetrics metrics) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = objectNameOf(metrics);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(metrics, name);
+			}
+		} catch (InstanceAlreadyExistsException e) {
+			// registered concurrently
+		} catch (JMException e) {
+			Logger.getGlobal().warning("Could not register metrics of " + metrics.getCommand() + ": "
+					+ e.getLocalizedMessage());
+		} catch (SecurityException e) {
+			Logger.getGlobal().warning("Could not register metrics of " + metrics.getCommand() + ": "
+					+ e.getLocalizedMessage());
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package eu.toennies.javahttpobservatoryapi.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of an API command. A request is started with {@link #start()}
+ * and ended with exactly one of {@link #success(long, long, long)} or
+ * {@link #failure(long, String)}. All counters are lock free.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class CommandMetrics implements CommandMetricsMXBean {
+
+	private final String command;
+	private final String method;
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder bytesIn = new LongAdder();
+	private final LongAdder bytesOut = new LongAdder();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final ConcurrentHashMap<String, LongAdder> errorsByType = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * Constructor for the metrics of an API command.
+	 *
+	 * @param method
+	 *            - the http method
+	 * @param command
+	 *            - the api command
+	 */
+	CommandMetrics(final String method, final String command) {
+		this.method = method;
+		this.command = command;
+	}
+
+	/**
+	 * Starts a request.
+	 *
+	 * @return the start time to pass when the request ends
+	 */
+	public long start() {
+		inFlight.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Ends a successful request.
+	 *
+	 * @param start
+	 *            - the time returned by {@link #start()}
+	 * @param bytesSent
+	 *            - the request body bytes
+	 * @param bytesRead
+	 *            - the response body bytes
+	 */
+	public void success(long start, long bytesSent, long bytesRead) {
+		latencies.record(System.nanoTime() - start);
+		inFlight.decrementAndGet();
+		requests.increment();
+		bytesOut.add(bytesSent);
+		bytesIn.add(bytesRead);
+	}
+
+	/**
+	 * Ends a failed request.
+	 *
+	 * @param start
+	 *            - the time returned by {@link #start()}
+	 * @param type
+	 *            - the type of the error
+	 */
+	public void failure(long start, String type) {
+		latencies.record(System.nanoTime() - start);
+		inFlight.decrementAndGet();
+		requests.increment();
+		error(type);
+	}
+
+	/**
+	 * Counts an error outside of a request, e.g. a response that could not be
+	 * parsed.
+	 *
+	 * @param type
+	 *            - the type of the error
+	 */
+	public void error(String type) {
+		errors.increment();
+		LongAdder count = errorsByType.get(type);
+		if (count == null) {
+			count = errorsByType.computeIfAbsent(type, t -> new LongAdder());
+		}
+		count.increment();
+	}
+
+	/**
+	 * @return the latency histogram
+	 */
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	@Override
+	public String getCommand() {
+		return command;
+	}
+
+	@Override
+	public String getMethod() {
+		return method;
+	}
+
+	@Override
+	public long getRequests() {
+		return requests.sum();
+	}
+
+	@Override
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	@Override
+	public Map<String, Long> getErrorsByType() {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> entry : errorsByType.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().sum());
+		}
+		return result;
+	}
+
+	@Override
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	@Override
+	public long getBytesOut() {
+		return bytesOut.sum();
+	}
+
+	@Override
+	public long getBytesIn() {
+		return bytesIn.sum();
+	}
+
+	@Override
+	public double getLatencyP50Millis() {
+		return latencies.getValueAtPercentile(50) / 1000.0;
+	}
+
+	@Override
+	public double getLatencyP99Millis() {
+		return latencies.getValueAtPercentile(99) / 1000.0;
+	}
+
+	@Override
+	public double getLatencyP999Millis() {
+		return latencies.getValueAtPercentile(99.9) / 1000.0;
+	}
+
+	@Override
+	public void reset() {
+		latencies.reset();
+		requests.reset();
+		errors.reset();
+		bytesIn.reset();
+		bytesOut.reset();
+		errorsByType.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "CommandMetrics [method=" + method + ", command=" + command + ", requests=" + getRequests()
+				+ ", errors=" + getErrors() + ", inFlight=" + getInFlight() + "]";
+	}
+}
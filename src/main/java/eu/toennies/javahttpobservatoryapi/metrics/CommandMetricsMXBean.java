@@ -0,0 +1,77 @@
+package eu.toennies.javahttpobservatoryapi.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of the metrics of an API command. Latencies are
+ * measured from sending the request until the response has been read
+ * completely.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public interface CommandMetricsMXBean {
+
+	/**
+	 * @return the api command, e.g. analyze
+	 */
+	String getCommand();
+
+	/**
+	 * @return the http method, GET or POST
+	 */
+	String getMethod();
+
+	/**
+	 * @return the number of completed requests, successful or not
+	 */
+	long getRequests();
+
+	/**
+	 * @return the number of failed requests and responses that could not be
+	 *         parsed
+	 */
+	long getErrors();
+
+	/**
+	 * @return the number of errors by type, e.g. HTTP 500 or
+	 *         SocketTimeoutException
+	 */
+	Map<String, Long> getErrorsByType();
+
+	/**
+	 * @return the number of requests currently sent or read
+	 */
+	int getInFlight();
+
+	/**
+	 * @return the number of request body bytes sent
+	 */
+	long getBytesOut();
+
+	/**
+	 * @return the number of response body bytes read
+	 */
+	long getBytesIn();
+
+	/**
+	 * @return the median latency in milliseconds
+	 */
+	double getLatencyP50Millis();
+
+	/**
+	 * @return the 99th percentile of the latency in milliseconds
+	 */
+	double getLatencyP99Millis();
+
+	/**
+	 * @return the 99.9th percentile of the latency in milliseconds
+	 */
+	double getLatencyP999Millis();
+
+	/**
+	 * Resets all counters and the latency histogram. The in-flight gauge is
+	 * kept.
+	 */
+	void reset();
+}
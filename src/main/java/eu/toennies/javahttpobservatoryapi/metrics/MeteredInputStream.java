@@ -0,0 +1,114 @@
+package eu.toennies.javahttpobservatoryapi.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A response body counting the bytes read. The request is ended in its
+ * metrics when the body has been read to its end, when reading fails or when
+ * the body is closed, whatever happens first. Subclasses can take part in the
+ * end of the request through {@link #ended(long, IOException)}.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class MeteredInputStream extends FilterInputStream {
+
+	private final CommandMetrics metrics;
+	private final long start;
+	private final long bytesSent;
+	private long bytesRead = 0;
+	private boolean ended = false;
+
+	/**
+	 * Constructor for a metered response body.
+	 *
+	 * @param in
+	 *            - the response body
+	 * @param metrics
+	 *            - the metrics of the command
+	 * @param start
+	 *            - the time returned by {@link CommandMetrics#start()}
+	 * @param bytesSent
+	 *            - the request body bytes
+	 */
+	public MeteredInputStream(final InputStream in, final CommandMetrics metrics, final long start,
+			final long bytesSent) {
+		super(in);
+		this.metrics = metrics;
+		this.start = start;
+		this.bytesSent = bytesSent;
+	}
+
+	@Override
+	public int read() throws IOException {
+		try {
+			int b = super.read();
+			if (b < 0) {
+				end(null);
+			} else {
+				bytesRead++;
+			}
+			return b;
+		} catch (IOException e) {
+			end(e);
+			throw e;
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		try {
+			int read = super.read(b, off, len);
+			if (read < 0) {
+				end(null);
+			} else {
+				bytesRead += read;
+			}
+			return read;
+		} catch (IOException e) {
+			end(e);
+			throw e;
+		}
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		bytesRead += skipped;
+		return skipped;
+	}
+
+	@Override
+	public void close() throws IOException {
+		end(null);
+		super.close();
+	}
+
+	/**
+	 * Called once when the request has ended, after it has been recorded in
+	 * the metrics.
+	 *
+	 * @param bytesRead
+	 *            - the response body bytes
+	 * @param error
+	 *            - the error reading the body or null
+	 */
+	protected void ended(long bytesRead, IOException error) {
+		// nothing to do
+	}
+
+	private void end(IOException e) {
+		if (ended) {
+			return;
+		}
+		ended = true;
+		if (e == null) {
+			metrics.success(start, bytesSent, bytesRead);
+		} else {
+			metrics.failure(start, e.getClass().getSimpleName());
+		}
+		ended(bytesRead, e);
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * Provides the metrics of the API calls, published as JMX MBeans.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.metrics;
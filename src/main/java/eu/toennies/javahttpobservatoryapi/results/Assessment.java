@@ -0,0 +1,463 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+
+/**
+ * A scan of a host as returned by the analyze call.
+ *
+ * Example scan object
+ *
+ * { "end_time": "Tue, 22 Mar 2016 21:51:41 GMT", "grade": "A",
+ * "response_headers": { ... }, "scan_id": 1, "score": 90, "start_time":
+ * "Tue, 22 Mar 2016 21:51:40 GMT", "state": "FINISHED", "tests_failed": 2,
+ * "tests_passed": 9, "tests_quantity": 11 }
+ *
+ * Scores and counts are kept as primitives, grade and state as enums and the
+ * response headers as a flat array with shared header names, so a large
+ * number of assessments can be kept in memory.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class Assessment {
+
+	private static final String[] NO_HEADERS = new String[0];
+	private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+	private static final int MAX_HEADER_NAMES = 4096;
+	private static final ConcurrentMap<String, String> HEADER_NAMES = new ConcurrentHashMap<String, String>();
+
+	private final String host;
+	private final long scanId;
+	private final ScanState state;
+	private final Grade grade;
+	private final int score;
+	private final int testsPassed;
+	private final int testsFailed;
+	private final int testsQuantity;
+	private final int statusCode;
+	private final int algorithmVersion;
+	private final long startTime;
+	private final long endTime;
+	private final boolean hidden;
+	private final String likelihoodIndicator;
+	/** header names and values, alternating */
+	private final String[] responseHeaders;
+
+	private Assessment(final Builder builder) {
+		this.host = builder.host;
+		this.scanId = builder.scanId;
+		this.state = builder.state;
+		this.grade = builder.grade;
+		this.score = builder.score;
+		this.testsPassed = builder.testsPassed;
+		this.testsFailed = builder.testsFailed;
+		this.testsQuantity = builder.testsQuantity;
+		this.statusCode = builder.statusCode;
+		this.algorithmVersion = builder.algorithmVersion;
+		this.startTime = builder.startTime;
+		this.endTime = builder.endTime;
+		this.hidden = builder.hidden;
+		this.likelihoodIndicator = builder.likelihoodIndicator;
+		this.responseHeaders = builder.responseHeaders;
+	}
+
+	/**
+	 * Reads an assessment from the response of the analyze call.
+	 *
+	 * @param host
+	 *            - the assessed host, the response does not contain it
+	 * @param reader
+	 *            - the response
+	 * @return the assessment
+	 * @throws IOException
+	 *             if the response could not be read or is an error
+	 */
+	public static Assessment read(String host, Reader reader) throws IOException {
+		Builder builder = new Builder(host);
+		JsonObjectReader json = new JsonObjectReader(reader);
+		try {
+			for (String key = json.nextKey(); key != null; key = json.nextKey()) {
+				if ("response_headers".equals(key)) {
+					builder.responseHeaders = readHeaders(json.nextObject());
+				} else {
+					builder.set(key, json.nextValue());
+				}
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read assessment: " + e.getLocalizedMessage(), e);
+		}
+		return new Assessment(builder);
+	}
+
+	/**
+	 * Creates an assessment from its json representation.
+	 *
+	 * @param host
+	 *            - the assessed host
+	 * @param json
+	 *            - the json scan object
+	 * @return the assessment
+	 * @throws IOException
+	 *             if the json object is an error
+	 */
+	public static Assessment fromJson(String host, JSONObject json) throws IOException {
+		Builder builder = new Builder(host);
+		try {
+			for (Iterator<?> it = json.keys(); it.hasNext();) {
+				String key = (String) it.next();
+				builder.set(key, json.get(key));
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read assessment: " + e.getLocalizedMessage(), e);
+		}
+		return new Assessment(builder);
+	}
+
+	private static String[] readHeaders(JsonObjectReader headers) throws JSONException {
+		if (headers == null) {
+			return NO_HEADERS;
+		}
+
+		String[] flat = new String[32];
+		int i = 0;
+		for (String name = headers.nextKey(); name != null; name = headers.nextKey()) {
+			if (i == flat.length) {
+				flat = Arrays.copyOf(flat, flat.length * 2);
+			}
+			flat[i++] = headerName(name);
+			flat[i++] = headers.nextValue().toString();
+		}
+		return i == flat.length ? flat : Arrays.copyOf(flat, i);
+	}
+
+	private static String[] toHeaders(Object value) throws JSONException {
+		if (!(value instanceof JSONObject)) {
+			return NO_HEADERS;
+		}
+
+		JSONObject headers = (JSONObject) value;
+		String[] flat = new String[headers.length() * 2];
+		int i = 0;
+		for (Iterator<?> it = headers.keys(); it.hasNext();) {
+			String name = (String) it.next();
+			flat[i++] = headerName(name);
+			flat[i++] = headers.get(name).toString();
+		}
+		return flat;
+	}
+
+	/**
+	 * Header names repeat for every scan, only one copy of each is kept.
+	 */
+	private static String headerName(String name) {
+		String shared = HEADER_NAMES.putIfAbsent(name, name);
+		if (shared != null) {
+			return shared;
+		}
+		if (HEADER_NAMES.size() > MAX_HEADER_NAMES) {
+			HEADER_NAMES.clear();
+		}
+		return name;
+	}
+
+	/**
+	 * Parses a date as sent by the API, e.g. Tue, 22 Mar 2016 21:51:41 GMT.
+	 * 
+	 * @return milliseconds since the epoch or -1 if the date is not valid
+	 */
+	private static long parseTime(String time) {
+		if (time == null) {
+			return -1;
+		}
+		if (time.length() == 29 && time.endsWith(" GMT")) {
+			int day = digits(time, 5, 2);
+			int month = MONTHS.indexOf(time.substring(8, 11));
+			int year = digits(time, 12, 4);
+			int hour = digits(time, 17, 2);
+			int minute = digits(time, 20, 2);
+			int second = digits(time, 23, 2);
+			if (day > 0 && month >= 0 && month % 3 == 0 && year >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+				long days = daysSinceEpoch(year, month / 3 + 1, day);
+				return ((days * 24 + hour) * 60 + minute) * 60000L + second * 1000L;
+			}
+		}
+		try {
+			return ZonedDateTime.parse(time, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			return -1;
+		}
+	}
+
+	private static int digits(String s, int offset, int length) {
+		int value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Days from 1970-01-01 to the given date of the proleptic gregorian
+	 * calendar.
+	 */
+	private static long daysSinceEpoch(int year, int month, int day) {
+		int y = month <= 2 ? year - 1 : year;
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	/**
+	 * @return the assessed host
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return the scan id
+	 */
+	public long getScanId() {
+		return scanId;
+	}
+
+	/**
+	 * @return the state of the scan or null if unknown
+	 */
+	public ScanState getState() {
+		return state;
+	}
+
+	/**
+	 * @return the grade or null if the scan has not finished
+	 */
+	public Grade getGrade() {
+		return grade;
+	}
+
+	/**
+	 * @return the score
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return the number of passed tests
+	 */
+	public int getTestsPassed() {
+		return testsPassed;
+	}
+
+	/**
+	 * @return the number of failed tests
+	 */
+	public int getTestsFailed() {
+		return testsFailed;
+	}
+
+	/**
+	 * @return the number of tests
+	 */
+	public int getTestsQuantity() {
+		return testsQuantity;
+	}
+
+	/**
+	 * @return the HTTP status code of the scanned site
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return the version of the grading algorithm
+	 */
+	public int getAlgorithmVersion() {
+		return algorithmVersion;
+	}
+
+	/**
+	 * @return the start of the scan in milliseconds since the epoch or -1
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * @return the end of the scan in milliseconds since the epoch or -1
+	 */
+	public long getEndTime() {
+		return endTime;
+	}
+
+	/**
+	 * @return true if the scan does not show up in the recent scans
+	 */
+	public boolean isHidden() {
+		return hidden;
+	}
+
+	/**
+	 * @return the likelihood indicator, e.g. LOW
+	 */
+	public String getLikelihoodIndicator() {
+		return likelihoodIndicator;
+	}
+
+	/**
+	 * @return the number of response headers
+	 */
+	public int getResponseHeaderCount() {
+		return responseHeaders.length / 2;
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the header
+	 * @return the name of the header
+	 */
+	public String getResponseHeaderName(int index) {
+		return responseHeaders[index * 2];
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the header
+	 * @return the value of the header
+	 */
+	public String getResponseHeaderValue(int index) {
+		return responseHeaders[index * 2 + 1];
+	}
+
+	/**
+	 * Retrieve a response header of the scanned site.
+	 *
+	 * @param name
+	 *            - the header name, case insensitive
+	 * @return the header value or null if the header was not sent
+	 */
+	public String getResponseHeader(String name) {
+		for (int i = 0; i < responseHeaders.length; i += 2) {
+			if (responseHeaders[i].equalsIgnoreCase(name)) {
+				return responseHeaders[i + 1];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the response headers of the scanned site
+	 */
+	public Map<String, String> getResponseHeaders() {
+		Map<String, String> headers = new LinkedHashMap<String, String>();
+		for (int i = 0; i < responseHeaders.length; i += 2) {
+			headers.put(responseHeaders[i], responseHeaders[i + 1]);
+		}
+		return Collections.unmodifiableMap(headers);
+	}
+
+	@Override
+	public String toString() {
+		return (host != null ? host : "scan " + scanId) + " = " + (grade != null ? grade.getLabel() : state) + " ("
+				+ score + ")";
+	}
+
+	/**
+	 * Collects the members while the response is read.
+	 */
+	private static class Builder {
+		private final String host;
+		private long scanId;
+		private ScanState state;
+		private Grade grade;
+		private int score;
+		private int testsPassed;
+		private int testsFailed;
+		private int testsQuantity;
+		private int statusCode;
+		private int algorithmVersion;
+		private long startTime = -1;
+		private long endTime = -1;
+		private boolean hidden;
+		private String likelihoodIndicator;
+		private String[] responseHeaders = NO_HEADERS;
+
+		Builder(final String host) {
+			this.host = host;
+		}
+
+		void set(String key, Object value) throws IOException, JSONException {
+			switch (key) {
+			case "error":
+				throw new ApiException("The API returned an error: " + value);
+			case "scan_id":
+				scanId = JsonObjectReader.toLong(value);
+				break;
+			case "state":
+				state = ScanState.fromName(JsonObjectReader.toStringOrNull(value));
+				break;
+			case "grade":
+				grade = Grade.fromLabel(JsonObjectReader.toStringOrNull(value));
+				break;
+			case "score":
+				score = JsonObjectReader.toInt(value);
+				break;
+			case "tests_passed":
+				testsPassed = JsonObjectReader.toInt(value);
+				break;
+			case "tests_failed":
+				testsFailed = JsonObjectReader.toInt(value);
+				break;
+			case "tests_quantity":
+				testsQuantity = JsonObjectReader.toInt(value);
+				break;
+			case "status_code":
+				statusCode = JsonObjectReader.toInt(value);
+				break;
+			case "algorithm_version":
+				algorithmVersion = JsonObjectReader.toInt(value);
+				break;
+			case "start_time":
+				startTime = parseTime(JsonObjectReader.toStringOrNull(value));
+				break;
+			case "end_time":
+				endTime = parseTime(JsonObjectReader.toStringOrNull(value));
+				break;
+			case "hidden":
+				hidden = Boolean.TRUE.equals(value);
+				break;
+			case "likelihood_indicator":
+				likelihoodIndicator = JsonObjectReader.toStringOrNull(value);
+				break;
+			case "response_headers":
+				responseHeaders = toHeaders(value);
+				break;
+			default:
+				// ignore unknown members
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+/**
+ * The grades of the HTTP Observatory, from the best to the worst.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public enum Grade {
+	A_PLUS("A+"),
+	A("A"),
+	A_MINUS("A-"),
+	B_PLUS("B+"),
+	B("B"),
+	B_MINUS("B-"),
+	C_PLUS("C+"),
+	C("C"),
+	C_MINUS("C-"),
+	D_PLUS("D+"),
+	D("D"),
+	D_MINUS("D-"),
+	E("E"),
+	F("F");
+
+	private static final Grade[] VALUES = values();
+
+	private final String label;
+
+	Grade(final String label) {
+		this.label = label;
+	}
+
+	/**
+	 * @return the grade as shown by the API, e.g. A+
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Retrieve the grade of a label.
+	 *
+	 * @param label
+	 *            - the grade as shown by the API, e.g. A+
+	 * @return the grade or null if the label is unknown
+	 */
+	public static Grade fromLabel(String label) {
+		if (label == null || label.isEmpty() || label.length() > 2) {
+			return null;
+		}
+
+		int letter = label.charAt(0) - 'A';
+		if (letter < 0 || letter > 5) {
+			return null;
+		}
+		if (letter >= 4) {
+			// E and F have no modifiers
+			return label.length() == 1 ? (letter == 4 ? E : F) : null;
+		}
+
+		int index = letter * 3 + 1;
+		if (label.length() == 2) {
+			char modifier = label.charAt(1);
+			if (modifier == '+') {
+				index--;
+			} else if (modifier == '-') {
+				index++;
+			} else {
+				return null;
+			}
+		}
+		return VALUES[index];
+	}
+
+	@Override
+	public String toString() {
+		return label;
+	}
+}
@@ -0,0 +1,143 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+
+/**
+ * The number of scans per grade as returned by the getGradeDistribution call.
+ *
+ * Example result:
+ *
+ * { "A+": 3, "A": 6, "A-": 2, "B+": 8, "B": 76, "B-": 79, "C+": 80, "C": 88,
+ * "C-": 86, "D+": 60, "D": 110, "D-": 215, "E": 298, "F": 46770 }
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class GradeDistribution {
+
+	/** the counts indexed by the ordinal of the grade */
+	private final long[] counts;
+
+	/**
+	 * Constructor for a grade distribution.
+	 *
+	 * @param counts
+	 *            - the number of scans indexed by the ordinal of the grade
+	 */
+	public GradeDistribution(final long[] counts) {
+		if (counts.length != Grade.values().length) {
+			throw new IllegalArgumentException("Expected one count per grade.");
+		}
+		this.counts = counts.clone();
+	}
+
+	/**
+	 * Reads the grade distribution from the response of the
+	 * getGradeDistribution call.
+	 *
+	 * @param reader
+	 *            - the response
+	 * @return the grade distribution
+	 * @throws IOException
+	 *             if the response could not be read or is an error
+	 */
+	public static GradeDistribution read(Reader reader) throws IOException {
+		long[] counts = new long[Grade.values().length];
+		JsonObjectReader json = new JsonObjectReader(reader);
+		try {
+			for (String key = json.nextKey(); key != null; key = json.nextKey()) {
+				add(counts, key, json.nextValue());
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read grade distribution: " + e.getLocalizedMessage(), e);
+		}
+		return new GradeDistribution(counts);
+	}
+
+	/**
+	 * Creates a grade distribution from its json representation.
+	 *
+	 * @param json
+	 *            - the json grade distribution
+	 * @return the grade distribution
+	 * @throws IOException
+	 *             if the json object is an error
+	 */
+	public static GradeDistribution fromJson(JSONObject json) throws IOException {
+		long[] counts = new long[Grade.values().length];
+		try {
+			for (Iterator<?> it = json.keys(); it.hasNext();) {
+				String key = (String) it.next();
+				add(counts, key, json.get(key));
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read grade distribution: " + e.getLocalizedMessage(), e);
+		}
+		return new GradeDistribution(counts);
+	}
+
+	private static void add(long[] counts, String key, Object value) throws ApiException {
+		if ("error".equals(key)) {
+			throw new ApiException("The API returned an error: " + value);
+		}
+		Grade grade = Grade.fromLabel(key);
+		if (grade != null) {
+			counts[grade.ordinal()] += JsonObjectReader.toLong(value);
+		}
+	}
+
+	/**
+	 * @param grade
+	 *            - the grade
+	 * @return the number of scans with the grade
+	 */
+	public long getCount(Grade grade) {
+		return counts[grade.ordinal()];
+	}
+
+	/**
+	 * @return the number of scans with any grade
+	 */
+	public long getTotal() {
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * Creates the json representation in the shape of the
+	 * getGradeDistribution call.
+	 *
+	 * @return the number of scans per grade label
+	 * @throws JSONException
+	 *             if the json object could not be built
+	 */
+	public JSONObject toJson() throws JSONException {
+		JSONObject json = new JSONObject();
+		for (Grade grade : Grade.values()) {
+			json.put(grade.getLabel(), counts[grade.ordinal()]);
+		}
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Grade grade : Grade.values()) {
+			if (builder.length() > 0) {
+				builder.append(", ");
+			}
+			builder.append(grade.getLabel()).append('=').append(counts[grade.ordinal()]);
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,134 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import java.io.Reader;
+
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+/**
+ * Reads the members of a json object one at a time from a stream. Nested
+ * values are parsed as a whole by the tokener.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+final class JsonObjectReader {
+
+	private final JSONTokener tokener;
+	private boolean started = false;
+	private boolean finished = false;
+
+	JsonObjectReader(final Reader reader) {
+		this(new JSONTokener(reader));
+	}
+
+	private JsonObjectReader(final JSONTokener tokener) {
+		this.tokener = tokener;
+	}
+
+	/**
+	 * Reads the next key and the following ':'.
+	 *
+	 * @return the key or null if the end of the object has been reached
+	 * @throws JSONException
+	 *             if the stream is not a json object
+	 */
+	String nextKey() throws JSONException {
+		if (finished) {
+			return null;
+		}
+
+		char c;
+		if (!started) {
+			started = true;
+			if (tokener.nextClean() != '{') {
+				throw tokener.syntaxError("A JSONObject text must begin with '{'");
+			}
+		} else {
+			c = tokener.nextClean();
+			if (c == '}') {
+				finished = true;
+				return null;
+			}
+			if (c != ',') {
+				throw tokener.syntaxError("Expected a ',' or '}'");
+			}
+		}
+
+		c = tokener.nextClean();
+		if (c == '}') {
+			finished = true;
+			return null;
+		}
+		if (c == 0) {
+			throw tokener.syntaxError("A JSONObject text must end with '}'");
+		}
+		tokener.back();
+
+		String key = tokener.nextValue().toString();
+		if (tokener.nextClean() != ':') {
+			throw tokener.syntaxError("Expected a ':' after a key");
+		}
+		return key;
+	}
+
+	/**
+	 * Reads the value of the current key.
+	 *
+	 * @return the value, a JSONObject, JSONArray, String, Number, Boolean or
+	 *         JSONObject.NULL
+	 * @throws JSONException
+	 *             if the value is not valid json
+	 */
+	Object nextValue() throws JSONException {
+		return tokener.nextValue();
+	}
+
+	/**
+	 * Reads the value of the current key member by member if it is an object.
+	 * The returned reader has to be read to its end before this reader is
+	 * used again.
+	 *
+	 * @return a reader on the value or null if the value is not an object, the
+	 *         value has been skipped then
+	 * @throws JSONException
+	 *             if the value is not valid json
+	 */
+	JsonObjectReader nextObject() throws JSONException {
+		char c = tokener.nextClean();
+		tokener.back();
+		if (c != '{') {
+			tokener.nextValue();
+			return null;
+		}
+		return new JsonObjectReader(tokener);
+	}
+
+	/**
+	 * Stops reading, e.g. because the value read is not what was expected.
+	 */
+	void finish() {
+		finished = true;
+	}
+
+	/**
+	 * Converts a value to an int, anything but a number is 0.
+	 */
+	static int toInt(Object value) {
+		return value instanceof Number ? ((Number) value).intValue() : 0;
+	}
+
+	/**
+	 * Converts a value to a long, anything but a number is 0.
+	 */
+	static long toLong(Object value) {
+		return value instanceof Number ? ((Number) value).longValue() : 0;
+	}
+
+	/**
+	 * Converts a value to a string, null for json null.
+	 */
+	static String toStringOrNull(Object value) {
+		return value instanceof String ? (String) value : null;
+	}
+}
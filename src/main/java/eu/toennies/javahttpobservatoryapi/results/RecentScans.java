@@ -0,0 +1,126 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+
+/**
+ * The most recent scans as returned by the getRecentScans call, in the order
+ * of the response.
+ *
+ * Example for a recent scans object
+ *
+ * { "site1.mozilla.org": "A", "site2.mozilla.org": "B-", "site3.mozilla.org":
+ * "C+" }
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class RecentScans {
+
+	private final String[] hosts;
+	private final Grade[] grades;
+
+	private RecentScans(final List<String> hosts, final List<Grade> grades) {
+		this.hosts = hosts.toArray(new String[hosts.size()]);
+		this.grades = grades.toArray(new Grade[grades.size()]);
+	}
+
+	/**
+	 * Reads the recent scans from the response of the getRecentScans call.
+	 *
+	 * @param reader
+	 *            - the response
+	 * @return the recent scans
+	 * @throws IOException
+	 *             if the response could not be read or is an error
+	 */
+	public static RecentScans read(Reader reader) throws IOException {
+		List<String> hosts = new ArrayList<String>();
+		List<Grade> grades = new ArrayList<Grade>();
+		JsonObjectReader json = new JsonObjectReader(reader);
+		try {
+			for (String key = json.nextKey(); key != null; key = json.nextKey()) {
+				add(hosts, grades, key, json.nextValue());
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read recent scans: " + e.getLocalizedMessage(), e);
+		}
+		return new RecentScans(hosts, grades);
+	}
+
+	/**
+	 * Creates the recent scans from their json representation.
+	 *
+	 * @param json
+	 *            - the json recent scans
+	 * @return the recent scans
+	 * @throws IOException
+	 *             if the json object is an error
+	 */
+	public static RecentScans fromJson(JSONObject json) throws IOException {
+		List<String> hosts = new ArrayList<String>();
+		List<Grade> grades = new ArrayList<Grade>();
+		try {
+			for (Iterator<?> it = json.keys(); it.hasNext();) {
+				String key = (String) it.next();
+				add(hosts, grades, key, json.get(key));
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read recent scans: " + e.getLocalizedMessage(), e);
+		}
+		return new RecentScans(hosts, grades);
+	}
+
+	private static void add(List<String> hosts, List<Grade> grades, String key, Object value) throws ApiException {
+		if ("error".equals(key)) {
+			throw new ApiException("The API returned an error: " + value);
+		}
+		hosts.add(key);
+		grades.add(Grade.fromLabel(JsonObjectReader.toStringOrNull(value)));
+	}
+
+	/**
+	 * @return the number of scans
+	 */
+	public int size() {
+		return hosts.length;
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the scan
+	 * @return the scanned host
+	 */
+	public String getHost(int index) {
+		return hosts[index];
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the scan
+	 * @return the grade of the scan or null if unknown
+	 */
+	public Grade getGrade(int index) {
+		return grades[index];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < hosts.length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(hosts[i]).append('=').append(grades[i]);
+		}
+		return builder.toString();
+	}
+}
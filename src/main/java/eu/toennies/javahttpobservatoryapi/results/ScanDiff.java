@@ -0,0 +1,276 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The differences between two scans of a host: the tests whose pass flag,
+ * score modifier or result code changed and the response headers whose
+ * value changed.
+ *
+ * Tests are compared by their hashes first, a test with an unchanged hash is
+ * skipped, and two scans with the same hash of all tests are not compared
+ * test by test at all.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class ScanDiff {
+
+	/**
+	 * A test added, removed or changed between two scans.
+	 */
+	public static final class TestChange {
+
+		private final String name;
+		private final TestResult before;
+		private final TestResult after;
+
+		TestChange(final String name, final TestResult before, final TestResult after) {
+			this.name = name;
+			this.before = before;
+			this.after = after;
+		}
+
+		/**
+		 * @return the name of the test
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the result of the first scan or null if the test was added
+		 */
+		public TestResult getBefore() {
+			return before;
+		}
+
+		/**
+		 * @return the result of the second scan or null if the test was
+		 *         removed
+		 */
+		public TestResult getAfter() {
+			return after;
+		}
+
+		/**
+		 * @return true if the test passed in the first scan and fails in the
+		 *         second
+		 */
+		public boolean isRegression() {
+			return before != null && after != null && before.isPass() && !after.isPass();
+		}
+
+		/**
+		 * @return the score modifier of the second scan minus the one of the
+		 *         first
+		 */
+		public int getScoreModifierDelta() {
+			return (after != null ? after.getScoreModifier() : 0) - (before != null ? before.getScoreModifier() : 0);
+		}
+
+		@Override
+		public String toString() {
+			return name + ": " + describe(before) + " -> " + describe(after);
+		}
+
+		private static String describe(TestResult test) {
+			if (test == null) {
+				return "-";
+			}
+			return (test.isPass() ? "pass" : "fail") + " (" + test.getScoreModifier() + ", " + test.getResult() + ")";
+		}
+	}
+
+	/**
+	 * A response header added, removed or changed between two scans.
+	 */
+	public static final class HeaderChange {
+
+		private final String name;
+		private final String before;
+		private final String after;
+
+		HeaderChange(final String name, final String before, final String after) {
+			this.name = name;
+			this.before = before;
+			this.after = after;
+		}
+
+		/**
+		 * @return the header name in lower case
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the value of the first scan or null if the header was added
+		 */
+		public String getBefore() {
+			return before;
+		}
+
+		/**
+		 * @return the value of the second scan or null if the header was
+		 *         removed
+		 */
+		public String getAfter() {
+			return after;
+		}
+
+		@Override
+		public String toString() {
+			return name + ": " + (before != null ? before : "-") + " -> " + (after != null ? after : "-");
+		}
+	}
+
+	private final List<TestChange> testChanges;
+	private final List<HeaderChange> headerChanges;
+
+	private ScanDiff(final List<TestChange> testChanges, final List<HeaderChange> headerChanges) {
+		this.testChanges = Collections.unmodifiableList(testChanges);
+		this.headerChanges = Collections.unmodifiableList(headerChanges);
+	}
+
+	/**
+	 * Compares the test results of two scans.
+	 *
+	 * @param before
+	 *            - the tests of the first scan
+	 * @param after
+	 *            - the tests of the second scan
+	 * @return the differences
+	 */
+	public static ScanDiff compare(TestResultSet before, TestResultSet after) {
+		return compare(null, before, null, after);
+	}
+
+	/**
+	 * Compares two scans. The response headers are only compared if both
+	 * assessments are given, the analyze call only returns them for the
+	 * latest scan of a host.
+	 *
+	 * @param beforeScan
+	 *            - the first scan, may be null
+	 * @param beforeTests
+	 *            - the tests of the first scan
+	 * @param afterScan
+	 *            - the second scan, may be null
+	 * @param afterTests
+	 *            - the tests of the second scan
+	 * @return the differences
+	 */
+	public static ScanDiff compare(Assessment beforeScan, TestResultSet beforeTests, Assessment afterScan,
+			TestResultSet afterTests) {
+		List<HeaderChange> headerChanges = beforeScan != null && afterScan != null
+				? compareHeaders(beforeScan, afterScan) : Collections.<HeaderChange> emptyList();
+		return new ScanDiff(compareTests(beforeTests, afterTests), headerChanges);
+	}
+
+	private static List<TestChange> compareTests(TestResultSet before, TestResultSet after) {
+		List<TestChange> changes = new ArrayList<TestChange>();
+		if (before.getHash() == after.getHash() && before.size() == after.size()) {
+			return changes;
+		}
+
+		int i = 0;
+		int j = 0;
+		while (i < before.size() || j < after.size()) {
+			int compare = i == before.size() ? 1
+					: j == after.size() ? -1 : before.get(i).getName().compareTo(after.get(j).getName());
+			if (compare < 0) {
+				changes.add(new TestChange(before.get(i).getName(), before.get(i), null));
+				i++;
+			} else if (compare > 0) {
+				changes.add(new TestChange(after.get(j).getName(), null, after.get(j)));
+				j++;
+			} else {
+				if (before.getHash(i) != after.getHash(j)) {
+					changes.add(new TestChange(before.get(i).getName(), before.get(i), after.get(j)));
+				}
+				i++;
+				j++;
+			}
+		}
+		return changes;
+	}
+
+	private static List<HeaderChange> compareHeaders(Assessment before, Assessment after) {
+		Map<String, String[]> headers = new TreeMap<String, String[]>();
+		for (int i = 0; i < before.getResponseHeaderCount(); i++) {
+			headers.put(before.getResponseHeaderName(i).toLowerCase(Locale.ROOT),
+					new String[] { before.getResponseHeaderValue(i), null });
+		}
+		for (int i = 0; i < after.getResponseHeaderCount(); i++) {
+			String name = after.getResponseHeaderName(i).toLowerCase(Locale.ROOT);
+			String[] values = headers.get(name);
+			if (values == null) {
+				headers.put(name, new String[] { null, after.getResponseHeaderValue(i) });
+			} else {
+				values[1] = after.getResponseHeaderValue(i);
+			}
+		}
+
+		List<HeaderChange> changes = new ArrayList<HeaderChange>();
+		for (Map.Entry<String, String[]> header : headers.entrySet()) {
+			String[] values = header.getValue();
+			if (values[0] == null ? values[1] != null : !values[0].equals(values[1])) {
+				changes.add(new HeaderChange(header.getKey(), values[0], values[1]));
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * @return true if neither a test nor a header has changed
+	 */
+	public boolean isEmpty() {
+		return testChanges.isEmpty() && headerChanges.isEmpty();
+	}
+
+	/**
+	 * @return true if a test passed in the first scan and fails in the second
+	 */
+	public boolean isRegression() {
+		for (TestChange change : testChanges) {
+			if (change.isRegression()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the tests added, removed or changed, in the order of their
+	 *         names
+	 */
+	public List<TestChange> getTestChanges() {
+		return testChanges;
+	}
+
+	/**
+	 * @return the response headers added, removed or changed, in the order of
+	 *         their names
+	 */
+	public List<HeaderChange> getHeaderChanges() {
+		return headerChanges;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (TestChange change : testChanges) {
+			builder.append(change).append('\n');
+		}
+		for (HeaderChange change : headerChanges) {
+			builder.append(change).append('\n');
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,66 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A pull parser for the response of the getScanResults call. The tests are
+ * read one at a time while the response arrives, so only the current test is
+ * kept in memory.
+ *
+ * <pre>
+ * ScanResultsReader reader = command.streamTestResults(arguments);
+ * try {
+ * 	TestResult test;
+ * 	while ((test = reader.next()) != null) {
+ * 		...
+ * 	}
+ * } finally {
+ * 	reader.close();
+ * }
+ * </pre>
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ScanResultsReader implements Closeable {
+
+	private final Reader reader;
+	private final JsonObjectReader json;
+
+	public ScanResultsReader(final Reader reader) {
+		this.reader = reader;
+		this.json = new JsonObjectReader(reader);
+	}
+
+	/**
+	 * Reads the next test result.
+	 *
+	 * @return the next test result or null if all tests have been read
+	 * @throws JSONException
+	 *             if the response is not a scan result object
+	 */
+	public TestResult next() throws JSONException {
+		String key = json.nextKey();
+		if (key == null) {
+			return null;
+		}
+
+		Object value = json.nextValue();
+		if (!(value instanceof JSONObject)) {
+			json.finish();
+			throw new JSONException("Could not read test results: " + key + " = " + value);
+		}
+
+		return TestResult.fromJson(key, (JSONObject) value);
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
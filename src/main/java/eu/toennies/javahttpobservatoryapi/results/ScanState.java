@@ -0,0 +1,52 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+/**
+ * The states of a scan.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public enum ScanState {
+	ABORTED,
+	FAILED,
+	FINISHED,
+	PENDING,
+	STARTING,
+	RUNNING;
+
+	/**
+	 * @return true if the scan will not change anymore
+	 */
+	public boolean isDone() {
+		return this == ABORTED || this == FAILED || this == FINISHED;
+	}
+
+	/**
+	 * Retrieve the state of a name.
+	 *
+	 * @param name
+	 *            - the state as shown by the API, e.g. FINISHED
+	 * @return the state or null if the name is unknown
+	 */
+	public static ScanState fromName(String name) {
+		if (name == null) {
+			return null;
+		}
+		switch (name) {
+		case "ABORTED":
+			return ABORTED;
+		case "FAILED":
+			return FAILED;
+		case "FINISHED":
+			return FINISHED;
+		case "PENDING":
+			return PENDING;
+		case "STARTING":
+			return STARTING;
+		case "RUNNING":
+			return RUNNING;
+		default:
+			return null;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+
+/**
+ * The number of scans per state as returned by the getScannerStates call.
+ *
+ * Example of a scanner state object
+ *
+ * { "ABORTED": 10, "FAILED": 281, "FINISHED": 46240, "PENDING": 122,
+ * "STARTING": 96, "RUNNING: 128 }
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class ScannerStates {
+
+	/** the counts indexed by the ordinal of the state */
+	private final long[] counts;
+
+	private ScannerStates(final long[] counts) {
+		this.counts = counts;
+	}
+
+	/**
+	 * Reads the scanner states from the response of the getScannerStates call.
+	 *
+	 * @param reader
+	 *            - the response
+	 * @return the scanner states
+	 * @throws IOException
+	 *             if the response could not be read or is an error
+	 */
+	public static ScannerStates read(Reader reader) throws IOException {
+		long[] counts = new long[ScanState.values().length];
+		JsonObjectReader json = new JsonObjectReader(reader);
+		try {
+			for (String key = json.nextKey(); key != null; key = json.nextKey()) {
+				add(counts, key, json.nextValue());
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read scanner states: " + e.getLocalizedMessage(), e);
+		}
+		return new ScannerStates(counts);
+	}
+
+	/**
+	 * Creates the scanner states from their json representation.
+	 *
+	 * @param json
+	 *            - the json scanner states
+	 * @return the scanner states
+	 * @throws IOException
+	 *             if the json object is an error
+	 */
+	public static ScannerStates fromJson(JSONObject json) throws IOException {
+		long[] counts = new long[ScanState.values().length];
+		try {
+			for (Iterator<?> it = json.keys(); it.hasNext();) {
+				String key = (String) it.next();
+				add(counts, key, json.get(key));
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read scanner states: " + e.getLocalizedMessage(), e);
+		}
+		return new ScannerStates(counts);
+	}
+
+	private static void add(long[] counts, String key, Object value) throws ApiException {
+		if ("error".equals(key)) {
+			throw new ApiException("The API returned an error: " + value);
+		}
+		ScanState state = ScanState.fromName(key);
+		if (state != null) {
+			counts[state.ordinal()] = JsonObjectReader.toLong(value);
+		}
+	}
+
+	/**
+	 * @param state
+	 *            - the state
+	 * @return the number of scans in the state
+	 */
+	public long getCount(ScanState state) {
+		return counts[state.ordinal()];
+	}
+
+	/**
+	 * @return the number of scans which have not finished yet
+	 */
+	public long getQueued() {
+		long queued = 0;
+		for (ScanState state : ScanState.values()) {
+			if (!state.isDone()) {
+				queued += counts[state.ordinal()];
+			}
+		}
+		return queued;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (ScanState state : ScanState.values()) {
+			if (builder.length() > 0) {
+				builder.append(", ");
+			}
+			builder.append(state).append('=').append(counts[state.ordinal()]);
+		}
+		return builder.toString();
+	}
+}
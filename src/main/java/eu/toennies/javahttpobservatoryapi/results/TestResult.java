@@ -0,0 +1,100 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import org.json.JSONObject;
+
+/**
+ * The result of a single test of a scan, e.g. Content Security Policy or
+ * Subresource Integrity.
+ *
+ * Example test result
+ *
+ * { "expectation": "csp-implemented-with-no-unsafe", "name":
+ * "content-security-policy", "output": { ... }, "pass": false, "result":
+ * "csp-implemented-with-unsafe-inline-in-style-src-only",
+ * "score_description": "Content Security Policy (CSP) implemented with
+ * unsafe-inline inside style-src directive", "score_modifier": -5 }
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class TestResult {
+
+	private final String name;
+	private final boolean pass;
+	private final int scoreModifier;
+	private final String result;
+	private final String expectation;
+	private final String scoreDescription;
+
+	public TestResult(final String name, final boolean pass, final int scoreModifier, final String result,
+			final String expectation, final String scoreDescription) {
+		this.name = name;
+		this.pass = pass;
+		this.scoreModifier = scoreModifier;
+		this.result = result;
+		this.expectation = expectation;
+		this.scoreDescription = scoreDescription;
+	}
+
+	/**
+	 * Creates a test result from its json representation.
+	 *
+	 * @param name
+	 *            - the name of the test, used if the json object has none
+	 * @param json
+	 *            - the json test object
+	 * @return the test result
+	 */
+	public static TestResult fromJson(String name, JSONObject json) {
+		return new TestResult(json.optString("name", name), json.optBoolean("pass"), json.optInt("score_modifier"),
+				json.optString("result", null), json.optString("expectation", null),
+				json.optString("score_description", null));
+	}
+
+	/**
+	 * @return the name of the test
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return true if the test has passed
+	 */
+	public boolean isPass() {
+		return pass;
+	}
+
+	/**
+	 * @return the score modifier
+	 */
+	public int getScoreModifier() {
+		return scoreModifier;
+	}
+
+	/**
+	 * @return the result code
+	 */
+	public String getResult() {
+		return result;
+	}
+
+	/**
+	 * @return the expected result code
+	 */
+	public String getExpectation() {
+		return expectation;
+	}
+
+	/**
+	 * @return the score description
+	 */
+	public String getScoreDescription() {
+		return scoreDescription;
+	}
+
+	@Override
+	public String toString() {
+		return name + " = " + (pass ? "pass" : "fail") + " (" + scoreModifier + ", " + result + ")";
+	}
+}
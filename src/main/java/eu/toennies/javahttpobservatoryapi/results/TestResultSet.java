@@ -0,0 +1,183 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+
+/**
+ * The test results of a scan, sorted by test name. Every test has a hash of
+ * its pass flag, score modifier and result code, and the scan a hash of all
+ * tests, so two scans can be compared without looking at the tests that did
+ * not change.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class TestResultSet {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final Comparator<TestResult> BY_NAME = new Comparator<TestResult>() {
+		@Override
+		public int compare(TestResult a, TestResult b) {
+			return a.getName().compareTo(b.getName());
+		}
+	};
+
+	private final TestResult[] tests;
+	private final long[] hashes;
+	private final long hash;
+
+	/**
+	 * Constructor for the test results of a scan.
+	 *
+	 * @param tests
+	 *            - the test results in any order
+	 */
+	public TestResultSet(final List<TestResult> tests) {
+		this.tests = tests.toArray(new TestResult[tests.size()]);
+		Arrays.sort(this.tests, BY_NAME);
+		this.hashes = new long[this.tests.length];
+		long all = FNV_OFFSET;
+		for (int i = 0; i < this.tests.length; i++) {
+			hashes[i] = hash(this.tests[i]);
+			all = mix(mix(all, this.tests[i].getName()), hashes[i]);
+		}
+		this.hash = all;
+	}
+
+	/**
+	 * Reads the test results from the response of the getScanResults call.
+	 *
+	 * @param reader
+	 *            - the response, closed when all tests have been read
+	 * @return the test results
+	 * @throws IOException
+	 *             if the response could not be read or is an error
+	 */
+	public static TestResultSet read(ScanResultsReader reader) throws IOException {
+		List<TestResult> tests = new ArrayList<TestResult>();
+		try {
+			for (TestResult test = reader.next(); test != null; test = reader.next()) {
+				tests.add(test);
+			}
+		} catch (JSONException e) {
+			throw new ApiException("Could not read test results: " + e.getLocalizedMessage(), e);
+		} finally {
+			reader.close();
+		}
+		return new TestResultSet(tests);
+	}
+
+	/**
+	 * Creates the test results from their json representation.
+	 *
+	 * @param json
+	 *            - the json scan results object
+	 * @return the test results
+	 * @throws IOException
+	 *             if the json object is an error
+	 */
+	public static TestResultSet fromJson(JSONObject json) throws IOException {
+		List<TestResult> tests = new ArrayList<TestResult>(json.length());
+		for (Iterator<?> it = json.keys(); it.hasNext();) {
+			String key = (String) it.next();
+			JSONObject test = json.optJSONObject(key);
+			if (test == null) {
+				throw new ApiException("Could not read test results: " + key + " = " + json.opt(key));
+			}
+			tests.add(TestResult.fromJson(key, test));
+		}
+		return new TestResultSet(tests);
+	}
+
+	/**
+	 * @return the number of tests
+	 */
+	public int size() {
+		return tests.length;
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the test in the order of the names
+	 * @return the test result
+	 */
+	public TestResult get(int index) {
+		return tests[index];
+	}
+
+	/**
+	 * Retrieve the result of a test.
+	 *
+	 * @param name
+	 *            - the name of the test, e.g. content-security-policy
+	 * @return the test result or null if the scan has no such test
+	 */
+	public TestResult get(String name) {
+		int low = 0;
+		int high = tests.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int compare = tests[middle].getName().compareTo(name);
+			if (compare < 0) {
+				low = middle + 1;
+			} else if (compare > 0) {
+				high = middle - 1;
+			} else {
+				return tests[middle];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the test in the order of the names
+	 * @return the hash of the pass flag, the score modifier and the result
+	 *         code of the test
+	 */
+	public long getHash(int index) {
+		return hashes[index];
+	}
+
+	/**
+	 * @return the hash of all tests, equal for scans with equal tests
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	private static long hash(TestResult test) {
+		long h = mix(FNV_OFFSET, test.getResult());
+		h = (h ^ (test.isPass() ? 1 : 2)) * FNV_PRIME;
+		return mix(h, test.getScoreModifier());
+	}
+
+	private static long mix(long h, String value) {
+		if (value == null) {
+			return (h ^ 0xff) * FNV_PRIME;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			h = (h ^ value.charAt(i)) * FNV_PRIME;
+		}
+		// terminates the string, so "ab" + "c" differs from "a" + "bc"
+		return (h ^ 0xfe) * FNV_PRIME;
+	}
+
+	private static long mix(long h, long value) {
+		for (int shift = 0; shift < 64; shift += 8) {
+			h = (h ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+		}
+		return h;
+	}
+}
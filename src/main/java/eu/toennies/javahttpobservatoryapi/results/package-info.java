@@ -0,0 +1,6 @@
+/**
+ * Provides the result objects of the API calls.
+ * 
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.results;
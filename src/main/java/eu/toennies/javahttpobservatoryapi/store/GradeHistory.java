@@ -0,0 +1,115 @@
+package eu.toennies.javahttpobservatoryapi.store;
+
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+
+/**
+ * The rows of a {@link GradeHistoryLog} query, in the order of time for a
+ * single host and in the order of the log for a time range.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class GradeHistory {
+
+	private static final Grade[] GRADES = Grade.values();
+
+	private final String[] hosts;
+	private final long[] scanIds;
+	private final long[] timestamps;
+	private final short[] scores;
+	private final byte[] grades;
+	private final short[] testsPassed;
+	private final short[] testsFailed;
+
+	GradeHistory(final int size) {
+		this.hosts = new String[size];
+		this.scanIds = new long[size];
+		this.timestamps = new long[size];
+		this.scores = new short[size];
+		this.grades = new byte[size];
+		this.testsPassed = new short[size];
+		this.testsFailed = new short[size];
+	}
+
+	void set(int index, String host, long scanId, long timestamp, short score, byte grade, short passed,
+			short failed) {
+		hosts[index] = host;
+		scanIds[index] = scanId;
+		timestamps[index] = timestamp;
+		scores[index] = score;
+		grades[index] = grade;
+		testsPassed[index] = passed;
+		testsFailed[index] = failed;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public int size() {
+		return hosts.length;
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the row
+	 * @return the host
+	 */
+	public String getHost(int index) {
+		return hosts[index];
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the row
+	 * @return the scan id
+	 */
+	public long getScanId(int index) {
+		return scanIds[index];
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the row
+	 * @return the end of the scan in milliseconds since the epoch, in full
+	 *         seconds
+	 */
+	public long getTimestamp(int index) {
+		return timestamps[index];
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the row
+	 * @return the score
+	 */
+	public int getScore(int index) {
+		return scores[index];
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the row
+	 * @return the grade or null if the scan had none
+	 */
+	public Grade getGrade(int index) {
+		return grades[index] < 0 ? null : GRADES[grades[index]];
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the row
+	 * @return the number of passed tests
+	 */
+	public int getTestsPassed(int index) {
+		return testsPassed[index];
+	}
+
+	/**
+	 * @param index
+	 *            - the index of the row
+	 * @return the number of failed tests
+	 */
+	public int getTestsFailed(int index) {
+		return testsFailed[index];
+	}
+}
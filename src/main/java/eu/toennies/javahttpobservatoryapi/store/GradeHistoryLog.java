@@ -0,0 +1,691 @@
+package eu.toennies.javahttpobservatoryapi.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+import eu.toennies.javahttpobservatoryapi.results.ScanState;
+
+/**
+ * A local, append-only log of the grades of finished scans, for keeping the
+ * grade history of hosts over months without storing the scan objects.
+ *
+ * Every scan is a row of 32 bytes in memory mapped segment files of a fixed
+ * size:
+ *
+ * <pre>
+ *  0 scan id                      long
+ *  8 previous row of the host     long, -1 for the first row
+ * 16 host id                      int
+ * 20 end of the scan              int, unsigned seconds since the epoch
+ * 24 score                        short
+ * 26 grade ordinal                byte, -1 if none
+ * 27 reserved                     byte
+ * 28 tests passed                 short
+ * 30 tests failed                 short
+ * </pre>
+ *
+ * Host names are stored once in a dictionary file and referenced by their
+ * position. The rows of a host are chained backwards, every 64th row of a
+ * host is kept as a checkpoint and the smallest and largest time of every
+ * block of 4096 rows is kept for range queries over all hosts. This index is
+ * held in memory and written to a snapshot file by {@link #sync()} and
+ * {@link #close()}; rows appended after the last snapshot are read again
+ * when the log is opened.
+ *
+ * The rows of a host have to be appended in the order of time, a scan older
+ * than the last scan of its host is ignored.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class GradeHistoryLog implements Closeable {
+
+	/** the size of a row */
+	public static final int ROW_SIZE = 32;
+
+	/** the number of rows of a segment file */
+	public static final int ROWS_PER_SEGMENT = 1 << 21;
+
+	/** the number of rows covered by one entry of the time index */
+	static final int BLOCK_ROWS = 4096;
+
+	/** every n-th row of a host is a checkpoint */
+	static final int CHECKPOINT_INTERVAL = 64;
+
+	private static final String DICTIONARY_FILE = "hosts.dict";
+	private static final String SNAPSHOT_FILE = "history.idx";
+	private static final String SEGMENT_FILE = "history-%05d.dat";
+	private static final int SNAPSHOT_MAGIC = 0x47484c31;
+
+	private static final int SCAN_ID = 0;
+	private static final int PREVIOUS = 8;
+	private static final int HOST = 16;
+	private static final int TIME = 20;
+	private static final int SCORE = 24;
+	private static final int GRADE = 26;
+	private static final int PASSED = 28;
+	private static final int FAILED = 30;
+
+	private final File directory;
+	private final RandomAccessFile dictionary;
+	private final Map<String, Integer> hostIds = new HashMap<String, Integer>();
+	private final List<String> hostNames = new ArrayList<String>();
+	private final List<RandomAccessFile> segmentFiles = new ArrayList<RandomAccessFile>();
+	private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private long rowCount;
+	/** the last row of every host */
+	private long[] heads = new long[0];
+	/** the number of rows of every host */
+	private int[] counts = new int[0];
+	/** every 64th row of every host */
+	private long[][] checkpoints = new long[0][];
+	/** the smallest time of every block of rows */
+	private long[] blockMin = new long[16];
+	/** the largest time of every block of rows */
+	private long[] blockMax = new long[16];
+	private int blockCount;
+	private boolean loaded = false;
+	private boolean closed = false;
+
+	private GradeHistoryLog(final File directory, final RandomAccessFile dictionary) {
+		this.directory = directory;
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Opens the log in the given directory, the directory is created if it
+	 * does not exist.
+	 *
+	 * @param directory
+	 *            - the directory holding the log files
+	 * @return the opened log
+	 * @throws IOException
+	 *             if the log files could not be opened
+	 */
+	@SuppressWarnings("resource")
+	public static GradeHistoryLog open(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create directory " + directory);
+		}
+
+		GradeHistoryLog log = new GradeHistoryLog(directory,
+				new RandomAccessFile(new File(directory, DICTIONARY_FILE), "rw"));
+		try {
+			log.load();
+			return log;
+		} catch (IOException e) {
+			log.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the dictionary and the snapshot, maps the segments and reads the
+	 * rows appended after the snapshot.
+	 */
+	private void load() throws IOException {
+		long valid = 0;
+		try {
+			while (dictionary.getFilePointer() < dictionary.length()) {
+				addHost(dictionary.readUTF());
+				valid = dictionary.getFilePointer();
+			}
+		} catch (EOFException e) {
+			// a partially written host name is dropped below
+		} catch (UTFDataFormatException e) {
+			// a partially written host name is dropped below
+		}
+		dictionary.setLength(valid);
+		dictionary.seek(valid);
+
+		for (int segment = 0; segmentFile(segment).exists(); segment++) {
+			mapSegment(segment);
+		}
+
+		if (!loadSnapshot()) {
+			clearIndex();
+		}
+
+		long capacity = (long) segments.size() * ROWS_PER_SEGMENT;
+		long row = rowCount;
+		while (row < capacity) {
+			long scanId = readLong(row, SCAN_ID);
+			int host = readInt(row, HOST);
+			if (scanId <= 0 || host < 0 || host >= hostNames.size() || readLong(row, PREVIOUS) != heads[host]) {
+				break;
+			}
+			index(row, host, readTime(row));
+			row++;
+		}
+		rowCount = row;
+
+		// a partially written row, rows behind it were never part of the log
+		for (; row < capacity && readLong(row, SCAN_ID) != 0; row++) {
+			MappedByteBuffer segment = segments.get((int) (row / ROWS_PER_SEGMENT));
+			int offset = (int) (row % ROWS_PER_SEGMENT) * ROW_SIZE;
+			for (int i = 0; i < ROW_SIZE; i += 8) {
+				segment.putLong(offset + i, 0L);
+			}
+		}
+		loaded = true;
+	}
+
+	/**
+	 * Reads the index written by the last sync.
+	 *
+	 * @return false if there is no valid snapshot
+	 */
+	private boolean loadSnapshot() throws IOException {
+		File file = new File(directory, SNAPSHOT_FILE);
+		if (!file.exists()) {
+			return false;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != SNAPSHOT_MAGIC) {
+				return false;
+			}
+			long rows = in.readLong();
+			int hosts = in.readInt();
+			int blocks = in.readInt();
+			if (rows < 0 || rows > (long) segments.size() * ROWS_PER_SEGMENT || hosts < 0
+					|| hosts > hostNames.size() || blocks != (rows + BLOCK_ROWS - 1) / BLOCK_ROWS) {
+				return false;
+			}
+
+			rowCount = rows;
+			blockCount = blocks;
+			blockMin = new long[Math.max(16, blocks)];
+			blockMax = new long[Math.max(16, blocks)];
+			for (int i = 0; i < blocks; i++) {
+				blockMin[i] = in.readLong();
+				blockMax[i] = in.readLong();
+			}
+			ensureHosts(hostNames.size());
+			for (int host = 0; host < hosts; host++) {
+				heads[host] = in.readLong();
+				counts[host] = in.readInt();
+				int checkpointCount = (counts[host] + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL;
+				checkpoints[host] = new long[Math.max(4, checkpointCount)];
+				for (int i = 0; i < checkpointCount; i++) {
+					checkpoints[host][i] = in.readLong();
+				}
+			}
+			return true;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	private void clearIndex() {
+		rowCount = 0;
+		blockCount = 0;
+		heads = new long[0];
+		counts = new int[0];
+		checkpoints = new long[0][];
+		ensureHosts(hostNames.size());
+	}
+
+	/**
+	 * Appends a finished assessment, as returned by the retrieve assessment
+	 * call. The end of the scan is used as its time.
+	 *
+	 * @param assessment
+	 *            - the assessment
+	 * @return true if the scan has been appended, false if it has not
+	 *         finished, is already known or older than the last scan of the
+	 *         host
+	 * @throws IOException
+	 *             if the row could not be written
+	 */
+	public boolean append(Assessment assessment) throws IOException {
+		if (assessment.getState() != ScanState.FINISHED) {
+			return false;
+		}
+		long time = assessment.getEndTime() >= 0 ? assessment.getEndTime()
+				: assessment.getStartTime() >= 0 ? assessment.getStartTime() : System.currentTimeMillis();
+		return append(assessment.getHost(), assessment.getScanId(), time, assessment.getScore(),
+				assessment.getGrade(), assessment.getTestsPassed(), assessment.getTestsFailed());
+	}
+
+	/**
+	 * Appends a scan.
+	 *
+	 * @param host
+	 *            - the scanned host
+	 * @param scanId
+	 *            - the scan id, must be positive
+	 * @param timestamp
+	 *            - the end of the scan in milliseconds since the epoch, kept
+	 *            in full seconds
+	 * @param score
+	 *            - the score
+	 * @param grade
+	 *            - the grade, may be null
+	 * @param testsPassed
+	 *            - the number of passed tests
+	 * @param testsFailed
+	 *            - the number of failed tests
+	 * @return true if the scan has been appended, false if it is already
+	 *         known or older than the last scan of the host
+	 * @throws IOException
+	 *             if the row could not be written
+	 */
+	public boolean append(String host, long scanId, long timestamp, int score, Grade grade, int testsPassed,
+			int testsFailed) throws IOException {
+		if (host == null || host.isEmpty()) {
+			throw new IllegalArgumentException("The host is missing.");
+		}
+		if (scanId <= 0) {
+			throw new IllegalArgumentException("The scan id " + scanId + " is not valid.");
+		}
+		long time = timestamp / 1000;
+		if (timestamp < 0 || time > 0xFFFFFFFFL) {
+			throw new IllegalArgumentException("The timestamp " + timestamp + " is out of range.");
+		}
+
+		lock.writeLock().lock();
+		try {
+			ensureOpen();
+			int id = hostId(host);
+			long head = heads[id];
+			if (head >= 0 && (readLong(head, SCAN_ID) == scanId || time < readTime(head))) {
+				return false;
+			}
+
+			long row = rowCount;
+			int segmentIndex = (int) (row / ROWS_PER_SEGMENT);
+			if (segmentIndex == segments.size()) {
+				mapSegment(segmentIndex);
+			}
+			MappedByteBuffer segment = segments.get(segmentIndex);
+			int offset = (int) (row % ROWS_PER_SEGMENT) * ROW_SIZE;
+			segment.putLong(offset + PREVIOUS, head);
+			segment.putInt(offset + HOST, id);
+			segment.putInt(offset + TIME, (int) time);
+			segment.putShort(offset + SCORE, (short) score);
+			segment.put(offset + GRADE, (byte) (grade != null ? grade.ordinal() : -1));
+			segment.putShort(offset + PASSED, (short) testsPassed);
+			segment.putShort(offset + FAILED, (short) testsFailed);
+			// written last, a row without scan id ends the log when it is read again
+			segment.putLong(offset + SCAN_ID, scanId);
+
+			index(row, id, time);
+			rowCount++;
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Retrieve the scans of a host within a time range, e.g. the score
+	 * trajectory of the last 90 days. Only the rows of the host within the
+	 * range and at most one checkpoint interval after it are read.
+	 *
+	 * @param host
+	 *            - the host
+	 * @param from
+	 *            - the start of the range in milliseconds since the epoch,
+	 *            inclusive
+	 * @param to
+	 *            - the end of the range in milliseconds since the epoch,
+	 *            inclusive
+	 * @return the scans in the order of time
+	 * @throws IOException
+	 *             if the log is closed
+	 */
+	public GradeHistory query(String host, long from, long to) throws IOException {
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			Integer id = hostIds.get(host);
+			if (id == null || heads[id] < 0) {
+				return new GradeHistory(0);
+			}
+
+			long row = heads[id];
+			long[] hostCheckpoints = checkpoints[id];
+			int low = 0;
+			int high = (counts[id] + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL - 1;
+			while (low <= high) {
+				// the first checkpoint after the range
+				int middle = (low + high) >>> 1;
+				if (readTime(hostCheckpoints[middle]) * 1000 > to) {
+					row = hostCheckpoints[middle];
+					high = middle - 1;
+				} else {
+					low = middle + 1;
+				}
+			}
+
+			long[] rows = new long[16];
+			int size = 0;
+			for (; row >= 0; row = readLong(row, PREVIOUS)) {
+				long time = readTime(row) * 1000;
+				if (time < from) {
+					break;
+				}
+				if (time <= to) {
+					if (size == rows.length) {
+						rows = Arrays.copyOf(rows, size * 2);
+					}
+					rows[size++] = row;
+				}
+			}
+
+			GradeHistory history = new GradeHistory(size);
+			for (int i = 0; i < size; i++) {
+				read(history, size - 1 - i, rows[i]);
+			}
+			return history;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Retrieve the last scan of every host.
+	 *
+	 * @return the scans in the order of the host dictionary
+	 * @throws IOException
+	 *             if the log is closed
+	 */
+	public GradeHistory latest() throws IOException {
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			int size = 0;
+			for (int host = 0; host < hostNames.size(); host++) {
+				if (heads[host] >= 0) {
+					size++;
+				}
+			}
+
+			GradeHistory history = new GradeHistory(size);
+			int index = 0;
+			for (int host = 0; host < hostNames.size(); host++) {
+				if (heads[host] >= 0) {
+					read(history, index++, heads[host]);
+				}
+			}
+			return history;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Retrieve the scans of all hosts within a time range. Only the blocks of
+	 * rows overlapping the range are read.
+	 *
+	 * @param from
+	 *            - the start of the range in milliseconds since the epoch,
+	 *            inclusive
+	 * @param to
+	 *            - the end of the range in milliseconds since the epoch,
+	 *            inclusive
+	 * @return the scans in the order they were appended
+	 * @throws IOException
+	 *             if the log is closed
+	 */
+	public GradeHistory query(long from, long to) throws IOException {
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			long[] rows = new long[16];
+			int size = 0;
+			for (int block = 0; block < blockCount; block++) {
+				if (blockMax[block] * 1000 < from || blockMin[block] * 1000 > to) {
+					continue;
+				}
+				long end = Math.min(rowCount, (block + 1L) * BLOCK_ROWS);
+				for (long row = (long) block * BLOCK_ROWS; row < end; row++) {
+					long time = readTime(row) * 1000;
+					if (time >= from && time <= to) {
+						if (size == rows.length) {
+							rows = Arrays.copyOf(rows, size * 2);
+						}
+						rows[size++] = row;
+					}
+				}
+			}
+
+			GradeHistory history = new GradeHistory(size);
+			for (int i = 0; i < size; i++) {
+				read(history, i, rows[i]);
+			}
+			return history;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public long size() {
+		lock.readLock().lock();
+		try {
+			return rowCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of hosts in the dictionary
+	 */
+	public int getHostCount() {
+		lock.readLock().lock();
+		try {
+			return hostNames.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Writes all pending rows and the index to the disk.
+	 *
+	 * @throws IOException
+	 *             if the changes could not be written
+	 */
+	public void sync() throws IOException {
+		lock.writeLock().lock();
+		try {
+			ensureOpen();
+			writeSnapshot();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.writeLock().lock();
+		try {
+			if (closed) {
+				return;
+			}
+			try {
+				if (loaded) {
+					writeSnapshot();
+				}
+			} finally {
+				closed = true;
+				segments.clear();
+				for (RandomAccessFile file : segmentFiles) {
+					file.close();
+				}
+				dictionary.close();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Forces the rows and the dictionary to the disk and replaces the
+	 * snapshot, so it never covers rows that are not on the disk.
+	 */
+	private void writeSnapshot() throws IOException {
+		for (MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+		dictionary.getFD().sync();
+
+		File temp = new File(directory, SNAPSHOT_FILE + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeLong(rowCount);
+			out.writeInt(hostNames.size());
+			out.writeInt(blockCount);
+			for (int i = 0; i < blockCount; i++) {
+				out.writeLong(blockMin[i]);
+				out.writeLong(blockMax[i]);
+			}
+			for (int host = 0; host < hostNames.size(); host++) {
+				out.writeLong(heads[host]);
+				out.writeInt(counts[host]);
+				int checkpointCount = (counts[host] + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL;
+				for (int i = 0; i < checkpointCount; i++) {
+					out.writeLong(checkpoints[host][i]);
+				}
+			}
+		}
+		Files.move(temp.toPath(), new File(directory, SNAPSHOT_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Adds a row to the index in memory.
+	 */
+	private void index(long row, int host, long time) {
+		if (counts[host] % CHECKPOINT_INTERVAL == 0) {
+			int checkpoint = counts[host] / CHECKPOINT_INTERVAL;
+			if (checkpoint == checkpoints[host].length) {
+				checkpoints[host] = Arrays.copyOf(checkpoints[host], checkpoint * 2);
+			}
+			checkpoints[host][checkpoint] = row;
+		}
+		counts[host]++;
+		heads[host] = row;
+
+		int block = (int) (row / BLOCK_ROWS);
+		if (block == blockCount) {
+			if (block == blockMin.length) {
+				blockMin = Arrays.copyOf(blockMin, block * 2);
+				blockMax = Arrays.copyOf(blockMax, block * 2);
+			}
+			blockMin[block] = time;
+			blockMax[block] = time;
+			blockCount++;
+		} else {
+			blockMin[block] = Math.min(blockMin[block], time);
+			blockMax[block] = Math.max(blockMax[block], time);
+		}
+	}
+
+	private int hostId(String host) throws IOException {
+		Integer id = hostIds.get(host);
+		if (id != null) {
+			return id.intValue();
+		}
+
+		dictionary.writeUTF(host);
+		return addHost(host);
+	}
+
+	private int addHost(String host) {
+		int id = hostNames.size();
+		hostNames.add(host);
+		hostIds.put(host, Integer.valueOf(id));
+		ensureHosts(id + 1);
+		return id;
+	}
+
+	private void ensureHosts(int size) {
+		int old = heads.length;
+		if (size <= old) {
+			return;
+		}
+		int capacity = Math.max(size, old * 2);
+		heads = Arrays.copyOf(heads, capacity);
+		Arrays.fill(heads, old, capacity, -1L);
+		counts = Arrays.copyOf(counts, capacity);
+		checkpoints = Arrays.copyOf(checkpoints, capacity);
+		for (int i = old; i < capacity; i++) {
+			checkpoints[i] = new long[4];
+		}
+	}
+
+	private void read(GradeHistory history, int index, long row) {
+		MappedByteBuffer segment = segments.get((int) (row / ROWS_PER_SEGMENT));
+		int offset = (int) (row % ROWS_PER_SEGMENT) * ROW_SIZE;
+		history.set(index, hostNames.get(segment.getInt(offset + HOST)), segment.getLong(offset + SCAN_ID),
+				(segment.getInt(offset + TIME) & 0xFFFFFFFFL) * 1000, segment.getShort(offset + SCORE),
+				segment.get(offset + GRADE), segment.getShort(offset + PASSED), segment.getShort(offset + FAILED));
+	}
+
+	private long readLong(long row, int field) {
+		return segments.get((int) (row / ROWS_PER_SEGMENT)).getLong((int) (row % ROWS_PER_SEGMENT) * ROW_SIZE + field);
+	}
+
+	private int readInt(long row, int field) {
+		return segments.get((int) (row / ROWS_PER_SEGMENT)).getInt((int) (row % ROWS_PER_SEGMENT) * ROW_SIZE + field);
+	}
+
+	/**
+	 * @return the time of a row in seconds since the epoch
+	 */
+	private long readTime(long row) {
+		return readInt(row, TIME) & 0xFFFFFFFFL;
+	}
+
+	private void mapSegment(int segment) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(segmentFile(segment), "rw");
+		try {
+			segments.add(file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) ROWS_PER_SEGMENT * ROW_SIZE));
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+		segmentFiles.add(file);
+	}
+
+	private File segmentFile(int segment) {
+		return new File(directory, String.format(Locale.ROOT, SEGMENT_FILE, Integer.valueOf(segment)));
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("The grade history log is closed.");
+		}
+	}
+}
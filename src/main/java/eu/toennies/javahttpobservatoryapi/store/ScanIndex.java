@@ -0,0 +1,146 @@
+package eu.toennies.javahttpobservatoryapi.store;
+
+/**
+ * An open addressing hash table from scan ids to record locations. Keys and
+ * values are kept in primitive arrays, so millions of scans need neither
+ * boxing nor an object per entry.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+class ScanIndex {
+
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] keys;
+	private long[] locations;
+	private int[] lengths;
+	private int[] checksums;
+	private int size;
+	private int threshold;
+
+	ScanIndex(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * @return the number of indexed scans
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieve the slot of a scan id.
+	 *
+	 * @param scanId
+	 *            - the scan id
+	 * @return the slot or -1 if the scan id is unknown
+	 */
+	int find(long scanId) {
+		int mask = keys.length - 1;
+		for (int slot = hash(scanId) & mask; lengths[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[slot] == scanId) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param slot
+	 *            - a slot returned by find
+	 * @return the segment and offset of the record, segment in the upper half
+	 */
+	long location(int slot) {
+		return locations[slot];
+	}
+
+	/**
+	 * @param slot
+	 *            - a slot returned by find
+	 * @return the length of the record
+	 */
+	int length(int slot) {
+		return lengths[slot];
+	}
+
+	/**
+	 * @param slot
+	 *            - a slot returned by find
+	 * @return the CRC32 of the record
+	 */
+	int checksum(int slot) {
+		return checksums[slot];
+	}
+
+	/**
+	 * Adds or replaces a scan.
+	 *
+	 * @param scanId
+	 *            - the scan id
+	 * @param segment
+	 *            - the segment holding the record
+	 * @param offset
+	 *            - the offset of the record within the segment
+	 * @param length
+	 *            - the length of the record, must be positive
+	 * @param checksum
+	 *            - the CRC32 of the record
+	 */
+	void put(long scanId, int segment, int offset, int length, int checksum) {
+		if (size >= threshold) {
+			rehash(keys.length << 1);
+		}
+
+		int mask = keys.length - 1;
+		int slot = hash(scanId) & mask;
+		while (lengths[slot] != 0 && keys[slot] != scanId) {
+			slot = (slot + 1) & mask;
+		}
+		if (lengths[slot] == 0) {
+			size++;
+		}
+		keys[slot] = scanId;
+		locations[slot] = ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+		lengths[slot] = length;
+		checksums[slot] = checksum;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		long[] oldLocations = locations;
+		int[] oldLengths = lengths;
+		int[] oldChecksums = checksums;
+
+		allocate(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldLengths[i] == 0) {
+				continue;
+			}
+			int slot = hash(oldKeys[i]) & mask;
+			while (lengths[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = oldKeys[i];
+			locations[slot] = oldLocations[i];
+			lengths[slot] = oldLengths[i];
+			checksums[slot] = oldChecksums[i];
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		locations = new long[capacity];
+		lengths = new int[capacity];
+		checksums = new int[capacity];
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,338 @@
+package eu.toennies.javahttpobservatoryapi.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A local, append-only store for the test results of finished scans, indexed
+ * by scan id. Test results of a finished scan never change, so they only have
+ * to be downloaded once.
+ *
+ * The results are appended to memory mapped segment files of a fixed size.
+ * For every result an entry (scan id, segment, offset, length, checksum) is
+ * appended to an index file, which is loaded into a primitive hash table when
+ * the store is opened. A record only becomes visible after its index entry
+ * has been written, so an interrupted write is ignored on the next start.
+ *
+ * The segments and the index are written back to the disk independently, so
+ * after a crash of the operating system an index entry may point to data
+ * which never reached the disk. Every read verifies the CRC32 of the record,
+ * a damaged record is treated as missing and replaced by the next put. Call
+ * {@link #sync()} to make the stored results durable.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ScanResultStore implements Closeable {
+
+	/** the size of a segment file */
+	public static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private static final String INDEX_FILE = "results.idx";
+	private static final String SEGMENT_FILE = "results-%05d.dat";
+
+	/** scan id, segment, offset, length and checksum */
+	private static final int INDEX_ENTRY_SIZE = 8 + 4 + 4 + 4 + 4;
+
+	private final File directory;
+	private final FileChannel indexChannel;
+	private final ScanIndex index;
+	private final List<RandomAccessFile> segmentFiles = new ArrayList<RandomAccessFile>();
+	private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ByteBuffer entryBuffer = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+	private int writePosition;
+	private boolean closed = false;
+
+	private ScanResultStore(final File directory, final FileChannel indexChannel, final ScanIndex index) {
+		this.directory = directory;
+		this.indexChannel = indexChannel;
+		this.index = index;
+	}
+
+	/**
+	 * Opens the store in the given directory, the directory is created if it
+	 * does not exist.
+	 *
+	 * @param directory
+	 *            - the directory holding the store files
+	 * @return the opened store
+	 * @throws IOException
+	 *             if the store files could not be opened
+	 */
+	@SuppressWarnings("resource")
+	public static ScanResultStore open(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create directory " + directory);
+		}
+
+		FileChannel indexChannel = new RandomAccessFile(new File(directory, INDEX_FILE), "rw").getChannel();
+		try {
+			long entries = indexChannel.size() / INDEX_ENTRY_SIZE;
+			ScanResultStore store = new ScanResultStore(directory, indexChannel,
+					new ScanIndex((int) Math.min(Integer.MAX_VALUE / 2, entries)));
+			store.load(entries);
+			return store;
+		} catch (IOException e) {
+			indexChannel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the index file and maps the segments it refers to.
+	 */
+	private void load(long entries) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY_SIZE * 4096);
+		long position = 0;
+		long valid = 0;
+		int lastSegment = 0;
+		int lastEnd = 0;
+		int segmentCount = 0;
+		while (segmentFile(segmentCount).exists()) {
+			segmentCount++;
+		}
+
+		while (valid < entries) {
+			buffer.clear();
+			int read = indexChannel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+			buffer.flip();
+			while (buffer.remaining() >= INDEX_ENTRY_SIZE && valid < entries) {
+				long scanId = buffer.getLong();
+				int segment = buffer.getInt();
+				int offset = buffer.getInt();
+				int length = buffer.getInt();
+				int checksum = buffer.getInt();
+				if (segment < 0 || segment >= segmentCount || offset < 0 || length <= 0
+						|| offset + (long) length > SEGMENT_SIZE) {
+					entries = valid;
+					break;
+				}
+
+				index.put(scanId, segment, offset, length, checksum);
+				if (segment > lastSegment || (segment == lastSegment && offset + length > lastEnd)) {
+					lastSegment = segment;
+					lastEnd = offset + length;
+				}
+				valid++;
+				position += INDEX_ENTRY_SIZE;
+			}
+		}
+
+		// drop a partially written entry
+		indexChannel.truncate(valid * INDEX_ENTRY_SIZE);
+		indexChannel.position(valid * INDEX_ENTRY_SIZE);
+
+		for (int segment = 0; segment <= lastSegment; segment++) {
+			mapSegment(segment);
+		}
+		writePosition = lastEnd;
+	}
+
+	/**
+	 * Is the result of the scan stored?
+	 *
+	 * @param scanId
+	 *            - the scan id
+	 * @return true if the result is stored and not damaged
+	 */
+	public boolean contains(long scanId) {
+		lock.readLock().lock();
+		try {
+			int slot = index.find(scanId);
+			return slot >= 0 && !closed && read(slot) != null;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Retrieve a stored result.
+	 *
+	 * @param scanId
+	 *            - the scan id
+	 * @return the stored result or null if the scan is unknown or its record
+	 *         is damaged
+	 * @throws IOException
+	 *             if the store is closed
+	 */
+	public String get(long scanId) throws IOException {
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			int slot = index.find(scanId);
+			if (slot < 0) {
+				return null;
+			}
+
+			byte[] data = read(slot);
+			if (data == null) {
+				Logger.getGlobal().warning("The stored result of scan " + scanId + " is damaged.");
+				return null;
+			}
+			return new String(data, StandardCharsets.UTF_8);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Reads a record and verifies its checksum.
+	 *
+	 * @return the record or null if it is damaged
+	 */
+	private byte[] read(int slot) {
+		long location = index.location(slot);
+		ByteBuffer segment = segments.get((int) (location >>> 32)).duplicate();
+		segment.position((int) location);
+		byte[] data = new byte[index.length(slot)];
+		segment.get(data);
+		return checksum(data) == index.checksum(slot) ? data : null;
+	}
+
+	private static int checksum(byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Stores the result of a scan. A result already stored for the scan id is
+	 * kept, since the results of a finished scan do not change, unless its
+	 * record is damaged.
+	 *
+	 * @param scanId
+	 *            - the scan id
+	 * @param result
+	 *            - the test results of the scan
+	 * @throws IOException
+	 *             if the result could not be written
+	 */
+	public void put(long scanId, String result) throws IOException {
+		byte[] data = result.getBytes(StandardCharsets.UTF_8);
+		if (data.length == 0 || data.length > SEGMENT_SIZE) {
+			throw new IllegalArgumentException("Can not store a result of " + data.length + " bytes.");
+		}
+
+		lock.writeLock().lock();
+		try {
+			ensureOpen();
+			int slot = index.find(scanId);
+			if (slot >= 0 && read(slot) != null) {
+				return;
+			}
+
+			if (segments.isEmpty() || writePosition + (long) data.length > SEGMENT_SIZE) {
+				mapSegment(segments.size());
+				writePosition = 0;
+			}
+
+			int segment = segments.size() - 1;
+			ByteBuffer target = segments.get(segment).duplicate();
+			target.position(writePosition);
+			target.put(data);
+
+			int checksum = checksum(data);
+			entryBuffer.clear();
+			entryBuffer.putLong(scanId).putInt(segment).putInt(writePosition).putInt(data.length).putInt(checksum);
+			entryBuffer.flip();
+			while (entryBuffer.hasRemaining()) {
+				indexChannel.write(entryBuffer);
+			}
+
+			index.put(scanId, segment, writePosition, data.length, checksum);
+			writePosition += data.length;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of stored results
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return index.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Writes all pending changes to the disk.
+	 *
+	 * @throws IOException
+	 *             if the changes could not be written
+	 */
+	public void sync() throws IOException {
+		lock.writeLock().lock();
+		try {
+			ensureOpen();
+			for (MappedByteBuffer segment : segments) {
+				segment.force();
+			}
+			indexChannel.force(false);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.writeLock().lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			for (MappedByteBuffer segment : segments) {
+				segment.force();
+			}
+			segments.clear();
+			for (RandomAccessFile file : segmentFiles) {
+				file.close();
+			}
+			indexChannel.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void mapSegment(int segment) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(segmentFile(segment), "rw");
+		try {
+			segments.add(file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE));
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+		segmentFiles.add(file);
+	}
+
+	private File segmentFile(int segment) {
+		return new File(directory, String.format(Locale.ROOT, SEGMENT_FILE, Integer.valueOf(segment)));
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("The scan result store is closed.");
+		}
+	}
+}
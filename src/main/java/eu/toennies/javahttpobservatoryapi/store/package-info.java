@@ -0,0 +1,6 @@
+/**
+ * Provides local persistent stores for API results.
+ * 
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.store;
@@ -0,0 +1,40 @@
+package eu.toennies.javahttpobservatoryapi.transport;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Sends the HTTP requests of the API. Implementations must be thread-safe, one
+ * transport is shared by all API calls.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public interface Transport {
+
+	/**
+	 * Sends a GET request.
+	 *
+	 * @param url
+	 *            - the url including the query string
+	 * @return the response, the caller has to close it
+	 * @throws IOException
+	 *             if the request could not be sent
+	 */
+	TransportResponse get(URL url) throws IOException;
+
+	/**
+	 * Sends a POST request.
+	 *
+	 * @param url
+	 *            - the url including the query string
+	 * @param body
+	 *            - the request body
+	 * @param contentType
+	 *            - the content type of the body
+	 * @return the response, the caller has to close it
+	 * @throws IOException
+	 *             if the request could not be sent
+	 */
+	TransportResponse post(URL url, byte[] body, String contentType) throws IOException;
+}
@@ -0,0 +1,131 @@
+package eu.toennies.javahttpobservatoryapi.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The response of a transport. The body is already decompressed.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class TransportResponse implements Closeable {
+
+	private final int statusCode;
+	private final String contentType;
+	private final long contentLength;
+	private final InputStream body;
+	private final long connectNanos;
+	private final long firstByteNanos;
+
+	/**
+	 * Constructor for a new response.
+	 *
+	 * @param statusCode
+	 *            - the HTTP status code
+	 * @param contentType
+	 *            - the content type header, may be null
+	 * @param contentLength
+	 *            - the length of the decompressed body or -1 if unknown
+	 * @param body
+	 *            - the decompressed body
+	 */
+	public TransportResponse(final int statusCode, final String contentType, final long contentLength,
+			final InputStream body) {
+		this(statusCode, contentType, contentLength, body, -1, -1);
+	}
+
+	/**
+	 * Constructor for a new response with the timings of the request.
+	 *
+	 * @param statusCode
+	 *            - the HTTP status code
+	 * @param contentType
+	 *            - the content type header, may be null
+	 * @param contentLength
+	 *            - the length of the decompressed body or -1 if unknown
+	 * @param body
+	 *            - the decompressed body
+	 * @param connectNanos
+	 *            - the time to connect, including the TLS handshake, or -1 if
+	 *            unknown
+	 * @param firstByteNanos
+	 *            - the time from the connection until the response status
+	 *            arrived or -1 if unknown
+	 */
+	public TransportResponse(final int statusCode, final String contentType, final long contentLength,
+			final InputStream body, final long connectNanos, final long firstByteNanos) {
+		this.statusCode = statusCode;
+		this.contentType = contentType;
+		this.contentLength = contentLength;
+		this.body = body;
+		this.connectNanos = connectNanos;
+		this.firstByteNanos = firstByteNanos;
+	}
+
+	/**
+	 * @return the HTTP status code
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return the content type header, may be null
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * @return the length of the body or -1 if unknown
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * @return the body
+	 */
+	public InputStream getBody() {
+		return body;
+	}
+
+	/**
+	 * @return the time to connect in nanoseconds, including the TLS handshake,
+	 *         or -1 if unknown. A reused connection connects immediately.
+	 */
+	public long getConnectNanos() {
+		return connectNanos;
+	}
+
+	/**
+	 * @return the time from the connection until the response status arrived
+	 *         in nanoseconds or -1 if unknown
+	 */
+	public long getFirstByteNanos() {
+		return firstByteNanos;
+	}
+
+	/**
+	 * Reads the rest of the body and closes it, so the connection can be
+	 * reused.
+	 */
+	public void discard() {
+		try {
+			byte[] buffer = new byte[1024];
+			while (body.read(buffer) != -1) {
+				// discard
+			}
+			body.close();
+		} catch (IOException ignored) {
+			// the connection will not be reused
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		body.close();
+	}
+}
@@ -0,0 +1,289 @@
+package eu.toennies.javahttpobservatoryapi.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+
+/**
+ * The default transport based on {@link HttpURLConnection}. Connections are
+ * never disconnected, the responses are read to their end and closed instead
+ * so the underlying socket goes back to the keep-alive cache of the JDK and can
+ * be reused by the next request.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class UrlConnectionTransport implements Transport {
+
+	/** the default time to wait for a connection to be established */
+	public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+
+	/** the default time to wait for the next data of a response */
+	public static final int DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+
+	/** the response compressions understood by the transport */
+	private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private static volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+	private static volatile int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+
+	/** connect and read timeout of the requests sent by the current task */
+	private static final ThreadLocal<int[]> TASK_TIMEOUTS = new ThreadLocal<int[]>();
+
+	private final String proxyAddress;
+
+	/**
+	 * Constructor for a transport without a proxy.
+	 */
+	public UrlConnectionTransport() {
+		this(null);
+	}
+
+	/**
+	 * Constructor for a transport sending all requests through a proxy.
+	 *
+	 * @param proxyAddress
+	 *            - the proxy as host:port or null for a direct connection
+	 */
+	public UrlConnectionTransport(final String proxyAddress) {
+		this.proxyAddress = proxyAddress;
+	}
+
+	/**
+	 * Configures the connection pool shared by all API requests. The JDK keeps
+	 * idle HTTP connections in a process wide keep-alive cache and reads its
+	 * size once, so this has to be called before the first request is sent.
+	 *
+	 * The idle timeout is only honoured from JDK 19 on. Older JDKs keep an
+	 * idle connection as long as the Keep-Alive header of the server allows,
+	 * or five seconds without that header.
+	 *
+	 * @param maxIdleConnections
+	 *            - the maximum number of idle connections kept per destination
+	 * @param idleTimeoutSeconds
+	 *            - seconds an idle connection is kept before it is evicted
+	 */
+	public static void configureConnectionPool(int maxIdleConnections, int idleTimeoutSeconds) {
+		if (maxIdleConnections < 1 || idleTimeoutSeconds < 1) {
+			throw new IllegalArgumentException("Pool size and idle timeout must be positive.");
+		}
+		System.setProperty("http.keepAlive", "true");
+		System.setProperty("http.maxConnections", Integer.toString(maxIdleConnections));
+		System.setProperty("http.keepAlive.time.server", Integer.toString(idleTimeoutSeconds));
+		System.setProperty("http.keepAlive.time.proxy", Integer.toString(idleTimeoutSeconds));
+	}
+
+	/**
+	 * Configures the timeouts of all API requests, so a hung server can not
+	 * block a caller forever. A timeout ends the request with a
+	 * {@link java.net.SocketTimeoutException}.
+	 *
+	 * @param connectTimeout
+	 *            - the time to wait for a connection to be established
+	 * @param readTimeout
+	 *            - the time to wait for the next data of a response
+	 * @param unit
+	 *            - the unit of the timeouts
+	 */
+	public static void configureTimeouts(long connectTimeout, long readTimeout, TimeUnit unit) {
+		if (connectTimeout < 1 || readTimeout < 1) {
+			throw new IllegalArgumentException("The timeouts must be positive.");
+		}
+		connectTimeoutMillis = toMillis(connectTimeout, unit);
+		readTimeoutMillis = toMillis(readTimeout, unit);
+	}
+
+	/**
+	 * @return the connect timeout of all API requests in milliseconds
+	 */
+	public static int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	/**
+	 * @return the read timeout of all API requests in milliseconds
+	 */
+	public static int getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	/**
+	 * Wraps an executor, so the requests sent by its tasks use the given
+	 * timeouts instead of the configured ones. The timeouts only apply to the
+	 * thread while it runs such a task, other callers are not affected.
+	 *
+	 * @param executor
+	 *            - the executor running the tasks
+	 * @param connectTimeout
+	 *            - the time to wait for a connection to be established
+	 * @param readTimeout
+	 *            - the time to wait for the next data of a response
+	 * @param unit
+	 *            - the unit of the timeouts
+	 * @return the wrapping executor
+	 */
+	public static Executor withTimeouts(final Executor executor, long connectTimeout, long readTimeout,
+			TimeUnit unit) {
+		if (connectTimeout < 1 || readTimeout < 1) {
+			throw new IllegalArgumentException("The timeouts must be positive.");
+		}
+		final int[] timeouts = { toMillis(connectTimeout, unit), toMillis(readTimeout, unit) };
+		return task -> executor.execute(() -> {
+			int[] previous = TASK_TIMEOUTS.get();
+			TASK_TIMEOUTS.set(timeouts);
+			try {
+				task.run();
+			} finally {
+				if (previous == null) {
+					TASK_TIMEOUTS.remove();
+				} else {
+					TASK_TIMEOUTS.set(previous);
+				}
+			}
+		});
+	}
+
+	private static int toMillis(long timeout, TimeUnit unit) {
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(1, unit.toMillis(timeout)));
+	}
+
+	@Override
+	public TransportResponse get(URL url) throws IOException {
+		long start = System.nanoTime();
+		HttpURLConnection conn = openConnection(url);
+		conn.connect();
+		return toResponse(conn, start, System.nanoTime());
+	}
+
+	@Override
+	public TransportResponse post(URL url, byte[] body, String contentType) throws IOException {
+		HttpURLConnection conn = openConnection(url);
+		conn.setDoOutput(true);
+		conn.setInstanceFollowRedirects(false);
+		conn.setRequestMethod("POST");
+		conn.setRequestProperty("Content-Type", contentType);
+		conn.setRequestProperty("charset", "utf-8");
+		conn.setRequestProperty("Content-Length", Integer.toString(body.length));
+		conn.setUseCaches(false);
+
+		long start = System.nanoTime();
+		conn.connect();
+		long connected = System.nanoTime();
+		try (OutputStream os = conn.getOutputStream()) {
+			os.write(body);
+		}
+
+		return toResponse(conn, start, connected);
+	}
+
+	/**
+	 * Opens a connection to the given url, using the configured proxy if any.
+	 */
+	private HttpURLConnection openConnection(URL url) throws IOException {
+		HttpURLConnection conn;
+		if (proxyAddress == null) {
+			conn = (HttpURLConnection) url.openConnection();
+		} else {
+			String[] hostAndPort = proxyAddress.split(":");
+			Proxy proxy = new Proxy(Proxy.Type.HTTP,
+					new InetSocketAddress(hostAndPort[0], Integer.parseInt(hostAndPort[1])));
+			conn = (HttpURLConnection) url.openConnection(proxy);
+		}
+
+		int[] timeouts = TASK_TIMEOUTS.get();
+		conn.setConnectTimeout(timeouts == null ? connectTimeoutMillis : timeouts[0]);
+		conn.setReadTimeout(timeouts == null ? readTimeoutMillis : timeouts[1]);
+		conn.setRequestProperty("Accept-Encoding", ACCEPT_ENCODING);
+		return conn;
+	}
+
+	/**
+	 * Wraps the response of the connection. For a failed request the error body
+	 * is returned, so it can be consumed and the connection reused.
+	 */
+	private TransportResponse toResponse(HttpURLConnection conn, long start, long connected) throws IOException {
+		int status = conn.getResponseCode();
+		long firstByte = System.nanoTime();
+		InputStream is;
+		if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+			is = conn.getErrorStream();
+			if (is == null) {
+				is = new ByteArrayInputStream(new byte[0]);
+			}
+		} else {
+			is = conn.getInputStream();
+		}
+
+		String contentEncoding = conn.getContentEncoding();
+		try {
+			// the content length of a compressed response does not match the decoded size
+			long contentLength = contentEncoding == null ? conn.getContentLengthLong() : -1;
+			return new TransportResponse(status, conn.getContentType(), contentLength,
+					decompress(is, contentEncoding), connected - start, firstByte - connected);
+		} catch (IOException e) {
+			is.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Wraps the stream according to the content encoding of the response.
+	 * Servers send deflate either zlib wrapped or raw, both are accepted.
+	 *
+	 * @param is
+	 *            - the raw response stream
+	 * @param contentEncoding
+	 *            - the content encoding header, may be null
+	 * @return the decompressed stream
+	 * @throws IOException
+	 *             if the encoding is not supported
+	 */
+	public static InputStream decompress(InputStream is, String contentEncoding) throws IOException {
+		if (contentEncoding == null || "identity".equalsIgnoreCase(contentEncoding.trim())) {
+			return is;
+		}
+
+		String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+		if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+			return new GZIPInputStream(is, 8192);
+		}
+		if ("deflate".equals(encoding)) {
+			PushbackInputStream pis = new PushbackInputStream(is, 2);
+			int cmf = pis.read();
+			int flg = pis.read();
+			if (flg != -1) {
+				pis.unread(flg);
+			}
+			if (cmf != -1) {
+				pis.unread(cmf);
+			}
+			boolean zlib = cmf != -1 && flg != -1 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+			return new InflaterInputStream(pis, new Inflater(!zlib), 8192) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						inf.end();
+					}
+				}
+			};
+		}
+
+		throw new ApiException("Unsupported content encoding " + contentEncoding);
+	}
+}
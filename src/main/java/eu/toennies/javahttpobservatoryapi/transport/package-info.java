@@ -0,0 +1,6 @@
+/**
+ * Provides the transports used to send requests to the API.
+ * 
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.transport;
@@ -0,0 +1,157 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.commands.GradeDistributionCommand;
+import eu.toennies.javahttpobservatoryapi.commands.InvokeAssessmentCommand;
+import eu.toennies.javahttpobservatoryapi.commands.RecentScansCommand;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveAssessmentCommand;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveTestResultsCommand;
+import eu.toennies.javahttpobservatoryapi.commands.ScannerStatesCommand;
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+import eu.toennies.javahttpobservatoryapi.results.GradeDistribution;
+import eu.toennies.javahttpobservatoryapi.results.RecentScans;
+import eu.toennies.javahttpobservatoryapi.results.ScanResultsReader;
+import eu.toennies.javahttpobservatoryapi.results.ScanState;
+import eu.toennies.javahttpobservatoryapi.results.ScannerStates;
+import eu.toennies.javahttpobservatoryapi.results.TestResult;
+import eu.toennies.javahttpobservatoryapi.stub.ObservatoryStubServer;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the api against the local stub server.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ApiStubTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	private final ObservatoryStubServer stub = STUB.getStub();
+
+	@After
+	public void resetStub() {
+		stub.reset();
+	}
+
+	@Test
+	public void testGetCommands() {
+		JSONObject states = new ScannerStatesCommand().run(null);
+		assertTrue("Scanner state object does not contain status FINISHED", states.has("FINISHED"));
+
+		JSONObject grades = new GradeDistributionCommand().run(null);
+		assertTrue("Grade distribution does not contain grade A+", grades.has("A+"));
+
+		JSONObject recent = new RecentScansCommand().run(null);
+		assertEquals(10, recent.length());
+
+		List<String> arguments = new ArrayList<String>();
+		arguments.add("host=example.com");
+		JSONObject assessment = new RetrieveAssessmentCommand().run(arguments);
+		assertEquals("FINISHED", assessment.optString("state"));
+	}
+
+	@Test
+	public void testInvokeAssessment() {
+		List<String> arguments = new ArrayList<String>();
+		arguments.add("host=example.com");
+		arguments.add("hidden");
+		JSONObject assessment = new InvokeAssessmentCommand().run(arguments);
+		assertEquals(1, assessment.optLong("scan_id"));
+	}
+
+	@Test
+	public void testStreamTestResults() throws IOException, JSONException {
+		List<String> arguments = new ArrayList<String>();
+		arguments.add("id=1");
+		assertEquals(12, new RetrieveTestResultsCommand().run(arguments).length());
+
+		int count = 0;
+		try (ScanResultsReader reader = new RetrieveTestResultsCommand().streamTestResults(arguments)) {
+			for (TestResult result = reader.next(); result != null; result = reader.next()) {
+				assertNotNull(result.getName());
+				count++;
+			}
+		}
+		assertEquals(12, count);
+	}
+
+	@Test
+	public void testServerError() throws IOException {
+		stub.setErrorRate(1);
+		try {
+			new Api().sendApiGetRequest("getScannerStates", null);
+			fail("Should have raised an ApiException.");
+		} catch (ApiException e) {
+			assertTrue(e.getMessage().contains("500"));
+		}
+	}
+
+	@Test
+	public void testResponseOverride() throws IOException, JSONException {
+		stub.setResponse("getRecentScans", "{\"example.com\":\"A+\"}");
+		JSONObject json = new JSONObject(new Api().sendApiGetRequest("getRecentScans", null));
+		assertEquals("A+", json.getString("example.com"));
+		assertNull(json.opt("site1.example.org"));
+
+		stub.reset();
+		json = new JSONObject(new Api().sendApiGetRequest("getRecentScans", null));
+		assertFalse(json.has("example.com"));
+	}
+
+	@Test
+	public void testTypedResults() throws IOException {
+		Assessment assessment = new RetrieveAssessmentCommand().getAssessment(Arguments.parse("host=example.com"));
+		assertEquals("example.com", assessment.getHost());
+		assertEquals(1, assessment.getScanId());
+		assertEquals(ScanState.FINISHED, assessment.getState());
+		assertEquals(Grade.A, assessment.getGrade());
+		assertEquals(90, assessment.getScore());
+		assertEquals(12, assessment.getTestsQuantity());
+		assertEquals("DENY", assessment.getResponseHeader("x-frame-options"));
+		assertEquals(1458683501000L, assessment.getEndTime());
+
+		GradeDistribution grades = new GradeDistributionCommand().getGradeDistribution();
+		assertEquals(3, grades.getCount(Grade.A_PLUS));
+		assertEquals(46770, grades.getCount(Grade.F));
+
+		ScannerStates states = new ScannerStatesCommand().getScannerStates();
+		assertEquals(46240, states.getCount(ScanState.FINISHED));
+		assertEquals(122 + 96 + 128, states.getQueued());
+
+		RecentScans recent = new RecentScansCommand().getRecentScans(Arguments.EMPTY);
+		assertEquals(10, recent.size());
+		assertEquals("site1.example.org", recent.getHost(0));
+		assertEquals(Grade.A, recent.getGrade(0));
+	}
+
+	@Test
+	public void testTypedResultError() throws IOException {
+		stub.setResponse("analyze", "{\"error\":\"invalid-hostname\"}");
+		try {
+			new RetrieveAssessmentCommand().getAssessment(Arguments.parse("host=example"));
+			fail("Should have raised an ApiException.");
+		} catch (ApiException e) {
+			assertTrue(e.getMessage().contains("invalid-hostname"));
+		}
+	}
+}
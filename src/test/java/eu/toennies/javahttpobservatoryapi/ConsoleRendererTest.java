@@ -0,0 +1,48 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveTestResultsCommand;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the console renderer.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ConsoleRendererTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@Test
+	public void testConsoleRenderer() throws JSONException {
+		List<String> arguments = new ArrayList<String>();
+		arguments.add("id=1");
+		JSONObject json = new RetrieveTestResultsCommand().run(arguments);
+
+		StringWriter rendered = new StringWriter();
+		new ConsoleRenderer(new PrintWriter(rendered), 64).render(json);
+
+		// same lines as the map based output, the order of the members may differ
+		Map<String, Object> map = ConsoleUtilities.jsonToMap(json);
+		String[] lines = rendered.toString().split("\n");
+		assertEquals(map.size(), lines.length);
+		for (String line : lines) {
+			String key = line.substring(0, line.indexOf(" = "));
+			assertEquals(key + " = " + map.get(key), line);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.commands.GradeDistributionCommand;
+import eu.toennies.javahttpobservatoryapi.commands.RecentScansCommand;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveAssessmentCommand;
+import eu.toennies.javahttpobservatoryapi.commands.ScannerStatesCommand;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+import eu.toennies.javahttpobservatoryapi.transport.TransportResponse;
+import eu.toennies.javahttpobservatoryapi.transport.UrlConnectionTransport;
+
+/**
+ * Test class for the console commands.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ConsoleTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@After
+	public void resetStub() {
+		STUB.getStub().reset();
+		Api.setTransport(null);
+	}
+
+	/**
+	 * Commands sent concurrently should still be printed in the order of
+	 * ApiCommands, not in the order of the arguments or of their responses.
+	 */
+	@Test
+	public void testConcurrentCommands() {
+		STUB.getStub().setLatency(50, 50, TimeUnit.MILLISECONDS);
+		StringWriter out = new StringWriter();
+		Console.runCommands(Arguments.parse("-r", "-g", "-ra", "-s", "host=example.com"), new PrintWriter(out),
+				new PrintWriter(new StringWriter()));
+
+		String output = out.toString();
+		int grades = output.indexOf(new GradeDistributionCommand().getHeader());
+		int states = output.indexOf(new ScannerStatesCommand().getHeader());
+		int recent = output.indexOf(new RecentScansCommand().getHeader());
+		int assessment = output.indexOf(new RetrieveAssessmentCommand().getHeader());
+		assertTrue(grades >= 0);
+		assertTrue(grades < states);
+		assertTrue(states < recent);
+		assertTrue(recent < assessment);
+	}
+
+	/**
+	 * A retrieve on the command line of an invoke should see the invoked scan,
+	 * not the one before it.
+	 */
+	@Test
+	public void testRetrieveWaitsForInvoke() {
+		Api.setTransport(new UrlConnectionTransport() {
+			@Override
+			public TransportResponse post(URL url, byte[] body, String contentType) throws IOException {
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
+				// the scan started by this request
+				STUB.getStub().setResponse("analyze", "{\"scan_id\": 2, \"state\": \"PENDING\"}");
+				return super.post(url, body, contentType);
+			}
+		});
+		StringWriter out = new StringWriter();
+		Console.runCommands(Arguments.parse("-ra", "-ia", "-g", "host=example.com"), new PrintWriter(out),
+				new PrintWriter(new StringWriter()));
+
+		String output = out.toString();
+		String retrieved = output.substring(output.indexOf(new RetrieveAssessmentCommand().getHeader()));
+		assertTrue(retrieved, retrieved.contains("scan_id = 2"));
+		assertTrue(output.contains(new GradeDistributionCommand().getHeader()));
+	}
+
+	/**
+	 * A bulk assessment with a short host timeout should not lower the
+	 * timeouts of later command lines, e.g. of other daemon clients.
+	 */
+	@Test
+	public void testBulkKeepsTimeouts() throws IOException {
+		File hosts = File.createTempFile("hosts", ".txt");
+		try {
+			Files.write(hosts.toPath(), Arrays.asList("site1.example.org"), StandardCharsets.UTF_8);
+			StringWriter out = new StringWriter();
+			Console.execute(Arguments.parse("-b", "hosts=" + hosts.getPath(), "timeout=1"), new PrintWriter(out),
+					new PrintWriter(new StringWriter()));
+
+			assertTrue(out.toString(), out.toString().contains("site1.example.org (FINISHED)"));
+			assertEquals(UrlConnectionTransport.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+					UrlConnectionTransport.getConnectTimeoutMillis());
+			assertEquals(UrlConnectionTransport.DEFAULT_READ_TIMEOUT_MILLIS,
+					UrlConnectionTransport.getReadTimeoutMillis());
+		} finally {
+			hosts.delete();
+		}
+	}
+}
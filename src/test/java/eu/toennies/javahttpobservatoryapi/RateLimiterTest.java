@@ -0,0 +1,75 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test class for the client side rate limiter.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class RateLimiterTest {
+
+	/**
+	 * The burst should pass at once, every further request has to wait for
+	 * its token to be refilled.
+	 */
+	@Test
+	public void testTokenRefill() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter();
+		limiter.setLimit("analyze", 20, 2);
+
+		long start = System.nanoTime();
+		limiter.acquire("analyze");
+		limiter.acquire("analyze");
+		long burst = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("the burst waited " + burst + "ms", burst < 40);
+
+		start = System.nanoTime();
+		for (int i = 0; i < 4; i++) {
+			limiter.acquire("analyze");
+		}
+		long refill = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		// four tokens at 20 per second
+		assertTrue("the refill took " + refill + "ms", refill >= 180);
+
+		start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire("getScanResults");
+		}
+		long unlimited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("an endpoint without a limit waited " + unlimited + "ms", unlimited < 40);
+
+		limiter.removeLimit("analyze");
+		start = System.nanoTime();
+		limiter.acquire("analyze");
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 40);
+	}
+
+	/**
+	 * A rescanned host should cool down for the configured time.
+	 */
+	@Test
+	public void testRescanCooldown() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter();
+		limiter.setRescanCooldown(100, TimeUnit.MILLISECONDS);
+
+		assertFalse(limiter.isRescanCoolingDown("example.com"));
+		limiter.startRescanCooldown("example.com");
+		assertTrue(limiter.isRescanCoolingDown("example.com"));
+		assertFalse(limiter.isRescanCoolingDown("example.org"));
+
+		Thread.sleep(150);
+		assertFalse(limiter.isRescanCoolingDown("example.com"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLimit() {
+		new RateLimiter().setLimit("analyze", 0, 1);
+	}
+}
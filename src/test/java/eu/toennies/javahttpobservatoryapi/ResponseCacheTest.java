@@ -0,0 +1,85 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Test class for the response cache.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ResponseCacheTest {
+
+	/**
+	 * A full cache should evict the least recently used entry, not the oldest.
+	 */
+	@Test
+	public void testLruEviction() throws JSONException {
+		ResponseCache cache = new ResponseCache(2);
+		JSONObject a = scan("FINISHED");
+		JSONObject b = scan("FINISHED");
+		cache.put("a", "analyze", a);
+		cache.put("b", "analyze", b);
+		assertSame(a, cache.get("a"));
+
+		cache.put("c", "analyze", scan("FINISHED"));
+		assertEquals(2, cache.size());
+		assertSame("recently used entry should be kept", a, cache.get("a"));
+		assertNull("least recently used entry should be evicted", cache.get("b"));
+		assertNotNull(cache.get("c"));
+	}
+
+	/**
+	 * Running scans should expire with their own time to live while finished
+	 * scans are still cached.
+	 */
+	@Test
+	public void testStateTtl() throws JSONException, InterruptedException {
+		ResponseCache cache = new ResponseCache();
+		cache.setStateTtl("RUNNING", 50, TimeUnit.MILLISECONDS);
+		cache.put("running", "analyze", scan("RUNNING"));
+		cache.put("finished", "analyze", scan("FINISHED"));
+		assertNotNull(cache.get("running"));
+
+		Thread.sleep(100);
+		assertNull("running scan should have expired", cache.get("running"));
+		assertNotNull("finished scan should still be cached", cache.get("finished"));
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	/**
+	 * Errors and states with a time to live of 0 should never be cached, test
+	 * results count as finished.
+	 */
+	@Test
+	public void testNotCached() throws JSONException {
+		ResponseCache cache = new ResponseCache();
+		cache.setStateTtl("PENDING", 0, TimeUnit.SECONDS);
+		cache.setDefaultTtl(0, TimeUnit.SECONDS);
+
+		cache.put("error", "analyze", new JSONObject().put("error", "invalid-hostname"));
+		cache.put("pending", "analyze", scan("PENDING"));
+		cache.put("states", "getScannerStates", new JSONObject().put("FINISHED", 5));
+		cache.put("tests", "getScanResults", new JSONObject().put("cookies", new JSONObject()));
+
+		assertNull(cache.get("error"));
+		assertNull(cache.get("pending"));
+		assertNull(cache.get("states"));
+		assertNotNull(cache.get("tests"));
+	}
+
+	private static JSONObject scan(String state) throws JSONException {
+		return new JSONObject().put("state", state);
+	}
+}
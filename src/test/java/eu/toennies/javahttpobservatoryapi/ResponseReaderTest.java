@@ -0,0 +1,62 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test class for the response reader.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ResponseReaderTest {
+
+	/**
+	 * Responses of any size should be read completely, whether their length
+	 * is known or not and whether they fit into a pooled buffer or not.
+	 */
+	@Test
+	public void testRead() throws IOException {
+		for (int size : new int[] { 0, 1, 8191, 8192, 8193, 64 * 1024, 200 * 1024 }) {
+			byte[] payload = new byte[size];
+			Arrays.fill(payload, (byte) 'a');
+			String expected = new String(payload, StandardCharsets.UTF_8);
+
+			assertEquals(expected, ResponseReader.read(new ByteArrayInputStream(payload), -1, StandardCharsets.UTF_8));
+			assertEquals(expected,
+					ResponseReader.read(new ByteArrayInputStream(payload), size, StandardCharsets.UTF_8));
+		}
+		// a pooled buffer must not leak the end of a longer response
+		assertEquals("b", ResponseReader.read(new ByteArrayInputStream(new byte[] { 'b' }), -1,
+				StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * A content length far beyond the data should not be allocated up front,
+	 * a large response should still be read completely.
+	 */
+	@Test
+	public void testUntrustedContentLength() throws IOException {
+		assertEquals("short", ResponseReader.read(new ByteArrayInputStream("short".getBytes(StandardCharsets.UTF_8)),
+				2000000000L, StandardCharsets.UTF_8));
+
+		byte[] payload = new byte[3 * 1024 * 1024];
+		Arrays.fill(payload, (byte) 'a');
+		assertEquals(payload.length,
+				ResponseReader.read(new ByteArrayInputStream(payload), payload.length, StandardCharsets.UTF_8).length());
+	}
+
+	@Test
+	public void testCharsetOf() {
+		assertEquals(StandardCharsets.UTF_8, ResponseReader.charsetOf(null));
+		assertEquals(StandardCharsets.UTF_8, ResponseReader.charsetOf("application/json"));
+		assertEquals(StandardCharsets.ISO_8859_1, ResponseReader.charsetOf("text/plain; charset=\"ISO-8859-1\""));
+		assertEquals(StandardCharsets.UTF_8, ResponseReader.charsetOf("text/plain; charset=unknown"));
+	}
+}
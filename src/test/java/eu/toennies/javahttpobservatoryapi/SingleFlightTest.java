@@ -0,0 +1,117 @@
+package eu.toennies.javahttpobservatoryapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test class for the coalescing of concurrent calls.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class SingleFlightTest {
+
+	private static final int CALLERS = 8;
+
+	private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+	private final SingleFlight<String, Object> singleFlight = new SingleFlight<String, Object>();
+	private final AtomicInteger calls = new AtomicInteger();
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@After
+	public void stopPool() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Callers arriving while a call is in flight should get its result
+	 * instead of starting their own call.
+	 */
+	@Test
+	public void testCoalescing() throws Exception {
+		final Object result = new Object();
+		List<Future<Object>> futures = callConcurrently(() -> {
+			calls.incrementAndGet();
+			await();
+			return result;
+		});
+
+		for (Future<Object> future : futures) {
+			assertSame(result, future.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, calls.get());
+		assertEquals(0, singleFlight.size());
+
+		singleFlight.execute("key", () -> calls.incrementAndGet());
+		assertEquals("a finished call was reused", 2, calls.get());
+	}
+
+	/**
+	 * The failure of the call should be thrown to every caller waiting for
+	 * it and should not be remembered.
+	 */
+	@Test
+	public void testFailure() throws Exception {
+		final IllegalStateException failure = new IllegalStateException("failed");
+		List<Future<Object>> futures = callConcurrently(() -> {
+			calls.incrementAndGet();
+			await();
+			throw failure;
+		});
+
+		for (Future<Object> future : futures) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				fail("Should have raised an IllegalStateException.");
+			} catch (ExecutionException e) {
+				assertSame(failure, e.getCause());
+			}
+		}
+		assertEquals(1, calls.get());
+		assertEquals(0, singleFlight.size());
+	}
+
+	/**
+	 * Starts the first caller, lets the others join its call and releases
+	 * it once all of them are waiting.
+	 */
+	private List<Future<Object>> callConcurrently(final Supplier<Object> call) throws InterruptedException {
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		futures.add(pool.submit(() -> singleFlight.execute("key", call)));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		for (int i = 1; i < CALLERS; i++) {
+			futures.add(pool.submit(() -> singleFlight.execute("key", call)));
+		}
+		// the callers cannot be observed while they wait, give them time to join
+		Thread.sleep(200);
+		release.countDown();
+		return futures;
+	}
+
+	private void await() {
+		started.countDown();
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
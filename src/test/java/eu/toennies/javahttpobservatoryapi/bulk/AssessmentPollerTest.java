@@ -0,0 +1,135 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the assessment poller.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class AssessmentPollerTest {
+
+	private static final String RUNNING = "{\"scan_id\": 1, \"state\": \"RUNNING\"}";
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	private final List<Long> polls = new CopyOnWriteArrayList<Long>();
+	private final List<Long> answers = new CopyOnWriteArrayList<Long>();
+	private ExecutorService pool;
+	private AssessmentPoller poller;
+
+	@Before
+	public void startPoller() {
+		pool = Executors.newFixedThreadPool(2);
+		// remembers when every poll is sent and answered
+		poller = new AssessmentPoller(new Executor() {
+			@Override
+			public void execute(final Runnable command) {
+				polls.add(Long.valueOf(System.nanoTime()));
+				pool.execute(() -> {
+					try {
+						command.run();
+					} finally {
+						answers.add(Long.valueOf(System.nanoTime()));
+					}
+				});
+			}
+		});
+	}
+
+	@After
+	public void stopPoller() {
+		poller.shutdown();
+		pool.shutdownNow();
+		STUB.getStub().reset();
+	}
+
+	/**
+	 * A scan staying in the same state should be polled with a growing delay
+	 * up to the maximum delay, until the timeout is reached.
+	 */
+	@Test
+	public void testBackoff() throws JSONException {
+		STUB.getStub().setResponse("analyze", RUNNING);
+		poller.setDelays(100, 50, 200, TimeUnit.MILLISECONDS);
+
+		CompletableFuture<JSONObject> scan = poller.track("example.com", new JSONObject(RUNNING), 1,
+				TimeUnit.SECONDS);
+		try {
+			scan.join();
+			fail("Should have raised a TimeoutException.");
+		} catch (CompletionException e) {
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof TimeoutException);
+		}
+
+		// 50, 75, 112, 168, 200, 200 and what is left of the timeout
+		assertTrue("polled " + polls.size() + " times", polls.size() >= 4 && polls.size() <= 8);
+		long first = gap(0);
+		long third = gap(2);
+		assertTrue("the delay did not grow: " + first + "ms, " + third + "ms", third > first);
+		for (int i = 0; i < answers.size() - 1; i++) {
+			assertTrue("the delay grew beyond the maximum: " + gap(i) + "ms", gap(i) < 400);
+		}
+		assertEquals(0, poller.getPendingCount());
+	}
+
+	/**
+	 * A scan in a final state should complete without a poll.
+	 */
+	@Test
+	public void testFinalState() throws JSONException {
+		JSONObject finished = new JSONObject("{\"scan_id\": 1, \"state\": \"FINISHED\"}");
+		assertEquals(finished, poller.track("example.com", finished, 1, TimeUnit.SECONDS).join());
+		assertTrue(polls.isEmpty());
+	}
+
+	/**
+	 * A scan should be given up after five failed polls in a row, keeping the
+	 * last failure as the cause.
+	 */
+	@Test
+	public void testFailedPolls() throws JSONException {
+		STUB.getStub().setErrorRate(1);
+		poller.setDelays(10, 10, 10, TimeUnit.MILLISECONDS);
+
+		try {
+			poller.track("example.com", new JSONObject(RUNNING), 5, TimeUnit.SECONDS).join();
+			fail("Should have raised an ApiException.");
+		} catch (CompletionException e) {
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof ApiException);
+			assertTrue(String.valueOf(e.getCause().getCause()), e.getCause().getCause() instanceof ApiException);
+		}
+		assertEquals(5, polls.size());
+	}
+
+	/**
+	 * @return the delay between the answer of a poll and the next poll
+	 */
+	private long gap(int poll) {
+		return TimeUnit.NANOSECONDS.toMillis(polls.get(poll + 1).longValue() - answers.get(poll).longValue());
+	}
+}
@@ -0,0 +1,154 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.bulk.HostAssessment.Status;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+import eu.toennies.javahttpobservatoryapi.transport.TransportResponse;
+import eu.toennies.javahttpobservatoryapi.transport.UrlConnectionTransport;
+
+/**
+ * Test class for the bulk assessment.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class BulkAssessmentTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@After
+	public void resetStub() {
+		STUB.getStub().reset();
+		Api.setTransport(null);
+	}
+
+	/**
+	 * No more hosts than the concurrency should be assessed at once.
+	 */
+	@Test
+	public void testBoundedConcurrency() throws InterruptedException {
+		STUB.getStub().setLatency(50, 0, TimeUnit.MILLISECONDS);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		Api.setTransport(new UrlConnectionTransport() {
+			@Override
+			public TransportResponse get(URL url) throws IOException {
+				return count(() -> super.get(url));
+			}
+
+			@Override
+			public TransportResponse post(URL url, byte[] body, String contentType) throws IOException {
+				return count(() -> super.post(url, body, contentType));
+			}
+
+			private TransportResponse count(Request request) throws IOException {
+				int now = running.incrementAndGet();
+				maxRunning.accumulateAndGet(now, Math::max);
+				try {
+					return request.send();
+				} finally {
+					running.decrementAndGet();
+				}
+			}
+		});
+
+		BulkAssessment bulk = new BulkAssessment(2, 5, TimeUnit.SECONDS);
+		final List<HostAssessment> assessments = new ArrayList<HostAssessment>();
+		bulk.assess(Arrays.asList("site1.example.org", "site2.example.org", "site3.example.org",
+				"site4.example.org", "site5.example.org", "site6.example.org"), new BulkAssessment.Listener() {
+					@Override
+					public void onAssessment(HostAssessment assessment) {
+						assessments.add(assessment);
+					}
+
+					@Override
+					public void onProgress(int completed, int total, double hostsPerSecond) {
+					}
+				});
+
+		assertEquals(6, assessments.size());
+		for (HostAssessment assessment : assessments) {
+			assertEquals(assessment.getError(), Status.FINISHED, assessment.getStatus());
+		}
+		assertTrue("requests in flight: " + maxRunning.get(), maxRunning.get() <= 2);
+	}
+
+	/**
+	 * A host whose requests hang should end with TIMEOUT after the host
+	 * timeout and free its slot for the next host.
+	 */
+	@Test
+	public void testHostTimeout() throws InterruptedException {
+		STUB.getStub().setLatency(5, 0, TimeUnit.SECONDS);
+		BulkAssessment bulk = new BulkAssessment(1, 300, TimeUnit.MILLISECONDS);
+		final List<HostAssessment> assessments = new ArrayList<HostAssessment>();
+
+		long start = System.currentTimeMillis();
+		bulk.assess(Arrays.asList("site1.example.org", "site2.example.org"), new BulkAssessment.Listener() {
+			@Override
+			public void onAssessment(HostAssessment assessment) {
+				assessments.add(assessment);
+			}
+
+			@Override
+			public void onProgress(int completed, int total, double hostsPerSecond) {
+			}
+		});
+		long millis = System.currentTimeMillis() - start;
+
+		assertEquals(2, assessments.size());
+		for (HostAssessment assessment : assessments) {
+			assertEquals(Status.TIMEOUT, assessment.getStatus());
+			assertTrue(assessment.getError(), assessment.getError().contains("did not finish"));
+		}
+		assertTrue("the hung requests held the slot (" + millis + "ms)", millis < 5000);
+	}
+
+	/**
+	 * A host whose invoke fails should end with ERROR and keep the cause.
+	 */
+	@Test
+	public void testHostError() throws InterruptedException {
+		STUB.getStub().setErrorRate(1);
+		BulkAssessment bulk = new BulkAssessment(1, 5, TimeUnit.SECONDS);
+		final List<HostAssessment> assessments = new ArrayList<HostAssessment>();
+
+		bulk.assess(Arrays.asList("site1.example.org"), new BulkAssessment.Listener() {
+			@Override
+			public void onAssessment(HostAssessment assessment) {
+				assessments.add(assessment);
+			}
+
+			@Override
+			public void onProgress(int completed, int total, double hostsPerSecond) {
+			}
+		});
+
+		assertEquals(1, assessments.size());
+		assertEquals(Status.ERROR, assessments.get(0).getStatus());
+		assertTrue(assessments.get(0).getError(), assessments.get(0).getError().contains("500"));
+	}
+
+	/**
+	 * A request sent by the counting transport.
+	 */
+	private interface Request {
+		TransportResponse send() throws IOException;
+	}
+}
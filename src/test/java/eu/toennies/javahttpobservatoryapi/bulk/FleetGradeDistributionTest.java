@@ -0,0 +1,61 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+import eu.toennies.javahttpobservatoryapi.results.GradeDistribution;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the grade distribution of our own hosts.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class FleetGradeDistributionTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@Test
+	public void testFleetGradeDistribution() throws IOException, InterruptedException, JSONException {
+		HostList hosts = HostList.read(new StringReader(
+				"# host tags\nsite1.example.org prod eu\n\nsite2.example.org prod\nsite3.example.org\n"));
+		assertEquals(Arrays.asList("site1.example.org", "site2.example.org", "site3.example.org"), hosts.getHosts());
+		assertEquals(Arrays.asList("prod", "eu"), hosts.getTags("site1.example.org"));
+
+		FleetGradeDistribution distribution = new FleetGradeDistribution(hosts);
+		new FleetMonitor(hosts.getHosts(), 2, 0, TimeUnit.SECONDS, true).refresh(distribution);
+		assertEquals(3, distribution.getDistribution().getCount(Grade.A));
+		assertEquals(2, distribution.getDistribution("prod").getCount(Grade.A));
+		assertEquals(1, distribution.getDistribution("eu").getTotal());
+
+		assertTrue(distribution.update("site1.example.org", Grade.F));
+		assertFalse(distribution.update("site1.example.org", Grade.F));
+		assertEquals(2, distribution.getDistribution().getCount(Grade.A));
+		assertEquals(1, distribution.getDistribution().getCount(Grade.F));
+		assertEquals(1, distribution.groupByTag().get("eu").getCount(Grade.F));
+		assertEquals(0, distribution.getDistribution("eu").getCount(Grade.A));
+
+		distribution.update("unlisted.example.org", Grade.B);
+		assertEquals(4, distribution.getDistribution().getTotal());
+		assertEquals(2, distribution.getDistribution("prod").getTotal());
+
+		JSONObject json = distribution.getDistribution().toJson();
+		assertEquals(2, json.getLong("A"));
+		assertEquals(0, json.getLong("A+"));
+		assertEquals(1, GradeDistribution.fromJson(json).getCount(Grade.B));
+	}
+}
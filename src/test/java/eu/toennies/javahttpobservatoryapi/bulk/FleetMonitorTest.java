@@ -0,0 +1,118 @@
+package eu.toennies.javahttpobservatoryapi.bulk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the fleet monitor.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class FleetMonitorTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@After
+	public void resetStub() {
+		STUB.getStub().reset();
+	}
+
+	@Test
+	public void testFleetMonitor() throws InterruptedException {
+		final List<GradeChange> changes = new ArrayList<GradeChange>();
+		final List<String> errors = new ArrayList<String>();
+		FleetMonitor.Listener listener = new FleetMonitor.Listener() {
+			@Override
+			public void onChange(GradeChange change) {
+				changes.add(change);
+			}
+
+			@Override
+			public void onError(String host, String error) {
+				errors.add(host);
+			}
+		};
+		FleetMonitor monitor = new FleetMonitor(Arrays.asList("site1.example.org", "site2.example.org"), 2, 0,
+				TimeUnit.SECONDS, true);
+
+		assertEquals(2, monitor.refresh(listener));
+		assertTrue(changes.get(0).isFirstSeen());
+		assertEquals(Grade.A, monitor.getGrade("site1.example.org"));
+		assertEquals(0, monitor.refresh(listener));
+
+		changes.clear();
+		STUB.getStub().setResponse("analyze", "{\"scan_id\": 2, \"state\": \"RUNNING\"}");
+		assertEquals(0, monitor.refresh(listener));
+		STUB.getStub().setResponse("analyze",
+				"{\"scan_id\": 2, \"state\": \"FINISHED\", \"grade\": \"B-\", \"score\": 55, \"tests_failed\": 4}");
+		assertEquals(2, monitor.refresh(listener));
+		GradeChange change = changes.get(0);
+		assertFalse(change.isFirstSeen());
+		assertEquals(1, change.getPreviousScanId());
+		assertEquals(Grade.A, change.getPreviousGrade());
+		assertEquals(2, change.getScanId());
+		assertEquals(Grade.B_MINUS, change.getGrade());
+		assertEquals(4, change.getTestsFailed());
+
+		STUB.getStub().setResponse("analyze", "{\"error\": \"invalid-hostname\"}");
+		assertEquals(0, monitor.refresh(listener));
+		assertEquals(2, errors.size());
+		assertEquals(2, monitor.getScanId("site2.example.org"));
+	}
+
+	/**
+	 * The last known values should be readable while a refresh waits for the
+	 * API.
+	 */
+	@Test
+	public void testReadDuringRefresh() throws InterruptedException {
+		final FleetMonitor.Listener listener = new FleetMonitor.Listener() {
+			@Override
+			public void onChange(GradeChange change) {
+			}
+
+			@Override
+			public void onError(String host, String error) {
+			}
+		};
+		final FleetMonitor monitor = new FleetMonitor(Arrays.asList("site1.example.org"), 1, 0, TimeUnit.SECONDS,
+				true);
+		STUB.getStub().setLatency(1, 0, TimeUnit.SECONDS);
+		CompletableFuture<Integer> refresh = CompletableFuture.supplyAsync(() -> {
+			try {
+				return monitor.refresh(listener);
+			} catch (InterruptedException e) {
+				throw new CompletionException(e);
+			}
+		});
+		Thread.sleep(200);
+
+		long start = System.nanoTime();
+		assertNull(monitor.getGrade("site1.example.org"));
+		assertEquals(0, monitor.getScanId("site1.example.org"));
+		assertTrue("Reads should not wait for the refresh",
+				System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+		assertFalse(refresh.isDone());
+
+		assertEquals(1, refresh.join().intValue());
+		assertEquals(Grade.A, monitor.getGrade("site1.example.org"));
+	}
+}
@@ -0,0 +1,103 @@
+package eu.toennies.javahttpobservatoryapi.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.ApiException;
+import eu.toennies.javahttpobservatoryapi.ApiExecutors;
+import eu.toennies.javahttpobservatoryapi.ResponseCache;
+import eu.toennies.javahttpobservatoryapi.results.Assessment;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the api commands.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ApiCommandTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@After
+	public void resetStub() {
+		ApiCommand.setResponseCache(null);
+		STUB.getStub().reset();
+	}
+
+	/**
+	 * A failed call should complete the future exceptionally with the cause,
+	 * while the synchronous execute still answers null.
+	 */
+	@Test
+	public void testExecuteAsyncKeepsCause() {
+		STUB.getStub().setErrorRate(1);
+		ApiCommand command = ApiCommands.SCANNER_STATES.getCommand();
+		try {
+			command.executeAsync(Arguments.parse(), ApiExecutors.getDefaultExecutor()).join();
+			fail("Should have raised a CompletionException.");
+		} catch (CompletionException e) {
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof ApiException);
+			assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("500"));
+		}
+		assertNull(command.execute(Arguments.parse()));
+	}
+
+	/**
+	 * A typed read should fill the response cache, so the next typed or json
+	 * object read of the same request is answered from the cache.
+	 */
+	@Test
+	public void testTypedReadFillsCache() throws IOException {
+		ApiCommand.setResponseCache(new ResponseCache());
+		RetrieveAssessmentCommand command = new RetrieveAssessmentCommand();
+		long requests = STUB.getStub().getRequestCount();
+
+		Assessment assessment = command.getAssessment(Arguments.parse("host=example.com"));
+		assertEquals(requests + 1, STUB.getStub().getRequestCount());
+
+		assertEquals(assessment.getScanId(), command.getAssessment(Arguments.parse("host=example.com")).getScanId());
+		assertEquals(assessment.getScanId(), command.request(Arguments.parse("host=example.com")).optLong("scan_id"));
+		assertEquals("Cached reads should not send a request", requests + 1, STUB.getStub().getRequestCount());
+	}
+
+	/**
+	 * Concurrent typed reads of the same request should share one request.
+	 */
+	@Test
+	public void testTypedReadsCoalesce() {
+		ApiCommand.setResponseCache(new ResponseCache());
+		STUB.getStub().setLatency(200, 0, TimeUnit.MILLISECONDS);
+		final RetrieveAssessmentCommand command = new RetrieveAssessmentCommand();
+		long requests = STUB.getStub().getRequestCount();
+
+		List<CompletableFuture<Assessment>> reads = new ArrayList<CompletableFuture<Assessment>>();
+		for (int i = 0; i < 4; i++) {
+			reads.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return command.getAssessment(Arguments.parse("host=example.com"));
+				} catch (IOException e) {
+					throw new CompletionException(e);
+				}
+			}, ApiExecutors.getDefaultExecutor()));
+		}
+		for (CompletableFuture<Assessment> read : reads) {
+			assertEquals(1, read.join().getScanId());
+		}
+		assertEquals("Concurrent reads should share one request", requests + 1, STUB.getStub().getRequestCount());
+	}
+}
@@ -0,0 +1,81 @@
+package eu.toennies.javahttpobservatoryapi.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test class for the parsed arguments.
+ * 
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ArgumentsTest {
+
+	@Test
+	public void testParse() {
+		Arguments arguments = Arguments.parse("-ia", "host=www.mozilla.org", "rescan", "host=other.org", "min=",
+				"url=http://example.com/?a=b");
+
+		assertTrue(arguments.hasFlag("-ia"));
+		assertTrue(arguments.hasFlag("rescan"));
+		assertFalse(arguments.hasFlag("hidden"));
+		assertEquals("the first value wins", "www.mozilla.org", arguments.get("host"));
+		assertNull("a key without value is ignored", arguments.get("min"));
+		assertEquals("http://example.com/?a=b", arguments.get("url"));
+		assertSame(Arguments.EMPTY, Arguments.parse((List<String>) null));
+	}
+
+	@Test
+	public void testGetLong() {
+		Arguments arguments = Arguments.parse("concurrency=8", "timeout=soon");
+		assertEquals(8, arguments.getLong("concurrency", 16));
+		assertEquals(16, arguments.getLong("missing", 16));
+		try {
+			arguments.getLong("timeout", 300);
+			fail("Should have raised an IllegalArgumentException.");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("timeout"));
+		}
+	}
+
+	@Test
+	public void testValidateAndShouldStart() {
+		ApiCommand command = new RetrieveAssessmentCommand();
+		Arguments arguments = Arguments.parse("--retrieveAssessment", "host=www.mozilla.org");
+		arguments.validate(command);
+		assertTrue(command.shouldStart(arguments));
+		assertFalse(new RecentScansCommand().shouldStart(arguments));
+
+		try {
+			Arguments.parse("-ra").validate(command);
+			fail("Should have raised an IllegalArgumentException.");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("host"));
+		}
+	}
+
+	@Test
+	public void testCommandFlags() {
+		for (ApiCommands cmds : ApiCommands.values()) {
+			ApiCommand command = cmds.getCommand();
+			for (String flag : new String[] { command.getConsoleShortCommand(), command.getConsoleCommand(), "-x" }) {
+				Arguments arguments = Arguments.parse(flag);
+				assertEquals(cmds + " " + flag, command.shouldStart(arguments), cmds.shouldStart(arguments));
+			}
+			assertSame(command, cmds.getCommand());
+		}
+
+		Arguments invoke = Arguments.parse("--invokeAssessment");
+		assertTrue(ApiCommands.INVOKE_ASSESSMENT.shouldStart(invoke));
+		assertFalse(ApiCommands.RETRIEVE_ASSESSMENT.shouldStart(invoke));
+		assertFalse(ApiCommands.INVOKE_ASSESSMENT.shouldStart(Arguments.parse("--retrieveAssessment")));
+	}
+}
@@ -0,0 +1,107 @@
+package eu.toennies.javahttpobservatoryapi.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import eu.toennies.javahttpobservatoryapi.results.ScanResultsReader;
+import eu.toennies.javahttpobservatoryapi.store.ScanResultStore;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the test results command with a result store.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class RetrieveTestResultsCommandTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void reset() {
+		RetrieveTestResultsCommand.setResultStore(null);
+		STUB.getStub().reset();
+	}
+
+	/**
+	 * Only the results of a scan known to be FINISHED should be stored.
+	 */
+	@Test
+	public void testStoreFinishedScans() throws IOException, JSONException {
+		ScanResultStore store = ScanResultStore.open(folder.getRoot());
+		try {
+			RetrieveTestResultsCommand.setResultStore(store);
+			RetrieveTestResultsCommand command = new RetrieveTestResultsCommand();
+
+			assertEquals(12, command.request(Arguments.parse("id=1")).length());
+			assertFalse("Results of a scan without host should not be stored", store.contains(1));
+
+			JSONObject running = new RetrieveAssessmentCommand().request(Arguments.parse("host=example.com"));
+			STUB.getStub().setResponse("analyze", running.put("state", "RUNNING").toString());
+			assertEquals(12, command.request(Arguments.parse("id=1", "host=example.com")).length());
+			assertFalse("Results of a running scan should not be stored", store.contains(1));
+
+			STUB.getStub().reset();
+			assertEquals(12, command.request(Arguments.parse("id=1", "host=example.com")).length());
+			assertTrue("Results of a finished scan should be stored", store.contains(1));
+
+			long requests = STUB.getStub().getRequestCount();
+			assertEquals(12, command.request(Arguments.parse("id=1")).length());
+			assertEquals("Stored results should not be downloaded", requests, STUB.getStub().getRequestCount());
+		} finally {
+			store.close();
+		}
+	}
+
+	/**
+	 * Streamed results of a finished scan should be stored, a store which can
+	 * not be read should fall back to the API.
+	 */
+	@Test
+	public void testStreamWithStore() throws IOException, JSONException {
+		ScanResultStore store = ScanResultStore.open(folder.getRoot());
+		RetrieveTestResultsCommand.setResultStore(store);
+		RetrieveTestResultsCommand command = new RetrieveTestResultsCommand();
+		Arguments arguments = Arguments.parse("id=1", "host=example.com");
+
+		try {
+			assertEquals(12, count(command.streamTestResults(arguments)));
+			assertTrue("Streamed results of a finished scan should be stored", store.contains(1));
+
+			long requests = STUB.getStub().getRequestCount();
+			assertEquals(12, count(command.streamTestResults(arguments)));
+			assertEquals("Stored results should not be downloaded", requests, STUB.getStub().getRequestCount());
+		} finally {
+			store.close();
+		}
+
+		assertEquals(12, count(command.streamTestResults(arguments)));
+	}
+
+	private static int count(ScanResultsReader reader) throws IOException, JSONException {
+		try {
+			int count = 0;
+			while (reader.next() != null) {
+				count++;
+			}
+			return count;
+		} finally {
+			reader.close();
+		}
+	}
+}
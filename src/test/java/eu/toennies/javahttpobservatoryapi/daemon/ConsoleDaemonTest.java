@@ -0,0 +1,129 @@
+package eu.toennies.javahttpobservatoryapi.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import eu.toennies.javahttpobservatoryapi.commands.GradeDistributionCommand;
+import eu.toennies.javahttpobservatoryapi.commands.ScannerStatesCommand;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the console daemon and its client.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ConsoleDaemonTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testDaemon() throws IOException {
+		File tokens = folder.getRoot();
+		ConsoleDaemon daemon = new ConsoleDaemon(0, tokens).start();
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ByteArrayOutputStream err = new ByteArrayOutputStream();
+			int exitCode = DaemonClient.execute(daemon.getPort(), tokens, Arrays.asList("-g", "-s"), out, err);
+			assertEquals(0, exitCode);
+			String output = out.toString("UTF-8");
+			assertTrue(output.contains(new GradeDistributionCommand().getHeader()));
+			assertTrue(output.contains(new ScannerStatesCommand().getHeader()));
+			assertEquals(0, err.size());
+
+			out.reset();
+			assertEquals(1, DaemonClient.execute(daemon.getPort(), tokens, Arrays.asList("-ra"), out, err));
+			assertTrue(err.toString("UTF-8").contains("The mandatory argument host is not given."));
+
+			STUB.getStub().setErrorRate(1);
+			err.reset();
+			assertEquals("a failed call should end with an error", 1,
+					DaemonClient.execute(daemon.getPort(), tokens, Arrays.asList("-g", "-s"), out, err));
+			assertTrue(err.toString("UTF-8").contains("Could not send API request"));
+		} finally {
+			STUB.getStub().reset();
+			daemon.stop();
+		}
+	}
+
+	/**
+	 * Only the owner should be able to read the token, and a client without
+	 * the token should not be able to run a command line.
+	 */
+	@Test
+	public void testToken() throws IOException {
+		File tokens = folder.getRoot();
+		ConsoleDaemon daemon = new ConsoleDaemon(0, tokens).start();
+		File tokenFile = DaemonProtocol.tokenFile(tokens, daemon.getPort());
+		try {
+			assertTrue(tokenFile.isFile());
+			if (Files.getFileStore(tokenFile.toPath()).supportsFileAttributeView("posix")) {
+				assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+						Files.getPosixFilePermissions(tokenFile.toPath()));
+			}
+
+			Files.write(tokenFile.toPath(), "guessed".getBytes(StandardCharsets.US_ASCII));
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ByteArrayOutputStream err = new ByteArrayOutputStream();
+			assertEquals(2, DaemonClient.execute(daemon.getPort(), tokens, Arrays.asList("-g"), out, err));
+			assertEquals(0, out.size());
+			assertTrue(err.toString("UTF-8").contains("The daemon token is not valid."));
+		} finally {
+			daemon.stop();
+		}
+		assertFalse("token file should be deleted", tokenFile.exists());
+	}
+
+	/**
+	 * A watch should stop when its client goes away.
+	 */
+	@Test
+	public void testClientHangup() throws IOException, InterruptedException {
+		File tokens = folder.newFolder();
+		File hosts = folder.newFile("hosts");
+		Files.write(hosts.toPath(), "site1.example.org\n".getBytes(StandardCharsets.UTF_8));
+		ConsoleDaemon daemon = new ConsoleDaemon(0, tokens).start();
+		try {
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+				DaemonProtocol.writeArguments(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())),
+						DaemonProtocol.readToken(DaemonProtocol.tokenFile(tokens, daemon.getPort())),
+						Arrays.asList("-w", "hosts=" + hosts.getAbsolutePath(), "interval=0"));
+				long deadline = System.currentTimeMillis() + 5000;
+				while (STUB.getStub().getRequestCount() < 3 && System.currentTimeMillis() < deadline) {
+					Thread.sleep(10);
+				}
+				assertTrue("watch did not start", STUB.getStub().getRequestCount() >= 3);
+			}
+
+			Thread.sleep(500);
+			long requests = STUB.getStub().getRequestCount();
+			Thread.sleep(300);
+			assertEquals("watch still running", requests, STUB.getStub().getRequestCount());
+		} finally {
+			daemon.stop();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package eu.toennies.javahttpobservatoryapi.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveAssessmentCommand;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the flight recorder events.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ApiEventsTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@Test
+	public void testFlightRecorderEvents() throws IOException {
+		Path file = Files.createTempFile("observatory", ".jfr");
+		try {
+			try (Recording recording = new Recording()) {
+				recording.enable(ApiEvents.API_CALL);
+				recording.enable(ApiEvents.JSON_PARSE);
+				recording.start();
+				new RetrieveAssessmentCommand().getAssessment(Arguments.parse("host=example.com"));
+				recording.stop();
+				recording.dump(file);
+			}
+
+			RecordedEvent call = null;
+			RecordedEvent parse = null;
+			for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+				if (ApiEvents.API_CALL.equals(event.getEventType().getName())) {
+					call = event;
+				} else if (ApiEvents.JSON_PARSE.equals(event.getEventType().getName())) {
+					parse = event;
+				}
+			}
+			assertNotNull(call);
+			assertEquals("analyze", call.getString("command"));
+			assertEquals("example.com", call.getString("host"));
+			assertEquals(200, call.getInt("status"));
+			assertTrue(call.getLong("bytesRead") > 0);
+			assertNotNull(parse);
+			assertEquals("Assessment", parse.getString("result"));
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package eu.toennies.javahttpobservatoryapi.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.ApiException;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the api metrics.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ApiMetricsTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@After
+	public void resetStub() {
+		STUB.getStub().reset();
+	}
+
+	@Test
+	public void testMetrics() throws IOException, JMException {
+		CommandMetrics metrics = ApiMetrics.get("GET", "getScannerStates");
+		metrics.reset();
+		new Api().sendApiGetRequest("getScannerStates", null);
+		new Api().sendApiGetRequest("getScannerStates", null);
+		STUB.getStub().setErrorRate(1);
+		try {
+			new Api().sendApiGetRequest("getScannerStates", null);
+			fail("Should have raised an ApiException.");
+		} catch (ApiException e) {
+			// counted
+		}
+
+		assertEquals(3, metrics.getRequests());
+		assertEquals(1, metrics.getErrors());
+		assertEquals(Long.valueOf(1), metrics.getErrorsByType().get("HTTP 500"));
+		assertEquals(0, metrics.getInFlight());
+		assertTrue(metrics.getBytesIn() > 0);
+		assertTrue(metrics.getLatencyP50Millis() > 0);
+		assertEquals(3L, ManagementFactory.getPlatformMBeanServer()
+				.getAttribute(ApiMetrics.objectNameOf(metrics), "Requests"));
+	}
+}
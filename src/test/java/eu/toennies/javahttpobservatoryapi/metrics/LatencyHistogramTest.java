@@ -0,0 +1,28 @@
+package eu.toennies.javahttpobservatoryapi.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test class for the latency histogram.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500000, histogram.getValueAtPercentile(50), 500000 * 0.07);
+		assertEquals(990000, histogram.getValueAtPercentile(99), 990000 * 0.07);
+		assertEquals(999000, histogram.getValueAtPercentile(99.9), 999000 * 0.07);
+	}
+}
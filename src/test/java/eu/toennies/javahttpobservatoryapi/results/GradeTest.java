@@ -0,0 +1,25 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Test class for the grades.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class GradeTest {
+
+	@Test
+	public void testGradeLabels() {
+		for (Grade grade : Grade.values()) {
+			assertEquals(grade, Grade.fromLabel(grade.getLabel()));
+		}
+		assertNull(Grade.fromLabel("E+"));
+		assertNull(Grade.fromLabel("G"));
+		assertNull(Grade.fromLabel("A*"));
+	}
+}
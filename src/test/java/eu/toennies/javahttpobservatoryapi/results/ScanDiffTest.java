@@ -0,0 +1,75 @@
+package eu.toennies.javahttpobservatoryapi.results;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.commands.RetrieveTestResultsCommand;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the differences between two scans.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ScanDiffTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@After
+	public void resetStub() {
+		STUB.getStub().reset();
+	}
+
+	@Test
+	public void testScanDiff() throws IOException, JSONException {
+		RetrieveTestResultsCommand command = new RetrieveTestResultsCommand();
+		TestResultSet before = command.getTestResults(Arguments.parse("id=1"));
+		assertEquals(12, before.size());
+		assertTrue(ScanDiff.compare(before, command.getTestResults(Arguments.parse("id=1"))).isEmpty());
+
+		JSONObject json = new JSONObject(new Api().sendApiGetRequest("getScanResults", null));
+		json.remove("contribute");
+		json.getJSONObject("cookies").put("pass", false).put("score_modifier", -40).put("result",
+				"cookies-without-secure-flag");
+		STUB.getStub().setResponse("getScanResults", json.toString());
+		TestResultSet after = command.getTestResults(Arguments.parse("id=2"));
+		assertFalse(before.getHash() == after.getHash());
+
+		ScanDiff diff = ScanDiff.compare(before, after);
+		assertTrue(diff.isRegression());
+		assertEquals(2, diff.getTestChanges().size());
+		assertEquals("contribute", diff.getTestChanges().get(0).getName());
+		assertNull(diff.getTestChanges().get(0).getAfter());
+		ScanDiff.TestChange cookies = diff.getTestChanges().get(1);
+		assertEquals("cookies", cookies.getName());
+		assertEquals(-40, cookies.getScoreModifierDelta());
+		assertEquals("cookies-without-secure-flag", cookies.getAfter().getResult());
+
+		JSONObject scan = new JSONObject(new Api().sendApiGetRequest("analyze", null));
+		Assessment beforeScan = Assessment.fromJson("example.com", scan);
+		scan.getJSONObject("response_headers").remove("X-Frame-Options");
+		scan.getJSONObject("response_headers").put("Strict-Transport-Security", "max-age=300");
+		Assessment afterScan = Assessment.fromJson("example.com", scan);
+		diff = ScanDiff.compare(beforeScan, before, afterScan, before);
+		assertTrue(diff.getTestChanges().isEmpty());
+		assertEquals(2, diff.getHeaderChanges().size());
+		assertEquals("strict-transport-security", diff.getHeaderChanges().get(0).getName());
+		assertEquals("max-age=300", diff.getHeaderChanges().get(0).getAfter());
+		assertEquals("DENY", diff.getHeaderChanges().get(1).getBefore());
+		assertNull(diff.getHeaderChanges().get(1).getAfter());
+	}
+}
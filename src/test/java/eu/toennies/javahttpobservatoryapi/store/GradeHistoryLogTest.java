@@ -0,0 +1,147 @@
+package eu.toennies.javahttpobservatoryapi.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import eu.toennies.javahttpobservatoryapi.results.Grade;
+
+/**
+ * Test class for the grade history log.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class GradeHistoryLogTest {
+
+	private static final long HOUR = 3600000L;
+	private static final long START = 1458683501000L;
+	private static final String[] HOSTS = { "site1.example.org", "site2.example.org", "site3.example.org" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * A host query should return the rows of the host within the range in the
+	 * order of time.
+	 */
+	@Test
+	public void testHostQuery() throws IOException {
+		GradeHistoryLog log = GradeHistoryLog.open(folder.getRoot());
+		try {
+			fill(log, 0, 5000);
+			assertEquals(15000, log.size());
+			assertEquals(3, log.getHostCount());
+
+			GradeHistory history = log.query(HOSTS[1], START + 1000 * HOUR, START + 1999 * HOUR);
+			assertEquals(1000, history.size());
+			for (int i = 0; i < history.size(); i++) {
+				assertEquals(HOSTS[1], history.getHost(i));
+				assertEquals(START + (1000 + i) * HOUR, history.getTimestamp(i));
+				assertEquals(scanId(1, 1000 + i), history.getScanId(i));
+				assertEquals((1000 + i) % 100, history.getScore(i));
+				assertEquals(Grade.values()[(1000 + i) % 14], history.getGrade(i));
+				assertEquals(1, history.getTestsFailed(i));
+			}
+
+			assertEquals(5000, log.query(HOSTS[2], 0, Long.MAX_VALUE).size());
+			assertEquals(0, log.query("unknown.example.org", 0, Long.MAX_VALUE).size());
+			assertEquals(0, log.query(HOSTS[0], 0, START - 1).size());
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * A time query should return the rows of all hosts within the range.
+	 */
+	@Test
+	public void testTimeQuery() throws IOException {
+		GradeHistoryLog log = GradeHistoryLog.open(folder.getRoot());
+		try {
+			fill(log, 0, 5000);
+			GradeHistory history = log.query(START + 4990 * HOUR, START + 4999 * HOUR);
+			assertEquals(30, history.size());
+			assertEquals(HOSTS[0], history.getHost(0));
+			assertEquals(START + 4990 * HOUR, history.getTimestamp(0));
+			assertEquals(START + 4999 * HOUR, history.getTimestamp(29));
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * A scan already logged and a scan older than the last one of its host
+	 * should be ignored, a scan without grade should be kept.
+	 */
+	@Test
+	public void testDuplicatesAreIgnored() throws IOException {
+		GradeHistoryLog log = GradeHistoryLog.open(folder.getRoot());
+		try {
+			assertTrue(log.append("example.com", 10, START, 90, Grade.A, 10, 2));
+			assertFalse(log.append("example.com", 10, START + HOUR, 90, Grade.A, 10, 2));
+			assertFalse(log.append("example.com", 9, START - HOUR, 80, Grade.B, 9, 3));
+			assertTrue(log.append("example.com", 11, START + HOUR, 0, null, 0, 12));
+			assertEquals(2, log.size());
+
+			GradeHistory history = log.query("example.com", 0, Long.MAX_VALUE);
+			assertEquals(Grade.A, history.getGrade(0));
+			assertNull(history.getGrade(1));
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * Rows should survive a restart, including rows appended after the last
+	 * snapshot.
+	 */
+	@Test
+	public void testReopen() throws IOException {
+		GradeHistoryLog log = GradeHistoryLog.open(folder.getRoot());
+		fill(log, 0, 3000);
+		log.sync();
+		fill(log, 3000, 3100);
+
+		// opened again without close, as after a crash
+		GradeHistoryLog recovered = GradeHistoryLog.open(folder.getRoot());
+		try {
+			assertEquals(9300, recovered.size());
+			assertEquals(3100, recovered.query(HOSTS[0], 0, Long.MAX_VALUE).size());
+		} finally {
+			recovered.close();
+		}
+		log.close();
+
+		log = GradeHistoryLog.open(folder.getRoot());
+		try {
+			assertEquals(9300, log.size());
+			assertTrue(log.append(HOSTS[0], scanId(0, 3100), START + 3100 * HOUR, 50, Grade.C, 8, 4));
+			GradeHistory history = log.query(HOSTS[0], START + 3099 * HOUR, Long.MAX_VALUE);
+			assertEquals(2, history.size());
+			assertEquals(scanId(0, 3100), history.getScanId(1));
+		} finally {
+			log.close();
+		}
+	}
+
+	private static void fill(GradeHistoryLog log, int from, int to) throws IOException {
+		for (int i = from; i < to; i++) {
+			for (int host = 0; host < HOSTS.length; host++) {
+				assertTrue(log.append(HOSTS[host], scanId(host, i), START + i * HOUR, i % 100,
+						Grade.values()[i % 14], 11, 1));
+			}
+		}
+	}
+
+	private static long scanId(int host, int i) {
+		return 1 + i * 3L + host;
+	}
+}
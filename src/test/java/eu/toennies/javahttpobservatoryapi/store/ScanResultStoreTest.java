@@ -0,0 +1,156 @@
+package eu.toennies.javahttpobservatoryapi.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for the scan result store.
+ * 
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ScanResultStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Stored results should be returned unchanged, unknown scans as null.
+	 */
+	@Test
+	public void testPutAndGet() throws IOException {
+		ScanResultStore store = ScanResultStore.open(folder.getRoot());
+		try {
+			store.put(1, "{\"cookies\":{\"pass\":true}}");
+			store.put(2, "{\"redirection\":{\"result\":\"redirection-to-https-ü\"}}");
+
+			assertEquals("{\"cookies\":{\"pass\":true}}", store.get(1));
+			assertEquals("{\"redirection\":{\"result\":\"redirection-to-https-ü\"}}", store.get(2));
+			assertNull("Unknown scan should not be found", store.get(3));
+			assertFalse(store.contains(3));
+			assertEquals(2, store.size());
+		} finally {
+			store.close();
+		}
+	}
+
+	/**
+	 * The results of a finished scan do not change, a second put is ignored.
+	 */
+	@Test
+	public void testPutKeepsFirstResult() throws IOException {
+		ScanResultStore store = ScanResultStore.open(folder.getRoot());
+		try {
+			store.put(7, "first");
+			store.put(7, "second");
+			assertEquals("first", store.get(7));
+			assertEquals(1, store.size());
+		} finally {
+			store.close();
+		}
+	}
+
+	/**
+	 * Results should survive a restart and new results should be appended
+	 * behind them.
+	 */
+	@Test
+	public void testReopen() throws IOException {
+		ScanResultStore store = ScanResultStore.open(folder.getRoot());
+		for (int i = 0; i < 10000; i++) {
+			store.put(i, "result " + i);
+		}
+		store.close();
+
+		store = ScanResultStore.open(folder.getRoot());
+		try {
+			assertEquals(10000, store.size());
+			store.put(10000, "result 10000");
+			for (int i = 0; i <= 10000; i++) {
+				assertEquals("result " + i, store.get(i));
+			}
+		} finally {
+			store.close();
+		}
+	}
+
+	/**
+	 * A partially written index entry should be dropped on the next start.
+	 */
+	@Test
+	public void testPartialIndexEntryIsDropped() throws IOException {
+		ScanResultStore store = ScanResultStore.open(folder.getRoot());
+		store.put(42, "complete");
+		store.close();
+
+		RandomAccessFile index = new RandomAccessFile(new File(folder.getRoot(), "results.idx"), "rw");
+		try {
+			index.seek(index.length());
+			index.write(new byte[] { 0, 0, 0, 0, 0, 0, 0, 43, 0, 0 });
+		} finally {
+			index.close();
+		}
+
+		store = ScanResultStore.open(folder.getRoot());
+		try {
+			assertEquals(1, store.size());
+			assertEquals("complete", store.get(42));
+			assertFalse(store.contains(43));
+			store.put(43, "appended");
+			assertTrue(store.contains(43));
+			assertEquals("appended", store.get(43));
+		} finally {
+			store.close();
+		}
+	}
+
+	/**
+	 * A record whose data does not match its checksum should be treated as
+	 * missing and be replaced by the next put.
+	 */
+	@Test
+	public void testDamagedRecordIsReplaced() throws IOException {
+		ScanResultStore store = ScanResultStore.open(folder.getRoot());
+		store.put(5, "intact");
+		store.put(6, "damaged");
+		store.close();
+
+		RandomAccessFile segment = new RandomAccessFile(new File(folder.getRoot(), "results-00000.dat"), "rw");
+		try {
+			// the second record starts behind the six bytes of the first
+			segment.seek(6);
+			segment.write(0);
+		} finally {
+			segment.close();
+		}
+
+		store = ScanResultStore.open(folder.getRoot());
+		try {
+			assertEquals("intact", store.get(5));
+			assertNull(store.get(6));
+			assertFalse(store.contains(6));
+			store.put(6, "replaced");
+			assertEquals("replaced", store.get(6));
+		} finally {
+			store.close();
+		}
+
+		store = ScanResultStore.open(folder.getRoot());
+		try {
+			assertEquals("replaced", store.get(6));
+			assertEquals(2, store.size());
+		} finally {
+			store.close();
+		}
+	}
+}
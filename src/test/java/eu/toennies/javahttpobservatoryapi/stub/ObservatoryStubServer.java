@@ -0,0 +1,309 @@
+package eu.toennies.javahttpobservatoryapi.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process stub of the Observatory API. It answers the analyze,
+ * getScanResults, getRecentScans, getGradeDistribution and getScannerStates
+ * calls with fixed responses loaded from the classpath, so tests and
+ * benchmarks can run without touching the public service. Latency and failed
+ * requests can be simulated.
+ *
+ * The server only listens on the loopback interface. It writes headers and
+ * body separately, so start the JVM with -Dsun.net.httpserver.nodelay=true,
+ * otherwise every response waits for a delayed ack.
+ *
+ * The stub is shipped in the test jar of the library, not in the library
+ * itself.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class ObservatoryStubServer {
+
+	/** the endpoints answered by the stub */
+	public static final String[] ENDPOINTS = { "analyze", "getScanResults", "getRecentScans", "getGradeDistribution",
+			"getScannerStates" };
+
+	private static final String API_PATH = "/api/v1/";
+	private static final String SERVER_ERROR = "{\"error\":\"internal-server-error\"}";
+	private static final String NOT_FOUND = "{\"error\":\"not-found\"}";
+
+	private final int port;
+	private final Map<String, byte[]> responses = new ConcurrentHashMap<String, byte[]>();
+	private final AtomicLong requestCount = new AtomicLong();
+	private volatile long latencyMillis = 0;
+	private volatile long jitterMillis = 0;
+	private volatile double errorRate = 0;
+	private ExecutorService executor;
+	private HttpServer server;
+
+	/**
+	 * Constructor for a stub on an ephemeral port.
+	 */
+	public ObservatoryStubServer() {
+		this(0);
+	}
+
+	/**
+	 * Constructor for a stub on the given port.
+	 *
+	 * @param port
+	 *            - the port or 0 for an ephemeral port
+	 */
+	public ObservatoryStubServer(final int port) {
+		this.port = port;
+		for (String endpoint : ENDPOINTS) {
+			responses.put(endpoint, loadFixture(endpoint));
+		}
+	}
+
+	/**
+	 * Starts the server.
+	 *
+	 * @return this server
+	 * @throws IOException
+	 *             if the port could not be bound
+	 */
+	public synchronized ObservatoryStubServer start() throws IOException {
+		if (server != null) {
+			throw new IllegalStateException("The stub server is already running.");
+		}
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext(API_PATH, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					ObservatoryStubServer.this.handle(exchange);
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(16, r -> {
+				Thread thread = new Thread(r, "observatory-stub");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		server.setExecutor(executor);
+		server.start();
+		return this;
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	public synchronized void stop() {
+		if (server == null) {
+			return;
+		}
+		server.stop(0);
+		server = null;
+		executor.shutdownNow();
+		executor = null;
+	}
+
+	/**
+	 * @return the base url of the stub, to be passed to
+	 *         {@link eu.toennies.javahttpobservatoryapi.Api#setApiUrl(String)}
+	 */
+	public synchronized String getUrl() {
+		if (server == null) {
+			throw new IllegalStateException("The stub server is not running.");
+		}
+		InetSocketAddress address = server.getAddress();
+		return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + "/api/v1";
+	}
+
+	/**
+	 * Simulates the latency of the public service.
+	 *
+	 * @param latency
+	 *            - the delay of every response
+	 * @param jitter
+	 *            - a random delay added on top
+	 * @param unit
+	 *            - the unit of latency and jitter
+	 */
+	public void setLatency(long latency, long jitter, TimeUnit unit) {
+		if (latency < 0 || jitter < 0) {
+			throw new IllegalArgumentException("Latency and jitter must not be negative.");
+		}
+		this.latencyMillis = unit.toMillis(latency);
+		this.jitterMillis = unit.toMillis(jitter);
+	}
+
+	/**
+	 * Simulates failing requests.
+	 *
+	 * @param errorRate
+	 *            - the share of requests answered with status 500, between 0
+	 *            and 1
+	 */
+	public void setErrorRate(double errorRate) {
+		if (errorRate < 0 || errorRate > 1) {
+			throw new IllegalArgumentException("The error rate must be between 0 and 1.");
+		}
+		this.errorRate = errorRate;
+	}
+
+	/**
+	 * Replaces the response of an endpoint.
+	 *
+	 * @param endpoint
+	 *            - one of the {@link #ENDPOINTS}
+	 * @param json
+	 *            - the response body
+	 */
+	public void setResponse(String endpoint, String json) {
+		if (!responses.containsKey(endpoint)) {
+			throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+		}
+		responses.put(endpoint, json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Restores the fixtures of all endpoints and disables latency and errors.
+	 */
+	public void reset() {
+		for (String endpoint : ENDPOINTS) {
+			responses.put(endpoint, loadFixture(endpoint));
+		}
+		latencyMillis = 0;
+		jitterMillis = 0;
+		errorRate = 0;
+	}
+
+	/**
+	 * Sets the executor handling the requests. Has to be called before the
+	 * server is started, the executor is shut down when the server stops.
+	 *
+	 * @param executor
+	 *            - the executor
+	 */
+	public synchronized void setExecutor(ExecutorService executor) {
+		if (server != null) {
+			throw new IllegalStateException("The stub server is already running.");
+		}
+		this.executor = executor;
+	}
+
+	/**
+	 * @return the number of requests received
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requestCount.incrementAndGet();
+		drain(exchange.getRequestBody());
+
+		long delay = latencyMillis;
+		if (jitterMillis > 0) {
+			delay += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+		}
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		URI uri = exchange.getRequestURI();
+		String endpoint = uri.getPath().substring(API_PATH.length());
+		byte[] body = responses.get(endpoint);
+		if (body == null) {
+			send(exchange, 404, NOT_FOUND.getBytes(StandardCharsets.UTF_8));
+		} else if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+			send(exchange, 500, SERVER_ERROR.getBytes(StandardCharsets.UTF_8));
+		} else if (!"GET".equals(exchange.getRequestMethod())
+				&& !("POST".equals(exchange.getRequestMethod()) && "analyze".equals(endpoint))) {
+			exchange.getResponseHeaders().set("Allow", "analyze".equals(endpoint) ? "GET, POST" : "GET");
+			exchange.sendResponseHeaders(405, -1);
+		} else {
+			send(exchange, 200, body);
+		}
+	}
+
+	private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			// compressed up front, a chunked response is sent in small writes
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+			try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+				gzip.write(body);
+			}
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			body = compressed.toByteArray();
+		}
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(body);
+		}
+	}
+
+	private static void drain(InputStream is) throws IOException {
+		byte[] buffer = new byte[1024];
+		while (is.read(buffer) != -1) {
+			// discard
+		}
+		is.close();
+	}
+
+	private static byte[] loadFixture(String endpoint) {
+		try (InputStream is = ObservatoryStubServer.class.getResourceAsStream("/stub/" + endpoint + ".json")) {
+			if (is == null) {
+				throw new IllegalStateException("Missing fixture for " + endpoint);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = is.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not load fixture for " + endpoint, e);
+		}
+	}
+
+	/**
+	 * Runs the stub until the process is killed.
+	 *
+	 * @param args
+	 *            - the port, an ephemeral port if omitted
+	 * @throws IOException
+	 *             if the port could not be bound
+	 */
+	public static void main(String[] args) throws IOException {
+		ObservatoryStubServer stub = new ObservatoryStubServer(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+		stub.start();
+		System.out.println("Observatory stub listening on " + stub.getUrl());
+	}
+}
@@ -0,0 +1,44 @@
+package eu.toennies.javahttpobservatoryapi.stub;
+
+import org.junit.rules.ExternalResource;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.Console;
+
+/**
+ * Runs the Observatory stub for a test class and points the api at it. Used
+ * as a class rule, the responses have to be reset after every test.
+ *
+ * <pre>
+ * &#64;ClassRule
+ * public static final StubServerRule STUB = new StubServerRule();
+ * </pre>
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class StubServerRule extends ExternalResource {
+
+	private ObservatoryStubServer stub;
+
+	@Override
+	protected void before() throws Throwable {
+		Console.getInstance();
+		stub = new ObservatoryStubServer().start();
+		Api.setApiUrl(stub.getUrl());
+	}
+
+	@Override
+	protected void after() {
+		Api.setApiUrl(null);
+		stub.stop();
+		stub = null;
+	}
+
+	/**
+	 * @return the running stub
+	 */
+	public ObservatoryStubServer getStub() {
+		return stub;
+	}
+}
@@ -0,0 +1,74 @@
+package eu.toennies.javahttpobservatoryapi.stub;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.Console;
+
+/**
+ * Builds the class data sharing archive of the console. Starts the stub and
+ * runs a console with every command once against it, without touching the
+ * public service, so the archive holds the classes of a real command line.
+ *
+ * The console runs in its own process with nothing but the console jar on
+ * its class path, since an archive only works with the class path it was
+ * built for.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public final class TrainingRun {
+
+	/** the command line of the training run */
+	private static final String[] COMMAND_LINE = { "-g", "-s", "-r", "-ia", "-ra", "-t", "host=example.com",
+			"id=1" };
+
+	/**
+	 * Hidden constructor for utility class.
+	 */
+	private TrainingRun() {
+	}
+
+	/**
+	 * Runs the console and writes the archive.
+	 *
+	 * @param args
+	 *            - the archive to write and the console jar
+	 * @throws IOException
+	 *             if the stub or the console could not be started
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while the console runs
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Usage: TrainingRun <archive> <console jar>");
+		}
+
+		ObservatoryStubServer stub = new ObservatoryStubServer().start();
+		try {
+			List<String> commandLine = new ArrayList<String>();
+			commandLine.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			commandLine.add("-Xlog:cds=error");
+			commandLine.add("-XX:ArchiveClassesAtExit=" + args[0]);
+			commandLine.add("-D" + Api.API_URL_PROPERTY + "=" + stub.getUrl());
+			commandLine.add("-cp");
+			commandLine.add(args[1]);
+			commandLine.add(Console.class.getName());
+			commandLine.addAll(Arrays.asList(COMMAND_LINE));
+
+			Process process = new ProcessBuilder(commandLine).redirectErrorStream(true)
+					.redirectOutput(new File(args[0] + ".log")).start();
+			int exitCode = process.waitFor();
+			if (exitCode != 0) {
+				throw new IllegalStateException("The training run ended with exit code " + exitCode + ", see "
+						+ args[0] + ".log.");
+			}
+		} finally {
+			stub.stop();
+		}
+	}
+}
@@ -0,0 +1,7 @@
+/**
+ * Provides a local stub of the HTTP Observatory API for offline tests and
+ * benchmarks. The package is part of the test jar of the library.
+ * 
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ */
+package eu.toennies.javahttpobservatoryapi.stub;
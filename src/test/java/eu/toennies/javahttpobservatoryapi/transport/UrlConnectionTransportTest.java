@@ -0,0 +1,84 @@
+package eu.toennies.javahttpobservatoryapi.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import eu.toennies.javahttpobservatoryapi.Api;
+import eu.toennies.javahttpobservatoryapi.commands.ApiCommands;
+import eu.toennies.javahttpobservatoryapi.commands.Arguments;
+import eu.toennies.javahttpobservatoryapi.stub.StubServerRule;
+
+/**
+ * Test class for the default transport.
+ *
+ * @author Sascha Tönnies <https://github.com/stoennies>
+ *
+ */
+public class UrlConnectionTransportTest {
+
+	@ClassRule
+	public static final StubServerRule STUB = new StubServerRule();
+
+	@After
+	public void reset() {
+		STUB.getStub().reset();
+		UrlConnectionTransport.configureTimeouts(UrlConnectionTransport.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+				UrlConnectionTransport.DEFAULT_READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * A server not answering should end the request after the read timeout.
+	 */
+	@Test
+	public void testReadTimeout() throws IOException {
+		STUB.getStub().setLatency(2, 0, TimeUnit.SECONDS);
+		Api.configureTimeouts(1000, 200, TimeUnit.MILLISECONDS);
+		try {
+			new Api().sendApiGetRequest("getScannerStates", null);
+			fail("Should have raised a SocketTimeoutException.");
+		} catch (SocketTimeoutException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * The timeouts of an executor should only apply to the requests of its
+	 * tasks and leave the configured timeouts alone.
+	 */
+	@Test
+	public void testTaskTimeouts() {
+		STUB.getStub().setLatency(2, 0, TimeUnit.SECONDS);
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Executor executor = UrlConnectionTransport.withTimeouts(pool, 1000, 200, TimeUnit.MILLISECONDS);
+			CompletableFuture<?> result = ApiCommands.SCANNER_STATES.getCommand().executeAsync(Arguments.parse(),
+					executor);
+			try {
+				result.join();
+				fail("Should have raised a SocketTimeoutException.");
+			} catch (CompletionException e) {
+				assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof SocketTimeoutException);
+			}
+			assertEquals(UrlConnectionTransport.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+					UrlConnectionTransport.getConnectTimeoutMillis());
+			assertEquals(UrlConnectionTransport.DEFAULT_READ_TIMEOUT_MILLIS,
+					UrlConnectionTransport.getReadTimeoutMillis());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}